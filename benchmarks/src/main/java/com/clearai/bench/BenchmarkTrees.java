@@ -0,0 +1,25 @@
+package com.clearai.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Location of the scratch directories the benchmarks create their trees in. */
+final class BenchmarkTrees {
+
+    /** Seed shared by all benchmarks, so every run sees identical trees. */
+    static final long SEED = 0x5eed_c1ea_2a1L;
+
+    private BenchmarkTrees() {
+    }
+
+    /**
+     * Returns a fresh scratch directory, under {@code -Dclearai.bench.dir} when
+     * set so trees can be put on the device under test, else the temp dir.
+     */
+    static Path scratch() throws IOException {
+        String dir = System.getProperty("clearai.bench.dir");
+        Path parent = dir == null ? Path.of(System.getProperty("java.io.tmpdir")) : Files.createDirectories(Path.of(dir));
+        return Files.createTempDirectory(parent, "clear-ai-bench-");
+    }
+}
@@ -0,0 +1,119 @@
+package com.clearai.bench;
+
+import com.clearai.classify.Category;
+import com.clearai.classify.Rule;
+import com.clearai.classify.RuleSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classification of paths against the default rules, optionally followed by
+ * thousands of generated ones. Paths are generated in memory with a realistic
+ * mix of matching and non-matching names, so the figure is per path and
+ * independent of the file system.
+ *
+ * <p>The generated rules mimic what a large rule file accumulates: mostly
+ * per-project build directories under the home directory, then extensions,
+ * name prefixes, directory names at any depth and a few general globs. None
+ * of them precede the defaults, so the verdicts stay the same and the
+ * difference between the two parameter values is the cost of the extra
+ * states the paths walk through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifyBenchmark {
+
+    private static final int PATHS = 4096;
+
+    private static final String[] PREFIXES = {
+            "~/projects/web/node_modules/react/cjs", "~/.cache/mozilla/firefox/profile/cache2/entries",
+            "~/projects/api/target/classes/com/example", "~/Downloads", "~/Documents/reports/2024",
+            "~/src/tool/build/intermediates", "/var/log/nginx", "/tmp/session", "~/Pictures/holiday",
+            "~/projects/ml/.venv/lib/python3.11/site-packages/numpy", "~/projects/app/src/main/java/com/example"
+    };
+    private static final String[] NAMES = {
+            "index.js", "Main.class", "server.log", "server.log.1", "photo.jpg", "notes.txt", "build.o",
+            "cache.tmp", "module.pyc", "README.md", "report.pdf", "data.json", "setup.exe", "archive.zip"
+    };
+
+    /** Number of generated rules appended after the defaults. */
+    @Param({"0", "5000"})
+    public int generatedRules;
+
+    private RuleSet rules;
+    private String[] paths;
+    private long[] modified;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String home = System.getProperty("user.home");
+        rules = rules(home, new SplittableRandom(BenchmarkTrees.SEED + 1));
+        SplittableRandom random = new SplittableRandom(BenchmarkTrees.SEED);
+        now = System.currentTimeMillis();
+        paths = new String[PATHS];
+        modified = new long[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            String prefix = PREFIXES[random.nextInt(PREFIXES.length)].replace("~", home);
+            paths[i] = prefix + "/d" + random.nextInt(100) + '/' + NAMES[random.nextInt(NAMES.length)];
+            modified[i] = now - random.nextLong(TimeUnit.DAYS.toMillis(365));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public int classify() {
+        int matched = 0;
+        for (int i = 0; i < PATHS; i++) {
+            Rule rule = rules.classify(paths[i], modified[i], now);
+            if (rule != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private RuleSet rules(String home, SplittableRandom random) {
+        List<Rule> all = new ArrayList<>(RuleSet.defaults().rules());
+        Category[] categories = Category.values();
+        for (int i = 0; i < generatedRules; i++) {
+            int shape = random.nextInt(100);
+            String pattern;
+            if (shape < 40) {
+                pattern = "~/projects/p" + i + "/target/**";
+            } else if (shape < 70) {
+                pattern = "*.ext" + i;
+            } else if (shape < 85) {
+                pattern = "name" + i + "*";
+            } else if (shape < 95) {
+                pattern = "**/dir" + i + "/**";
+            } else {
+                pattern = "**/g" + i + "?*/*.b" + i;
+            }
+            all.add(new Rule(all.size(), categories[random.nextInt(categories.length)], pattern, 0));
+        }
+        return RuleSet.compile(all, Path.of(home));
+    }
+}
@@ -0,0 +1,82 @@
+package com.clearai.bench;
+
+import com.clearai.delete.DeletionExecutor;
+import com.clearai.delete.DeletionOptions;
+import com.clearai.delete.DeletionReport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One deletion run over a freshly generated tree of small files, including
+ * journaling. The tree is rebuilt before every invocation, so this is a
+ * single-shot measurement.
+ *
+ * <p>The default tree has 10,000 files. The million-file tree takes minutes
+ * to build per invocation, so it is left out of the default set; measure it
+ * with {@code -p tree=MILLION_FILES -wi 0 -i 3}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DeleteBenchmark {
+
+    @Param({"TRASH", "PERMANENT"})
+    public DeletionOptions.Mode mode;
+
+    @Param({"SMALL_FILES"})
+    public SyntheticTree.Shape tree;
+
+    /** Whether the candidates are the individual files or their directories. */
+    @Param({"FILES", "DIRECTORIES"})
+    public String candidates;
+
+    private Path scratch;
+    private List<Path> paths;
+    private DeletionExecutor executor;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        scratch = BenchmarkTrees.scratch();
+        Path root = SyntheticTree.create(scratch, tree, BenchmarkTrees.SEED);
+        paths = candidates.equals("FILES") ? SyntheticTree.files(root) : SyntheticTree.children(root);
+        executor = new DeletionExecutor(DeletionOptions.builder()
+                .mode(mode)
+                .trashRoot(scratch.resolve("trash"))
+                .build());
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        SyntheticTree.delete(scratch);
+    }
+
+    @Benchmark
+    public DeletionReport delete() throws IOException, InterruptedException {
+        DeletionReport report = executor.delete(new ArrayList<>(paths));
+        if (!report.failures().isEmpty()) {
+            throw new IllegalStateException("deletion failed: " + report.failures().get(0));
+        }
+        return report;
+    }
+}
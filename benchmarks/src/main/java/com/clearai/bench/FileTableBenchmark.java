@@ -0,0 +1,112 @@
+package com.clearai.bench;
+
+import com.clearai.scan.ScanListener;
+import com.clearai.store.FileTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling a {@link FileTable} with a million files, the way scanner threads
+ * do, and the direct memory it ends up holding per file. Rows are generated
+ * in memory, so the figure is the table's own cost, independent of the file
+ * system. Names follow a dependency tree: most recur across directories,
+ * about a fifth are unique.
+ *
+ * <p>The {@link FileTable#bytesPerFile()} of the last table filled is printed
+ * when the trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=2g")
+public class FileTableBenchmark {
+
+    private static final int FILES = 1_000_000;
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final String[] COMMON = {
+            "index.js", "package.json", "README.md", "LICENSE", "index.d.ts", "Main.class", "module.pyc",
+            "__init__.py", "CHANGELOG.md", "util.js", "types.ts", "build.o"
+    };
+
+    /** Number of threads adding rows at the same time. */
+    @Param({"1", "4"})
+    public int threads;
+
+    private String[] names;
+    private long[] sizes;
+    private ExecutorService pool;
+    private FileTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(BenchmarkTrees.SEED);
+        names = new String[FILES];
+        sizes = new long[FILES];
+        for (int i = 0; i < FILES; i++) {
+            int kind = random.nextInt(10);
+            names[i] = kind < 5 ? COMMON[random.nextInt(COMMON.length)]
+                    : kind < 8 ? "file-" + random.nextInt(2_000) + ".js"
+                    : "chunk-" + Long.toHexString(random.nextLong()) + ".bin";
+            sizes[i] = random.nextInt(1 << 16);
+        }
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+        System.out.printf("%n%,d files, %,d distinct names, %.1f bytes/file of direct memory%n",
+                table.fileCount(), table.distinctNames(), table.bytesPerFile());
+    }
+
+    @Benchmark
+    public FileTable fill() throws InterruptedException, ExecutionException {
+        FileTable t = new FileTable();
+        Path root = Path.of("/bench");
+        t.directoryVisited(0, ScanListener.NO_PARENT, root);
+        int directories = FILES / FILES_PER_DIRECTORY;
+        List<Future<?>> parts = new ArrayList<>(threads);
+        for (int part = 0; part < threads; part++) {
+            int from = directories * part / threads;
+            int to = directories * (part + 1) / threads;
+            parts.add(pool.submit(() -> {
+                for (int d = from; d < to; d++) {
+                    int dirId = d + 1;
+                    t.directoryVisited(dirId, 0, root.resolve("pkg-" + d));
+                    for (int i = d * FILES_PER_DIRECTORY; i < (d + 1) * FILES_PER_DIRECTORY; i++) {
+                        t.add(dirId, names[i], sizes[i], 0);
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : parts) {
+            f.get();
+        }
+        table = t;
+        return t;
+    }
+}
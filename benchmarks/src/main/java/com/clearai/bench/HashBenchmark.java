@@ -0,0 +1,90 @@
+package com.clearai.bench;
+
+import com.clearai.dedup.DedupOptions;
+import com.clearai.dedup.DuplicateFinder;
+import com.clearai.dedup.DuplicateReport;
+import com.clearai.io.IoOptions;
+import com.clearai.io.IoScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate detection from a ready list of files: size grouping, partial
+ * hashes and full hashes, with contents in the page cache. No index is used,
+ * so every invocation hashes from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"MEDIA", "SMALL_FILES"})
+    public SyntheticTree.Shape shape;
+
+    @Param({"SHA-256", "SHA-1"})
+    public String algorithm;
+
+    private Path scratch;
+    private IoScheduler io;
+    private DedupOptions options;
+    private Path[] files;
+    private long[] sizes;
+    private long[] modified;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        scratch = BenchmarkTrees.scratch();
+        Path root = SyntheticTree.create(scratch, shape, BenchmarkTrees.SEED);
+        List<Path> list = SyntheticTree.files(root);
+        files = list.toArray(Path[]::new);
+        sizes = new long[files.length];
+        modified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            BasicFileAttributes attrs = Files.readAttributes(files[i], BasicFileAttributes.class);
+            sizes[i] = attrs.size();
+            modified[i] = attrs.lastModifiedTime().toMillis();
+        }
+        // Contents are cached, so every device kind gets the same four readers.
+        io = new IoScheduler(IoOptions.builder()
+                .solidStateParallelism(4).rotationalParallelism(4).networkParallelism(4).build());
+        options = DedupOptions.builder().digestAlgorithm(algorithm).ioScheduler(io).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        io.close();
+        SyntheticTree.delete(scratch);
+    }
+
+    @Benchmark
+    public DuplicateReport findDuplicates() throws NoSuchAlgorithmException, InterruptedException {
+        DuplicateFinder finder = new DuplicateFinder(options);
+        for (int i = 0; i < files.length; i++) {
+            finder.add(files[i], sizes[i], modified[i]);
+        }
+        return finder.find();
+    }
+}
@@ -0,0 +1,96 @@
+package com.clearai.bench;
+
+import com.clearai.memory.MemorySampler;
+import com.clearai.memory.SamplerOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One memory sampling tick over thousands of processes. Real hosts rarely
+ * run that many, so the processes live in a fake {@code /proc} of regular
+ * files laid out like procfs, which the sampler reads through
+ * {@link SamplerOptions#procRoot}. With the default of 1024 open handles most
+ * {@code statm} files of the larger table are reopened on every tick, as on a
+ * crowded host; with 8192 every one is re-read in place.
+ *
+ * <p>At the default 1 Hz the tick time in milliseconds divided by ten is the
+ * share of one core the sampler takes, in percent. Regular files are not
+ * procfs, so this is the sampler's own cost; the kernel's cost of producing
+ * {@code statm} comes on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemorySamplerBenchmark {
+
+    private static final String[] NAMES = {"chrome", "code", "java", "python3", "bash", "postgres", "node"};
+
+    /** Number of processes in the fake {@code /proc}. */
+    @Param({"1000", "5000"})
+    public int processes;
+
+    /** {@link SamplerOptions#maxOpenFiles()}. */
+    @Param({"1024", "8192"})
+    public int maxOpenFiles;
+
+    private Path scratch;
+    private MemorySampler sampler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        scratch = BenchmarkTrees.scratch();
+        Files.createDirectories(scratch.resolve("self"));
+        Files.writeString(scratch.resolve("self/smaps"), "KernelPageSize:        4 kB\n");
+        Files.writeString(scratch.resolve("meminfo"), "MemTotal:       32000000 kB\nMemFree:         4000000 kB\n"
+                + "MemAvailable:   12000000 kB\nCached:          6000000 kB\nSwapTotal:       8000000 kB\n"
+                + "SwapFree:        7000000 kB\n");
+        SplittableRandom random = new SplittableRandom(BenchmarkTrees.SEED);
+        for (int i = 0; i < processes; i++) {
+            Path dir = Files.createDirectories(scratch.resolve(Integer.toString(100 + i * 7)));
+            long resident = 100 + random.nextInt(200_000);
+            Files.writeString(dir.resolve("statm"), resident * 4 + " " + resident + " " + resident / 4
+                    + " 50 0 " + resident / 2 + " 0\n");
+            Files.writeString(dir.resolve("status"), "Name:\t" + NAMES[random.nextInt(NAMES.length)]
+                    + "\nUmask:\t0022\nState:\tS (sleeping)\nVmRSS:\t" + resident * 4 + " kB\nVmSwap:\t"
+                    + random.nextInt(1_000) + " kB\nThreads:\t4\n");
+            Files.writeString(dir.resolve("smaps_rollup"), "Rss:  " + resident * 4 + " kB\nPss:  " + resident * 3
+                    + " kB\nPrivate_Dirty:  " + resident + " kB\nSwap:  0 kB\n");
+        }
+        sampler = new MemorySampler(SamplerOptions.builder().procRoot(scratch.toString())
+                .maxOpenFiles(maxOpenFiles).build());
+        sampler.sample();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        sampler.close();
+        SyntheticTree.delete(scratch);
+    }
+
+    @Benchmark
+    public long tick() {
+        sampler.sample();
+        return sampler.ticks();
+    }
+}
@@ -0,0 +1,109 @@
+package com.clearai.bench;
+
+import com.clearai.index.ScanIndex;
+import com.clearai.io.IoOptions;
+import com.clearai.io.IoScheduler;
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanListener;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanner throughput over a warm page cache: directory listing, stat and
+ * listener dispatch, without any disk reads of file contents.
+ *
+ * <p>With {@code index=true} every invocation is a warm rescan as a fresh
+ * run would do it: the {@link ScanIndex} saved by an earlier scan of the
+ * unchanged tree is loaded from disk and the tree scanned through it. The
+ * ratio to {@code index=false} is the incremental-rescan speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"SMALL_FILES", "DEEP"})
+    public SyntheticTree.Shape shape;
+
+    /** Scanner threads; 0 means one per CPU. */
+    @Param({"1", "0"})
+    public int parallelism;
+
+    /** Rescan through an index saved by an earlier scan. */
+    @Param({"false", "true"})
+    public boolean index;
+
+    private Path scratch;
+    private Path root;
+    private Path indexFile;
+    private ScanOptions.Builder options;
+    private IoScheduler io;
+    private FileScanner scanner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        scratch = BenchmarkTrees.scratch();
+        root = SyntheticTree.create(scratch, shape, BenchmarkTrees.SEED);
+        options = ScanOptions.builder();
+        if (parallelism > 0) {
+            options.parallelism(parallelism);
+        }
+        // The tree is cached, so let every device kind take all scanner threads rather than the disk's limit.
+        int threads = options.build().parallelism();
+        io = new IoScheduler(IoOptions.builder()
+                .solidStateParallelism(threads).rotationalParallelism(threads).networkParallelism(threads).build());
+        scanner = new FileScanner(options.ioScheduler(io).build());
+        if (index) {
+            indexFile = scratch.resolve("index.bin");
+            ScanIndex cold = ScanIndex.create(indexFile);
+            try (FileScanner priming = new FileScanner(options.directoryCache(cold).build())) {
+                priming.scan(root, discard());
+            }
+            cold.save();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        scanner.close();
+        io.close();
+        SyntheticTree.delete(scratch);
+    }
+
+    @Benchmark
+    public ScanSummary scan() throws IOException {
+        if (!index) {
+            return scanner.scan(root, discard());
+        }
+        // A new scanner per run, as the cache is part of its options; this slightly favours the cold case.
+        try (FileScanner warm = new FileScanner(options.directoryCache(ScanIndex.load(indexFile)).build())) {
+            return warm.scan(root, discard());
+        }
+    }
+
+    private static ScanListener discard() {
+        return (dirId, file, size, lastModified) -> {
+        };
+    }
+}
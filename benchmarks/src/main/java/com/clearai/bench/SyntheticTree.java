@@ -0,0 +1,166 @@
+package com.clearai.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible directory trees for the benchmarks. The same shape
+ * and seed always produce the same names, sizes and contents.
+ */
+public final class SyntheticTree {
+
+    /** Kinds of tree, each stressing a different part of the pipeline. */
+    public enum Shape {
+        /** 10,000 files of up to 4 KiB in 50 flat directories, like a dependency cache. */
+        SMALL_FILES,
+        /** 16 chains of 32 nested directories with 10 small files at every level. */
+        DEEP,
+        /** 16 files of 1 to 8 MiB; half have an exact copy and a quarter a same-sized near copy. */
+        MEDIA,
+        /** 1,000,000 files of up to 256 bytes in 1,000 flat directories, the scale deletion is meant for. */
+        MILLION_FILES
+    }
+
+    private static final String[] EXTENSIONS = {".js", ".class", ".log", ".tmp", ".json", ".txt", ".o", ".pyc"};
+
+    private SyntheticTree() {
+    }
+
+    /** Creates a tree of {@code shape} in a new directory under {@code parent} and returns the directory. */
+    public static Path create(Path parent, Shape shape, long seed) throws IOException {
+        Path root = Files.createTempDirectory(parent, "tree-" + shape.name().toLowerCase() + '-');
+        SplittableRandom random = new SplittableRandom(seed);
+        switch (shape) {
+            case SMALL_FILES -> smallFiles(root, random);
+            case DEEP -> deep(root, random);
+            case MEDIA -> media(root, random);
+            case MILLION_FILES -> millionFiles(root, random);
+        }
+        return root;
+    }
+
+    /** Returns the entries directly inside {@code dir}, sorted. */
+    public static List<Path> children(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (var stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(out::add);
+        }
+        out.sort(null);
+        return out;
+    }
+
+    /** Returns every regular file below {@code root}, sorted. */
+    public static List<Path> files(Path root) throws IOException {
+        try (var stream = Files.walk(root)) {
+            return stream.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    /** Deletes {@code root} and everything below it; does nothing if it is gone. */
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void smallFiles(Path root, SplittableRandom random) throws IOException {
+        byte[] block = new byte[4096];
+        random.nextBytes(block);
+        for (int d = 0; d < 50; d++) {
+            Path dir = Files.createDirectory(root.resolve("pkg-" + d));
+            for (int f = 0; f < 200; f++) {
+                write(dir.resolve("f" + f + EXTENSIONS[random.nextInt(EXTENSIONS.length)]),
+                        block, random.nextInt(block.length + 1));
+            }
+        }
+    }
+
+    private static void millionFiles(Path root, SplittableRandom random) throws IOException {
+        byte[] block = new byte[256];
+        random.nextBytes(block);
+        for (int d = 0; d < 1000; d++) {
+            Path dir = Files.createDirectory(root.resolve("pkg-" + d));
+            for (int f = 0; f < 1000; f++) {
+                write(dir.resolve("f" + f + EXTENSIONS[random.nextInt(EXTENSIONS.length)]),
+                        block, random.nextInt(block.length + 1));
+            }
+        }
+    }
+
+    private static void deep(Path root, SplittableRandom random) throws IOException {
+        byte[] block = new byte[1024];
+        random.nextBytes(block);
+        for (int chain = 0; chain < 16; chain++) {
+            Path dir = root.resolve("chain-" + chain);
+            for (int level = 0; level < 32; level++) {
+                dir = Files.createDirectories(dir.resolve("level-" + level));
+                for (int f = 0; f < 10; f++) {
+                    write(dir.resolve("f" + f + EXTENSIONS[random.nextInt(EXTENSIONS.length)]),
+                            block, random.nextInt(block.length + 1));
+                }
+            }
+        }
+    }
+
+    private static void media(Path root, SplittableRandom random) throws IOException {
+        Path originals = Files.createDirectory(root.resolve("originals"));
+        Path copies = Files.createDirectory(root.resolve("copies"));
+        byte[] chunk = new byte[1 << 20];
+        for (int i = 0; i < 16; i++) {
+            int mib = 1 + random.nextInt(8);
+            long contentSeed = random.nextLong();
+            Path original = originals.resolve("video-" + i + ".mp4");
+            writeRandom(original, chunk, mib, contentSeed, -1);
+            if (i % 2 == 0) {
+                Files.copy(original, copies.resolve("video-" + i + " (copy).mp4"));
+            } else if (i % 4 == 1) {
+                // Same size and first blocks, different last byte: survives the
+                // partial-hash stage and is only told apart by the full hash.
+                writeRandom(copies.resolve("video-" + i + "-edited.mp4"), chunk, mib, contentSeed, mib - 1);
+            }
+        }
+    }
+
+    private static void write(Path file, byte[] block, int length) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(block, 0, length);
+        }
+    }
+
+    private static void writeRandom(Path file, byte[] chunk, int mib, long seed, int alteredChunk) throws IOException {
+        SplittableRandom content = new SplittableRandom(seed);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < mib; i++) {
+                content.nextBytes(chunk);
+                if (i == alteredChunk) {
+                    chunk[chunk.length - 1] ^= 1;
+                }
+                out.write(chunk);
+            }
+        }
+    }
+}
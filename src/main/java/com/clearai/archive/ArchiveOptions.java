@@ -0,0 +1,97 @@
+package com.clearai.archive;
+
+import java.util.zip.Deflater;
+
+/**
+ * Immutable settings for an {@link Archiver}. Create instances with {@link #builder()}.
+ */
+public final class ArchiveOptions {
+
+    private final int compressionLevel;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean removeOriginals;
+
+    private ArchiveOptions(Builder b) {
+        this.compressionLevel = b.compressionLevel;
+        this.chunkSize = b.chunkSize;
+        this.parallelism = b.parallelism;
+        this.removeOriginals = b.removeOriginals;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ArchiveOptions defaults() {
+        return builder().build();
+    }
+
+    /** {@link Deflater} level, from 1 (fastest) to 9 (smallest). */
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+
+    /** Bytes of tar stream compressed as one independent gzip member. */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Number of chunks compressed at the same time. Twice as many chunks are
+     * in flight, which bounds the direct memory of a run at about
+     * {@code 4 * parallelism * chunkSize} bytes whatever the amount archived.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /** Whether originals are deleted once the archive has been verified. */
+    public boolean removeOriginals() {
+        return removeOriginals;
+    }
+
+    public static final class Builder {
+
+        private int compressionLevel = 6;
+        private int chunkSize = 1 << 20;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private boolean removeOriginals = true;
+
+        private Builder() {
+        }
+
+        public Builder compressionLevel(int compressionLevel) {
+            if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("compressionLevel must be between 1 and 9: " + compressionLevel);
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < (64 << 10) || chunkSize > (64 << 20)) {
+                throw new IllegalArgumentException("chunkSize must be between 64 KiB and 64 MiB: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder removeOriginals(boolean removeOriginals) {
+            this.removeOriginals = removeOriginals;
+            return this;
+        }
+
+        public ArchiveOptions build() {
+            return new ArchiveOptions(this);
+        }
+    }
+}
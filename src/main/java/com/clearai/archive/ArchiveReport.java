@@ -0,0 +1,49 @@
+package com.clearai.archive;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of one {@link Archiver#archive} run.
+ *
+ * @param archive        the verified archive
+ * @param files          files written to the archive
+ * @param removed        originals deleted after verification
+ * @param originalBytes  total size of the archived files
+ * @param archiveBytes   size of the archive
+ * @param reclaimedBytes disk space freed: the blocks of removed originals that had no other
+ *                       hard link, less the blocks the archive takes; negative if it grew
+ * @param failures       files that were not archived or not removed, with the reason
+ * @param elapsed        wall-clock duration of the run
+ */
+public record ArchiveReport(Path archive, long files, long removed, long originalBytes, long archiveBytes,
+                            long reclaimedBytes, List<Failure> failures, Duration elapsed) {
+
+    public ArchiveReport {
+        failures = List.copyOf(failures);
+    }
+
+    /** Archive size as a fraction of the original size. */
+    public double compressionRatio() {
+        return originalBytes == 0 ? 1 : (double) archiveBytes / originalBytes;
+    }
+
+    /** Original bytes archived per second. */
+    public double bytesPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return originalBytes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d files, %,d bytes -> %,d bytes (%.1f%%), %,d removed, %,d bytes reclaimed,"
+                        + " %,d failed in %d ms (%,.0f MB/s)",
+                archive, files, originalBytes, archiveBytes, compressionRatio() * 100, removed, reclaimedBytes,
+                failures.size(), elapsed.toMillis(), bytesPerSecond() / 1e6);
+    }
+
+    /** A file that could not be archived, or was archived but kept. */
+    public record Failure(String path, String reason) {
+    }
+}
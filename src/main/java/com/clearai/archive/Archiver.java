@@ -0,0 +1,414 @@
+package com.clearai.archive;
+
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Moves cold files into a compressed archive, an alternative to deleting
+ * them for logs and datasets that have to be kept.
+ *
+ * <p>Files are written as one tar stream, cut into chunks of
+ * {@link ArchiveOptions#chunkSize()} bytes that a pool compresses in parallel
+ * into independent gzip members (see {@link GzipChunk}); members are written
+ * to the archive in order as they complete. The archiving thread reads each
+ * file straight into a chunk's direct buffer and only ever has
+ * {@code 2 * parallelism} chunks in flight, so memory stays the same whether
+ * a run archives a megabyte or a hundred gigabytes.
+ *
+ * <p>The archive is written under a {@code .part} name and flushed to disk,
+ * then every member is read back, inflated and checked against the length and
+ * CRC recorded when it was compressed. Only then is it renamed into place and
+ * are the originals deleted; a file whose size or modification time changed
+ * since it was read is kept. If anything goes wrong before that point the
+ * partial archive is removed and no original is touched.
+ */
+public final class Archiver {
+
+    private static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.ARCHIVE);
+
+    private final ArchiveOptions options;
+
+    public Archiver(ArchiveOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+    }
+
+    /**
+     * Archives {@code paths} into {@code archive}, a new {@code .tar.gz}, and
+     * then removes the originals if {@link ArchiveOptions#removeOriginals()}.
+     * Directories are archived with every regular file below them; the
+     * directories themselves are left in place. Entries are named by their
+     * absolute path without the leading {@code /}, as GNU tar does.
+     *
+     * @throws IOException if the archive cannot be written or fails verification
+     */
+    public ArchiveReport archive(Path archive, Collection<Path> paths) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Path target = archive.toAbsolutePath().normalize();
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            throw new FileAlreadyExistsException(target.toString());
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        List<ArchiveReport.Failure> failures = new ArrayList<>();
+        List<Path> files = collect(paths, target, partial, failures);
+
+        List<Archived> archived;
+        long archiveBytes;
+        try (Run run = new Run()) {
+            try {
+                try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+                    archived = run.write(files, out, failures);
+                    out.force(true);
+                    archiveBytes = out.size();
+                }
+                run.verify(partial, archiveBytes);
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+        }
+
+        long originalBytes = 0;
+        long removed = 0;
+        long reclaimed = 0;
+        Map<Object, Long> blockSizes = new HashMap<>();
+        for (Archived a : archived) {
+            originalBytes += a.state.size();
+            if (!options.removeOriginals()) {
+                continue;
+            }
+            try {
+                FileState now = FileState.read(a.path);
+                if (now.size() != a.state.size() || now.modified() != a.state.modified()) {
+                    fail(failures, a.path, "modified after it was archived; kept");
+                    continue;
+                }
+                Files.delete(a.path);
+                removed++;
+                if (now.links() <= 1) {
+                    reclaimed += allocated(now.size(), blockSize(blockSizes, now.device(), a.path));
+                }
+            } catch (NoSuchFileException e) {
+                fail(failures, a.path, "removed by someone else");
+            } catch (IOException e) {
+                fail(failures, a.path, "archived but not removed: " + e);
+            }
+        }
+        if (removed > 0) {
+            reclaimed -= allocated(archiveBytes, blockSize(blockSizes, FileState.read(target).device(), target));
+        }
+        return new ArchiveReport(target, archived.size(), removed, originalBytes, archiveBytes, reclaimed, failures,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static List<Path> collect(Collection<Path> paths, Path archive, Path partial,
+            List<ArchiveReport.Failure> failures) {
+        List<Path> files = new ArrayList<>();
+        for (Path p : paths) {
+            Path abs = p.toAbsolutePath().normalize();
+            try {
+                Files.walkFileTree(abs, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (!attrs.isRegularFile()) {
+                            fail(failures, file, "not a regular file");
+                        } else if (!file.equals(archive) && !file.equals(partial)) {
+                            files.add(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        fail(failures, file, e.toString());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                fail(failures, abs, e.toString());
+            }
+        }
+        return files;
+    }
+
+    private static long allocated(long size, long blockSize) {
+        return (size + blockSize - 1) / blockSize * blockSize;
+    }
+
+    private static long blockSize(Map<Object, Long> cache, Object device, Path path) {
+        return cache.computeIfAbsent(device, d -> {
+            try {
+                return Files.getFileStore(path).getBlockSize();
+            } catch (IOException | UnsupportedOperationException e) {
+                return 4096L;
+            }
+        });
+    }
+
+    private static void fail(List<ArchiveReport.Failure> failures, Path path, String reason) {
+        failures.add(new ArchiveReport.Failure(path.toString(), reason));
+        METRICS.error();
+    }
+
+    /** A file that went into the archive whole, as it was when read. */
+    private record Archived(Path path, FileState state) {
+    }
+
+    /** The compression pool, chunk buffers and codecs of one run. */
+    private final class Run implements AutoCloseable {
+
+        private final int maxChunks = 2 * options.parallelism();
+        private final ExecutorService pool;
+        private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(options.parallelism());
+        private final ArrayDeque<GzipChunk> free = new ArrayDeque<>();
+        private final ArrayDeque<Future<GzipChunk>> compressing = new ArrayDeque<>();
+        private final List<GzipChunk.Member> members = new ArrayList<>();
+        private int chunkCount;
+        private GzipChunk current;
+        private FileChannel out;
+        private long position;
+        private IOException readError;
+
+        Run() {
+            AtomicInteger threads = new AtomicInteger();
+            this.pool = Executors.newFixedThreadPool(options.parallelism(), r -> {
+                Thread t = new Thread(r, "clear-ai-archive-" + threads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < options.parallelism(); i++) {
+                deflaters.add(new Deflater(options.compressionLevel(), true));
+            }
+        }
+
+        List<Archived> write(List<Path> files, FileChannel out, List<ArchiveReport.Failure> failures)
+                throws IOException, InterruptedException {
+            this.out = out;
+            this.current = acquire();
+            List<Archived> archived = new ArrayList<>(files.size());
+            for (Path file : files) {
+                FileState state;
+                FileChannel in;
+                try {
+                    state = FileState.read(file);
+                    in = FileChannel.open(file, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    fail(failures, file, e.toString());
+                    continue;
+                }
+                try (in) {
+                    put(TarFormat.fileHeader(entryName(file), state.size(), state.modified(), state.mode(),
+                            state.uid(), state.gid()));
+                    long copied = copy(in, state.size());
+                    zeros(TarFormat.padded(state.size()) - state.size());
+                    if (readError != null) {
+                        fail(failures, file, "read failed; entry padded, original kept: " + readError);
+                        readError = null;
+                    } else if (copied < state.size()) {
+                        fail(failures, file, "shrank while being archived; entry padded, original kept");
+                    } else {
+                        archived.add(new Archived(file, state));
+                        METRICS.add(1, 0);
+                    }
+                }
+            }
+            put(TarFormat.END);
+            submit(current);
+            current = null;
+            while (!compressing.isEmpty()) {
+                free.add(drain());
+            }
+            return archived;
+        }
+
+        /** Reads every member back in parallel and throws if any differs from what was written. */
+        void verify(Path archive, long size) throws IOException, InterruptedException {
+            if (position != size) {
+                throw new IOException("archive is " + size + " bytes, expected " + position);
+            }
+            BlockingQueue<GzipChunk> chunks = new ArrayBlockingQueue<>(chunkCount, false, free);
+            BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(options.parallelism());
+            for (int i = 0; i < options.parallelism(); i++) {
+                inflaters.add(new Inflater(true));
+            }
+            try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+                List<Future<String>> results = new ArrayList<>(members.size());
+                for (GzipChunk.Member member : members) {
+                    results.add(pool.submit(() -> {
+                        GzipChunk chunk = chunks.take();
+                        Inflater inflater = inflaters.take();
+                        try {
+                            return chunk.verify(in, member, inflater);
+                        } finally {
+                            inflaters.add(inflater);
+                            chunks.add(chunk);
+                        }
+                    }));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    String problem = await(results.get(i));
+                    if (problem != null) {
+                        GzipChunk.Member m = members.get(i);
+                        throw new IOException("archive verification failed at member " + i + " (offset "
+                                + m.offset() + "): " + problem);
+                    }
+                }
+            } finally {
+                inflaters.forEach(Inflater::end);
+            }
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();
+            deflaters.forEach(Deflater::end);
+        }
+
+        /**
+         * Reads up to {@code size} bytes of {@code in} into chunks and returns
+         * how many there were. The entry's header is out already, so if the
+         * file ends early or cannot be read the rest is filled with zeros to
+         * keep the stream valid; a read error is left in {@link #readError}.
+         * Errors of the archive itself propagate.
+         */
+        private long copy(FileChannel in, long size) throws IOException, InterruptedException {
+            long copied = 0;
+            while (copied < size) {
+                ByteBuffer data = room();
+                int limit = data.limit();
+                data.limit((int) Math.min(limit, data.position() + (size - copied)));
+                int n;
+                try {
+                    n = in.read(data);
+                } catch (IOException e) {
+                    readError = e;
+                    n = -1;
+                } finally {
+                    data.limit(limit);
+                }
+                if (n < 0) {
+                    zeros(size - copied);
+                    return copied;
+                }
+                copied += n;
+            }
+            return copied;
+        }
+
+        private void put(byte[] bytes) throws IOException, InterruptedException {
+            for (int offset = 0; offset < bytes.length; ) {
+                ByteBuffer data = room();
+                int n = Math.min(data.remaining(), bytes.length - offset);
+                data.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void zeros(long count) throws IOException, InterruptedException {
+            while (count > 0) {
+                ByteBuffer data = room();
+                int n = (int) Math.min(data.remaining(), count);
+                for (int i = 0; i < n; i++) {
+                    data.put((byte) 0);
+                }
+                count -= n;
+            }
+        }
+
+        /** Returns the current chunk's buffer, handing it off for compression first if it is full. */
+        private ByteBuffer room() throws IOException, InterruptedException {
+            if (!current.data.hasRemaining()) {
+                submit(current);
+                current = acquire();
+            }
+            return current.data;
+        }
+
+        private void submit(GzipChunk chunk) {
+            compressing.add(pool.submit(() -> {
+                long start = METRICS.start();
+                Deflater deflater = deflaters.take();
+                try {
+                    chunk.compress(deflater);
+                } finally {
+                    deflaters.add(deflater);
+                }
+                METRICS.record(0, chunk.length, start);
+                return chunk;
+            }));
+        }
+
+        /** Returns an empty chunk, writing out the oldest compressed one to free it if all are in use. */
+        private GzipChunk acquire() throws IOException, InterruptedException {
+            GzipChunk chunk = free.poll();
+            if (chunk == null) {
+                if (chunkCount < maxChunks) {
+                    chunkCount++;
+                    chunk = new GzipChunk(options.chunkSize());
+                } else {
+                    chunk = drain();
+                }
+            }
+            chunk.data.clear();
+            return chunk;
+        }
+
+        /** Waits for the oldest chunk in compression and appends its member to the archive. */
+        private GzipChunk drain() throws IOException, InterruptedException {
+            GzipChunk chunk = await(compressing.poll());
+            int size = chunk.member.remaining();
+            members.add(new GzipChunk.Member(position, size, chunk.length, chunk.crc));
+            while (chunk.member.hasRemaining()) {
+                out.write(chunk.member);
+            }
+            position += size;
+            return chunk;
+        }
+
+        private <T> T await(Future<T> future) throws IOException, InterruptedException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw new IOException("archiving failed", e);
+            }
+        }
+    }
+
+    private static String entryName(Path file) {
+        Path root = file.getRoot();
+        Path relative = root == null ? file : root.relativize(file);
+        return relative.toString().replace(relative.getFileSystem().getSeparator(), "/");
+    }
+}
@@ -0,0 +1,35 @@
+package com.clearai.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * The attributes of a file that go into its tar header or decide whether it
+ * may be removed, read in one call. Outside Unix, mode, owner and link count
+ * fall back to {@code 0644}, root and 1.
+ *
+ * @param modified modification time in milliseconds since the epoch
+ * @param links    number of hard links; removing a file with more frees no space
+ * @param device   identifies the file system, for looking up its block size
+ */
+record FileState(long size, long modified, int mode, long uid, long gid, int links, Object device) {
+
+    private static final String UNIX_ATTRIBUTES = "unix:size,lastModifiedTime,mode,uid,gid,nlink,dev";
+
+    static FileState read(Path file) throws IOException {
+        try {
+            Map<String, Object> a = Files.readAttributes(file, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+            return new FileState((Long) a.get("size"), ((FileTime) a.get("lastModifiedTime")).toMillis(),
+                    (Integer) a.get("mode"), (Integer) a.get("uid") & 0xffffffffL,
+                    (Integer) a.get("gid") & 0xffffffffL, (Integer) a.get("nlink"), a.get("dev"));
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return new FileState(a.size(), a.lastModifiedTime().toMillis(), 0644, 0, 0, 1, "");
+        }
+    }
+}
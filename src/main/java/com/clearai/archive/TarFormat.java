@@ -0,0 +1,107 @@
+package com.clearai.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes POSIX ustar headers, with a pax extended header in front when a
+ * name does not fit the 100-byte ASCII field, or a size or owner does not fit
+ * its octal field, so any modern {@code tar} can list and extract the archive.
+ */
+final class TarFormat {
+
+    static final int BLOCK = 512;
+    /** Two empty blocks end an archive. */
+    static final byte[] END = new byte[2 * BLOCK];
+
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+    private static final long MAX_OCTAL_ID = 07777777;
+
+    private TarFormat() {
+    }
+
+    /** Returns the header block(s) for a regular file called {@code name}, relative and '/'-separated. */
+    static byte[] fileHeader(String name, long size, long modifiedMillis, int mode, long uid, long gid) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean longName = nameBytes.length > NAME_LENGTH || nameBytes.length != name.length();
+        boolean largeSize = size > MAX_OCTAL_SIZE;
+        boolean largeUid = uid > MAX_OCTAL_ID;
+        boolean largeGid = gid > MAX_OCTAL_ID;
+        long mtime = Math.max(0, modifiedMillis / 1000);
+        byte[] ustar = block(Arrays.copyOf(nameBytes, Math.min(nameBytes.length, NAME_LENGTH)),
+                largeSize ? 0 : size, mtime, mode, uid, gid, '0');
+        if (!longName && !largeSize && !largeUid && !largeGid) {
+            return ustar;
+        }
+        StringBuilder records = new StringBuilder();
+        if (longName) {
+            records.append(record("path", name));
+        }
+        if (largeSize) {
+            records.append(record("size", Long.toString(size)));
+        }
+        if (largeUid) {
+            records.append(record("uid", Long.toString(uid)));
+        }
+        if (largeGid) {
+            records.append(record("gid", Long.toString(gid)));
+        }
+        byte[] data = records.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] pax = block("PaxHeader".getBytes(StandardCharsets.US_ASCII), data.length, mtime, 0644, 0, 0, 'x');
+        byte[] out = new byte[BLOCK + padded(data.length) + BLOCK];
+        System.arraycopy(pax, 0, out, 0, BLOCK);
+        System.arraycopy(data, 0, out, BLOCK, data.length);
+        System.arraycopy(ustar, 0, out, out.length - BLOCK, BLOCK);
+        return out;
+    }
+
+    /** Rounds {@code size} up to whole blocks. */
+    static long padded(long size) {
+        return (size + BLOCK - 1) / BLOCK * BLOCK;
+    }
+
+    static int padded(int size) {
+        return (int) padded((long) size);
+    }
+
+    private static byte[] block(byte[] name, long size, long mtime, int mode, long uid, long gid, char type) {
+        byte[] h = new byte[BLOCK];
+        System.arraycopy(name, 0, h, 0, name.length);
+        octal(h, 100, 8, mode & 07777);
+        octal(h, 108, 8, uid <= MAX_OCTAL_ID ? uid : 0);
+        octal(h, 116, 8, gid <= MAX_OCTAL_ID ? gid : 0);
+        octal(h, 124, 12, size);
+        octal(h, 136, 12, mtime);
+        h[156] = (byte) type;
+        byte[] magic = {'u', 's', 't', 'a', 'r', 0, '0', '0'};
+        System.arraycopy(magic, 0, h, 257, magic.length);
+        // The checksum is computed with its own field taken as spaces.
+        Arrays.fill(h, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : h) {
+            sum += b & 0xff;
+        }
+        octal(h, 148, 7, sum);
+        return h;
+    }
+
+    /** Writes {@code value} as zero-padded octal digits followed by a NUL into a field of {@code length} bytes. */
+    private static void octal(byte[] h, int offset, int length, long value) {
+        h[offset + length - 1] = 0;
+        for (int i = offset + length - 2; i >= offset; i--) {
+            h[i] = (byte) ('0' + (value & 7));
+            value >>>= 3;
+        }
+    }
+
+    /** Formats a pax record, {@code "<length> <key>=<value>\n"}, where the length counts itself. */
+    private static String record(String key, String value) {
+        int body = 3 + key.length() + value.getBytes(StandardCharsets.UTF_8).length;
+        int length = body + Integer.toString(body).length();
+        if (Integer.toString(length).length() != Integer.toString(body).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+}
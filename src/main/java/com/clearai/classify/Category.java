@@ -0,0 +1,24 @@
+package com.clearai.classify;
+
+import java.util.Locale;
+
+/**
+ * Kinds of cleanup candidates a {@link Rule} can assign.
+ */
+public enum Category {
+    /** Data an application can regenerate on demand, such as browser or package-manager caches. */
+    CACHE,
+    /** Compiler output and installed dependencies that a build recreates. */
+    BUILD,
+    /** Log files. */
+    LOG,
+    /** Temporary and partial files. */
+    TEMP,
+    /** Downloads that have not been touched for a long time. */
+    DOWNLOAD;
+
+    /** Parses the lower-case name used in rule files. */
+    public static Category parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
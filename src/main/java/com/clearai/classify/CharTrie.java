@@ -0,0 +1,112 @@
+package com.clearai.classify;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Character trie from segment prefixes or suffixes to automaton states.
+ * {@link #collect} walks it once along the segment, forwards for prefixes or
+ * backwards for suffixes, reporting every pattern that matches. Lookup cost is
+ * bounded by the longest pattern rather than the number of patterns.
+ *
+ * <p>Keys can also carry {@link Glob}s filed under their literal head or tail;
+ * those are only tried on segments that start or end with it, which keeps
+ * the one-by-one glob matching down to the few candidates that share it.
+ *
+ * <p>Built once while compiling and read-only afterwards.
+ */
+final class CharTrie {
+
+    private static final CharTrie[] NO_CHILDREN = new CharTrie[0];
+    private static final Glob[] NO_GLOBS = new Glob[0];
+    private static final RuleSet.Node[] NO_NODES = new RuleSet.Node[0];
+
+    private char[] keys = new char[0];
+    private CharTrie[] children = NO_CHILDREN;
+    private RuleSet.Node target;
+    private Glob[] globs = NO_GLOBS;
+    private RuleSet.Node[] globTargets = NO_NODES;
+
+    boolean isEmpty() {
+        return keys.length == 0 && target == null && globs.length == 0;
+    }
+
+    /** Returns the state for {@code key}, creating it with {@code factory} if absent. */
+    RuleSet.Node computeIfAbsent(String key, boolean reverse, Supplier<RuleSet.Node> factory) {
+        CharTrie t = walk(key, reverse);
+        if (t.target == null) {
+            t.target = factory.get();
+        }
+        return t.target;
+    }
+
+    /**
+     * Files {@code glob} under {@code key}, which must be its literal head, or
+     * its literal tail if {@code reverse} is set.
+     */
+    void addGlob(String key, boolean reverse, Glob glob, RuleSet.Node globTarget) {
+        CharTrie t = walk(key, reverse);
+        t.globs = Arrays.copyOf(t.globs, t.globs.length + 1);
+        t.globTargets = Arrays.copyOf(t.globTargets, t.globTargets.length + 1);
+        t.globs[t.globs.length - 1] = glob;
+        t.globTargets[t.globTargets.length - 1] = globTarget;
+    }
+
+    /**
+     * Reports to {@code out} the states of all keys that are a prefix of
+     * {@code s[from, to)}, or a suffix of it if {@code reverse} is set, and of
+     * the globs filed under those keys that match the whole segment.
+     */
+    void collect(CharSequence s, int from, int to, boolean reverse, RuleSet.NodeCollector out) {
+        CharTrie t = this;
+        int length = to - from;
+        for (int i = 0; ; i++) {
+            if (t.target != null) {
+                out.add(t.target);
+            }
+            for (int g = 0; g < t.globs.length; g++) {
+                if (t.globs[g].matches(s, from, to)) {
+                    out.add(t.globTargets[g]);
+                }
+            }
+            if (i == length) {
+                return;
+            }
+            t = t.find(s.charAt(reverse ? to - 1 - i : from + i));
+            if (t == null) {
+                return;
+            }
+        }
+    }
+
+    private CharTrie walk(String key, boolean reverse) {
+        CharTrie t = this;
+        for (int i = 0; i < key.length(); i++) {
+            t = t.child(key.charAt(reverse ? key.length() - 1 - i : i));
+        }
+        return t;
+    }
+
+    private CharTrie find(char c) {
+        char[] k = keys;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] == c) {
+                return children[i];
+            }
+        }
+        return null;
+    }
+
+    private CharTrie child(char c) {
+        CharTrie existing = find(c);
+        if (existing != null) {
+            return existing;
+        }
+        CharTrie created = new CharTrie();
+        keys = Arrays.copyOf(keys, keys.length + 1);
+        children = Arrays.copyOf(children, children.length + 1);
+        keys[keys.length - 1] = c;
+        children[children.length - 1] = created;
+        return created;
+    }
+}
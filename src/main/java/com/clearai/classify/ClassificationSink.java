@@ -0,0 +1,21 @@
+package com.clearai.classify;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the paths a {@link ClassifyingListener} matched. Called
+ * concurrently from scanner threads.
+ */
+public interface ClassificationSink {
+
+    /** Called for each file that matched a rule. */
+    void fileClassified(int dirId, Path file, long size, long lastModified, Rule rule);
+
+    /**
+     * Called for each directory whose own path matched a rule. Rules with an
+     * age condition never match directories, since the scan does not report
+     * directory times.
+     */
+    default void directoryClassified(int dirId, Path dir, Rule rule) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.clearai.classify;
+
+import com.clearai.scan.ScanListener;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classifies every path as the scanner reports it and forwards matches to a
+ * {@link ClassificationSink}. Classification runs on the scanner's own worker
+ * threads, so it scales with the scan and never queues results.
+ */
+public final class ClassifyingListener implements ScanListener {
+
+    private final RuleSet rules;
+    private final ClassificationSink sink;
+    private final long now;
+    private final LongAdder[] counts = newAdders();
+    private final LongAdder[] bytes = newAdders();
+
+    /** Creates a listener that evaluates age conditions against the current time. */
+    public ClassifyingListener(RuleSet rules, ClassificationSink sink) {
+        this(rules, sink, System.currentTimeMillis());
+    }
+
+    public ClassifyingListener(RuleSet rules, ClassificationSink sink, long now) {
+        this.rules = Objects.requireNonNull(rules, "rules");
+        this.sink = Objects.requireNonNull(sink, "sink");
+        this.now = now;
+    }
+
+    @Override
+    public void directoryVisited(int dirId, int parentId, Path dir) {
+        Rule rule = rules.classify(dir, now, now);
+        if (rule != null) {
+            sink.directoryClassified(dirId, dir, rule);
+        }
+    }
+
+    @Override
+    public void fileVisited(int dirId, Path file, long size, long lastModified) {
+        Rule rule = rules.classify(file, lastModified, now);
+        if (rule != null) {
+            int c = rule.category().ordinal();
+            counts[c].increment();
+            bytes[c].add(size);
+            sink.fileClassified(dirId, file, size, lastModified, rule);
+        }
+    }
+
+    /** Number of files classified as {@code category} so far. */
+    public long count(Category category) {
+        return counts[category.ordinal()].sum();
+    }
+
+    /** Total size of the files classified as {@code category} so far. */
+    public long bytes(Category category) {
+        return bytes[category.ordinal()].sum();
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[Category.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
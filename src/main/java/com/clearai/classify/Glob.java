@@ -0,0 +1,78 @@
+package com.clearai.classify;
+
+/**
+ * Matches a single path segment against a glob made of literal characters,
+ * {@code *} and {@code ?}, without compiling it to a regular expression.
+ * Only used for segment patterns that {@link RuleSet} cannot index.
+ *
+ * <p>The parts before the first and after the last {@code *} have a fixed
+ * length, so they are compared directly against the start and end of the
+ * segment; this rejects almost every segment in a few character comparisons,
+ * and only the middle of the glob needs backtracking.
+ */
+final class Glob {
+
+    private final String glob;
+    private final int head;
+    private final int tail;
+    private final int minLength;
+
+    Glob(String glob) {
+        this.glob = glob;
+        int firstStar = glob.indexOf('*');
+        this.head = firstStar < 0 ? glob.length() : firstStar;
+        this.tail = firstStar < 0 ? 0 : glob.length() - glob.lastIndexOf('*') - 1;
+        this.minLength = (int) glob.chars().filter(c -> c != '*').count();
+    }
+
+    String pattern() {
+        return glob;
+    }
+
+    boolean matches(CharSequence s, int from, int to) {
+        if (head == glob.length()) {
+            return to - from == head && fixed(0, s, from, head);
+        }
+        if (to - from < minLength
+                || !fixed(glob.length() - tail, s, to - tail, tail)
+                || !fixed(0, s, from, head)) {
+            return false;
+        }
+        return wild(head, glob.length() - tail, s, from + head, to - tail);
+    }
+
+    /** Compares {@code length} characters of the glob, which contain no {@code *}, with the segment. */
+    private boolean fixed(int g, CharSequence s, int i, int length) {
+        for (int k = 0; k < length; k++) {
+            char c = glob.charAt(g + k);
+            if (c != '?' && c != s.charAt(i + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Matches {@code glob[g, gEnd)}, which starts and ends with {@code *}, against {@code s[i, end)}. */
+    private boolean wild(int g, int gEnd, CharSequence s, int i, int end) {
+        int starG = -1;
+        int starI = -1;
+        while (i < end) {
+            if (g < gEnd && glob.charAt(g) == '*') {
+                starG = g++;
+                starI = i;
+            } else if (g < gEnd && (glob.charAt(g) == '?' || glob.charAt(g) == s.charAt(i))) {
+                g++;
+                i++;
+            } else if (starG >= 0) {
+                g = starG + 1;
+                i = ++starI;
+            } else {
+                return false;
+            }
+        }
+        while (g < gEnd && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == gEnd;
+    }
+}
@@ -0,0 +1,24 @@
+package com.clearai.classify;
+
+/**
+ * One classification rule.
+ *
+ * <p>Patterns are matched against whole paths, segment by segment.
+ * {@code **} matches any number of segments, including none; within a segment
+ * {@code *} matches any run of characters and {@code ?} a single one. A leading
+ * {@code ~} stands for the user's home directory, and a pattern that is not
+ * anchored with {@code /}, {@code ~} or {@code **} matches at any depth, as if
+ * it started with {@code **}{@code /}.
+ *
+ * @param priority     position in the rule list; when several rules match, the lowest wins
+ * @param category     what a matching path is
+ * @param pattern      path pattern as written
+ * @param minAgeMillis minimum time since last modification for the rule to apply; 0 for none
+ */
+public record Rule(int priority, Category category, String pattern, long minAgeMillis) {
+
+    /** Whether a file last modified at {@code lastModified} is old enough at {@code now}. */
+    boolean oldEnough(long lastModified, long now) {
+        return minAgeMillis == 0 || now - lastModified >= minAgeMillis;
+    }
+}
@@ -0,0 +1,92 @@
+package com.clearai.classify;
+
+/**
+ * Open-addressing map from literal path segments to automaton states that is
+ * queried with a range of a larger string, so looking up a segment of a path does not
+ * allocate a substring. Keys are hashed like {@link String#hashCode()}.
+ *
+ * <p>Built once while compiling and read-only afterwards.
+ */
+final class SegmentTable {
+
+    private String[] keys = new String[8];
+    private RuleSet.Node[] values = new RuleSet.Node[8];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    RuleSet.Node get(String key) {
+        return get(key, 0, key.length());
+    }
+
+    RuleSet.Node get(CharSequence s, int from, int to) {
+        int mask = keys.length - 1;
+        for (int i = hash(s, from, to) & mask; ; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) {
+                return null;
+            }
+            if (equals(key, s, from, to)) {
+                return values[i];
+            }
+        }
+    }
+
+    void put(String key, RuleSet.Node value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = hash(key, 0, key.length()) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        RuleSet.Node[] oldValues = values;
+        keys = new String[capacity];
+        values = new RuleSet.Node[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = hash(oldKeys[j], 0, oldKeys[j].length()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(CharSequence s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(String key, CharSequence s, int from, int to) {
+        if (key.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != s.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.clearai.cli;
+
+import com.clearai.archive.ArchiveOptions;
+import com.clearai.archive.ArchiveReport;
+import com.clearai.archive.Archiver;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Set;
+
+/** {@code archive <archive.tar.gz> <path>...}: compresses files into an archive and removes them. */
+final class ArchiveCommand implements Command {
+
+    @Override
+    public Set<String> options() {
+        return Set.of("--keep");
+    }
+
+    @Override
+    public int run(Arguments args, PrintStream out) throws IOException, InterruptedException {
+        if (args.positional().isEmpty()) {
+            throw new IllegalArgumentException("archive needs an archive file and at least one path");
+        }
+        Path archive = Path.of(args.positional().get(0));
+        ArchiveOptions options = ArchiveOptions.builder().removeOriginals(!args.flag("--keep")).build();
+        ArchiveReport report = new Archiver(options).archive(archive, args.paths(1));
+        out.println(report);
+        for (ArchiveReport.Failure failure : report.failures()) {
+            out.printf("  %s: %s%n", failure.path(), failure.reason());
+        }
+        return report.failures().isEmpty() ? 0 : 1;
+    }
+}
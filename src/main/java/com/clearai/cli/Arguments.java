@@ -0,0 +1,92 @@
+package com.clearai.cli;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The command line split into a command, positional arguments and
+ * {@code --name value} or {@code --flag} options. Hand-rolled rather than a
+ * library, since every class loaded before the first result is paid for on
+ * each run.
+ */
+final class Arguments {
+
+    final String command;
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    /**
+     * @param valued names of the options that take a value
+     * @throws IllegalArgumentException if an option that takes a value has none
+     */
+    Arguments(String[] args, Set<String> valued) {
+        this.command = args.length == 0 ? "help" : args[0];
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                positional.add(arg);
+            } else if (valued.contains(arg)) {
+                if (++i == args.length) {
+                    throw new IllegalArgumentException(arg + " needs a value");
+                }
+                options.put(arg, args[i]);
+            } else {
+                options.put(arg, "");
+            }
+        }
+    }
+
+    List<String> positional() {
+        return positional;
+    }
+
+    /** Returns the single positional argument as a path. */
+    Path path() {
+        if (positional.size() != 1) {
+            throw new IllegalArgumentException(command + " takes one path");
+        }
+        return Path.of(positional.get(0));
+    }
+
+    List<Path> paths(int from) {
+        if (positional.size() <= from) {
+            throw new IllegalArgumentException(command + " needs at least one path");
+        }
+        List<Path> paths = new ArrayList<>();
+        for (String p : positional.subList(from, positional.size())) {
+            paths.add(Path.of(p));
+        }
+        return paths;
+    }
+
+    boolean flag(String name) {
+        return options.containsKey(name);
+    }
+
+    long number(String name, long defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + value);
+        }
+    }
+
+    /** Returns the options not in {@code known}, so typos are reported instead of ignored. */
+    List<String> unknown(Set<String> known) {
+        List<String> unknown = new ArrayList<>();
+        for (String name : options.keySet()) {
+            if (!known.contains(name)) {
+                unknown.add(name);
+            }
+        }
+        return unknown;
+    }
+}
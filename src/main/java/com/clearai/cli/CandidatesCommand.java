@@ -0,0 +1,100 @@
+package com.clearai.cli;
+
+import com.clearai.classify.Category;
+import com.clearai.classify.ClassifyingListener;
+import com.clearai.classify.RuleSet;
+import com.clearai.recommend.FileFeatures;
+import com.clearai.recommend.HeuristicModel;
+import com.clearai.recommend.Recommendation;
+import com.clearai.recommend.RecommendationOptions;
+import com.clearai.recommend.RecommendationService;
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanOptions;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * {@code candidates <dir>}: files the cleanup rules match, by category, and
+ * with {@code --recommend} what the model advises doing with them. The model
+ * is only started when asked for.
+ */
+final class CandidatesCommand implements Command {
+
+    @Override
+    public Set<String> options() {
+        return Set.of("--limit", "--recommend");
+    }
+
+    @Override
+    public int run(Arguments args, PrintStream out) throws IOException {
+        Path root = args.path();
+        int limit = (int) args.number("--limit", 20);
+        Queue<FileFeatures> matched = new ConcurrentLinkedQueue<>();
+        ClassifyingListener listener = new ClassifyingListener(RuleSet.defaults(),
+                (dirId, file, size, lastModified, rule) -> matched.add(new FileFeatures(file, size, lastModified, rule)));
+        try (FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            scanner.scan(root, listener);
+        }
+        out.println("matched by rule:");
+        for (Category category : Category.values()) {
+            if (listener.count(category) > 0) {
+                out.printf("  %-9s %,10d files %10s%n", category.name().toLowerCase(), listener.count(category),
+                        Command.bytes(listener.bytes(category)));
+            }
+        }
+        List<FileFeatures> largest = new ArrayList<>(matched);
+        largest.sort(Comparator.comparingLong(FileFeatures::size).reversed());
+        largest = largest.subList(0, Math.min(limit, largest.size()));
+        if (!args.flag("--recommend")) {
+            for (FileFeatures f : largest) {
+                out.printf("%10s  %-9s %s%n", Command.bytes(f.size()), f.rule().category().name().toLowerCase(),
+                        f.path());
+            }
+            return 0;
+        }
+        recommend(matched, largest, out);
+        return 0;
+    }
+
+    private static void recommend(Queue<FileFeatures> matched, List<FileFeatures> largest, PrintStream out) {
+        Map<Recommendation.Action, long[]> totals = new EnumMap<>(Recommendation.Action.class);
+        Map<FileFeatures, Recommendation> shown = new HashMap<>();
+        try (RecommendationService service = new RecommendationService(new HeuristicModel(),
+                RecommendationOptions.defaults())) {
+            List<CompletableFuture<Recommendation>> futures = new ArrayList<>(matched.size());
+            List<FileFeatures> files = new ArrayList<>(matched);
+            for (FileFeatures f : files) {
+                futures.add(service.recommend(f));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                Recommendation r = futures.get(i).join();
+                long[] t = totals.computeIfAbsent(r.action(), a -> new long[2]);
+                t[0]++;
+                t[1] += files.get(i).size();
+                shown.put(files.get(i), r);
+            }
+        }
+        out.println("recommended:");
+        for (Map.Entry<Recommendation.Action, long[]> e : totals.entrySet()) {
+            out.printf("  %-9s %,10d files %10s%n", e.getKey().name().toLowerCase(), e.getValue()[0],
+                    Command.bytes(e.getValue()[1]));
+        }
+        for (FileFeatures f : largest) {
+            Recommendation r = shown.get(f);
+            out.printf("%10s  %-9s %s  (%s)%n", Command.bytes(f.size()), r.action().name().toLowerCase(), f.path(),
+                    r.reason());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.clearai.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Set;
+
+/**
+ * One subcommand of {@link Main}. Each lives in its own class so that a run
+ * only loads the subsystems its command actually uses.
+ */
+interface Command {
+
+    /** Options the command accepts, with their leading {@code --}. */
+    Set<String> options();
+
+    /** Runs the command and returns the process exit status. */
+    int run(Arguments args, PrintStream out) throws IOException, InterruptedException;
+
+    /** Formats a byte count with a binary unit, e.g. {@code 12.3 MiB}. */
+    static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %ciB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+}
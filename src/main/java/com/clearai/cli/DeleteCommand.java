@@ -0,0 +1,48 @@
+package com.clearai.cli;
+
+import com.clearai.delete.DeletionExecutor;
+import com.clearai.delete.DeletionOptions;
+import com.clearai.delete.DeletionReport;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Set;
+
+/** {@code delete <path>...} and {@code undo <run>}: moves paths to the trash, or back. */
+final class DeleteCommand implements Command {
+
+    private final boolean undo;
+
+    DeleteCommand(boolean undo) {
+        this.undo = undo;
+    }
+
+    @Override
+    public Set<String> options() {
+        return undo ? Set.of() : Set.of("--permanent");
+    }
+
+    @Override
+    public int run(Arguments args, PrintStream out) throws IOException, InterruptedException {
+        DeletionOptions.Mode mode = args.flag("--permanent") ? DeletionOptions.Mode.PERMANENT
+                : DeletionOptions.Mode.TRASH;
+        DeletionExecutor executor = new DeletionExecutor(DeletionOptions.builder().mode(mode).build());
+        DeletionReport report;
+        if (undo) {
+            if (args.positional().size() != 1) {
+                throw new IllegalArgumentException("undo takes one run id");
+            }
+            report = executor.undo(args.positional().get(0));
+        } else {
+            report = executor.delete(args.paths(0));
+        }
+        out.println(report);
+        for (DeletionReport.Failure failure : report.failures()) {
+            out.printf("  %s: %s%n", failure.path(), failure.reason());
+        }
+        if (!undo && mode == DeletionOptions.Mode.TRASH && report.succeeded() > 0) {
+            out.printf("undo with: clear-ai undo %s%n", report.runId());
+        }
+        return report.failures().isEmpty() ? 0 : 1;
+    }
+}
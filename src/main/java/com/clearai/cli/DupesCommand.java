@@ -0,0 +1,53 @@
+package com.clearai.cli;
+
+import com.clearai.dedup.DedupOptions;
+import com.clearai.dedup.DuplicateFinder;
+import com.clearai.dedup.DuplicateGroup;
+import com.clearai.dedup.DuplicateReport;
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanOptions;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+
+/** {@code dupes <dir>}: groups of files with identical content, largest waste first. */
+final class DupesCommand implements Command {
+
+    @Override
+    public Set<String> options() {
+        return Set.of("--limit", "--min-size");
+    }
+
+    @Override
+    public int run(Arguments args, PrintStream out) throws IOException, InterruptedException {
+        Path root = args.path();
+        long limit = args.number("--limit", 20);
+        DuplicateFinder finder;
+        try {
+            finder = new DuplicateFinder(DedupOptions.builder().minSize(args.number("--min-size", 1)).build());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            scanner.scan(root, finder);
+        }
+        DuplicateReport report = finder.find();
+        out.printf("%,d groups of duplicates, %s reclaimable%n", report.groups().size(),
+                Command.bytes(report.reclaimableBytes()));
+        List<DuplicateGroup> groups = report.groups();
+        for (DuplicateGroup group : groups.subList(0, (int) Math.min(limit, groups.size()))) {
+            out.printf("%10s x %d%n", Command.bytes(group.size()), group.files().size());
+            for (Path file : group.files()) {
+                out.printf("    %s%n", file);
+                for (Path link : group.otherNames(file)) {
+                    out.printf("      = %s%n", link);
+                }
+            }
+        }
+        return 0;
+    }
+}
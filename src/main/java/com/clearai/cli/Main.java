@@ -0,0 +1,88 @@
+package com.clearai.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Command-line entry point, built for one-shot runs where JVM startup is
+ * most of the wall-clock time.
+ *
+ * <p>Nothing is initialized up front: each subcommand is its own class and
+ * only touches the subsystems it needs, so {@code usage} never compiles the
+ * cleanup rules and only {@code candidates --recommend} starts the
+ * recommendation model. The distribution also ships a class-data-sharing
+ * archive recorded from a training run (see the {@code cdsArchive} Gradle
+ * task), which the launch script maps at startup; {@code startupCheck}
+ * measures time to first result against the budget.
+ */
+public final class Main {
+
+    private static final Set<String> VALUED = Set.of("--top", "--limit", "--min-size");
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: clear-ai <command> [options]",
+            "",
+            "  usage <dir> [--top N]                   size of a tree and its largest directories",
+            "  candidates <dir> [--limit N] [--recommend]",
+            "                                          files the cleanup rules match, optionally with advice",
+            "  dupes <dir> [--limit N] [--min-size B]  files with identical content",
+            "  archive <file.tar.gz> <path>... [--keep]",
+            "                                          compress paths into an archive, then remove them",
+            "  delete <path>... [--permanent]          move paths to the trash, or delete them",
+            "  undo <run>                              restore what a delete run trashed");
+
+    private Main() {
+    }
+
+    public static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        System.out.flush();
+        System.exit(status);
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        try {
+            Arguments arguments = new Arguments(args, VALUED);
+            Command command = command(arguments.command);
+            if (command == null) {
+                out.println(USAGE);
+                return arguments.command.equals("help") || arguments.command.equals("--help") ? 0 : 2;
+            }
+            List<String> unknown = arguments.unknown(command.options());
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("unknown option " + unknown.get(0) + " for " + arguments.command);
+            }
+            return command.run(arguments, out);
+        } catch (IllegalArgumentException e) {
+            err.println("clear-ai: " + e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            err.println("clear-ai: " + e);
+            return 1;
+        } catch (UncheckedIOException e) {
+            err.println("clear-ai: " + e.getCause());
+            return 1;
+        } catch (IllegalStateException e) {
+            // A request the current state rules out, such as undoing a permanent delete.
+            err.println("clear-ai: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            return 130;
+        }
+    }
+
+    private static Command command(String name) {
+        return switch (name) {
+            case "usage" -> new UsageCommand();
+            case "candidates" -> new CandidatesCommand();
+            case "dupes" -> new DupesCommand();
+            case "archive" -> new ArchiveCommand();
+            case "delete" -> new DeleteCommand(false);
+            case "undo" -> new DeleteCommand(true);
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.clearai.cli;
+
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+import com.clearai.usage.DirectoryUsage;
+import com.clearai.usage.DiskUsage;
+import com.clearai.usage.UsageSnapshot;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Set;
+
+/** {@code usage <dir>}: total size and the largest directories below it. */
+final class UsageCommand implements Command {
+
+    @Override
+    public Set<String> options() {
+        return Set.of("--top");
+    }
+
+    @Override
+    public int run(Arguments args, PrintStream out) throws IOException {
+        Path root = args.path();
+        int top = (int) args.number("--top", 10);
+        ScanSummary summary;
+        UsageSnapshot snapshot;
+        try (DiskUsage usage = new DiskUsage(top); FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            summary = scanner.scan(root, usage);
+            snapshot = usage.snapshot();
+        }
+        out.printf("%s: %s in %,d files and %,d directories%n", root, Command.bytes(summary.bytes()),
+                summary.files(), summary.directories());
+        for (DirectoryUsage dir : snapshot.largest()) {
+            out.printf("%10s %,10d files  %s%n", Command.bytes(dir.bytes()), dir.files(), dir.dir());
+        }
+        if (summary.errors() > 0) {
+            out.printf("%,d entries could not be read%n", summary.errors());
+        }
+        return 0;
+    }
+}
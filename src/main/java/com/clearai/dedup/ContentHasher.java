@@ -0,0 +1,137 @@
+package com.clearai.dedup;
+
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Reads file content into a {@link MessageDigest} without copying it through
+ * the heap: small reads go through a per-thread direct buffer, whole files
+ * larger than {@link #MAP_THRESHOLD} are memory-mapped window by window.
+ */
+final class ContentHasher {
+
+    /** Hash stage metrics, shared with {@link DuplicateFinder} for its queue depth. */
+    static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.HASH);
+    /** Files at least this large are mapped rather than read. */
+    static final long MAP_THRESHOLD = 1 << 20;
+    private static final long MAP_WINDOW = 64L << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final String algorithm;
+
+    ContentHasher(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest.getInstance(algorithm);
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Hashes the first and last {@code block} bytes of the file, or the whole
+     * file if it is no larger than two blocks.
+     */
+    PartialHash partial(FileCandidate file, int block) throws IOException {
+        long start = METRICS.start();
+        try {
+            PartialHash hash = readPartial(file, block);
+            METRICS.record(1, hash.bytesRead(), start);
+            return hash;
+        } catch (IOException e) {
+            METRICS.error();
+            throw e;
+        }
+    }
+
+    /** Hashes the whole file. */
+    byte[] full(FileCandidate file) throws IOException {
+        long start = METRICS.start();
+        try {
+            byte[] hash = readFull(file);
+            METRICS.record(1, file.size(), start);
+            return hash;
+        } catch (IOException e) {
+            METRICS.error();
+            throw e;
+        }
+    }
+
+    private PartialHash readPartial(FileCandidate file, int block) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = open(file)) {
+            long size = file.size();
+            if (size <= 2L * block) {
+                readRange(channel, digest, 0, size);
+                return new PartialHash(digest.digest(), size, true);
+            }
+            readRange(channel, digest, 0, block);
+            readRange(channel, digest, size - block, block);
+            return new PartialHash(digest.digest(), 2L * block, false);
+        }
+    }
+
+    private byte[] readFull(FileCandidate file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = open(file)) {
+            long size = file.size();
+            if (size < MAP_THRESHOLD) {
+                readRange(channel, digest, 0, size);
+            } else {
+                for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos)));
+                }
+            }
+            if (channel.size() != size) {
+                throw new IOException("file changed while hashing: " + file.path());
+            }
+            return digest.digest();
+        }
+    }
+
+    private static FileChannel open(FileCandidate file) throws IOException {
+        FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ);
+        if (channel.size() != file.size()) {
+            channel.close();
+            throw new IOException("file changed since scan: " + file.path());
+        }
+        return channel;
+    }
+
+    private static void readRange(FileChannel channel, MessageDigest digest, long position, long length)
+            throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        long end = position + length;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            position += n;
+            digest.update(buffer.flip());
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param digest    hash of the bytes read
+     * @param bytesRead number of bytes read
+     * @param complete  whether the whole file was read, making {@code digest} its full content hash
+     */
+    record PartialHash(byte[] digest, long bytesRead, boolean complete) {
+    }
+}
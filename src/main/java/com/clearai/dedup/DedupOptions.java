@@ -0,0 +1,107 @@
+package com.clearai.dedup;
+
+import com.clearai.index.ScanIndex;
+import com.clearai.io.IoScheduler;
+
+/**
+ * Immutable settings for a {@link DuplicateFinder}. Create instances with {@link #builder()}.
+ */
+public final class DedupOptions {
+
+    private final long minSize;
+    private final int partialBlockSize;
+    private final IoScheduler ioScheduler;
+    private final String digestAlgorithm;
+    private final ScanIndex index;
+
+    private DedupOptions(Builder b) {
+        this.minSize = b.minSize;
+        this.partialBlockSize = b.partialBlockSize;
+        this.ioScheduler = b.ioScheduler;
+        this.digestAlgorithm = b.digestAlgorithm;
+        this.index = b.index;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static DedupOptions defaults() {
+        return builder().build();
+    }
+
+    /** Files smaller than this are ignored. */
+    public long minSize() {
+        return minSize;
+    }
+
+    /** Bytes read from each end of a file by the partial-hash stage. */
+    public int partialBlockSize() {
+        return partialBlockSize;
+    }
+
+    /**
+     * Scheduler that limits concurrent reads per device, or {@code null} for
+     * one with default settings owned by each {@link DuplicateFinder#find}.
+     */
+    public IoScheduler ioScheduler() {
+        return ioScheduler;
+    }
+
+    /** {@link java.security.MessageDigest} algorithm used for both hash stages. */
+    public String digestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    /** Index consulted for, and updated with, full content hashes; {@code null} for none. */
+    public ScanIndex index() {
+        return index;
+    }
+
+    public static final class Builder {
+
+        private long minSize = 1;
+        private int partialBlockSize = 4096;
+        private IoScheduler ioScheduler;
+        private String digestAlgorithm = "SHA-256";
+        private ScanIndex index;
+
+        private Builder() {
+        }
+
+        public Builder minSize(long minSize) {
+            if (minSize < 0) {
+                throw new IllegalArgumentException("minSize must not be negative: " + minSize);
+            }
+            this.minSize = minSize;
+            return this;
+        }
+
+        public Builder partialBlockSize(int partialBlockSize) {
+            if (partialBlockSize < 1) {
+                throw new IllegalArgumentException("partialBlockSize must be positive: " + partialBlockSize);
+            }
+            this.partialBlockSize = partialBlockSize;
+            return this;
+        }
+
+        public Builder ioScheduler(IoScheduler ioScheduler) {
+            this.ioScheduler = ioScheduler;
+            return this;
+        }
+
+        public Builder digestAlgorithm(String digestAlgorithm) {
+            this.digestAlgorithm = digestAlgorithm;
+            return this;
+        }
+
+        public Builder index(ScanIndex index) {
+            this.index = index;
+            return this;
+        }
+
+        public DedupOptions build() {
+            return new DedupOptions(this);
+        }
+    }
+}
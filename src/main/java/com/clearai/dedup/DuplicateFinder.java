@@ -0,0 +1,322 @@
+package com.clearai.dedup;
+
+import com.clearai.index.ScanIndex;
+import com.clearai.io.IoOptions;
+import com.clearai.io.IoScheduler;
+import com.clearai.metrics.StageMetrics;
+import com.clearai.scan.ScanListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds files with identical content in four stages, each of which only
+ * looks at what the previous one could not rule out:
+ *
+ * <ol>
+ *   <li><b>size</b> &ndash; files are grouped by size as the scan reports
+ *       them; a file with a unique size cannot have a duplicate;</li>
+ *   <li><b>links</b> &ndash; names that lead to the same file (same device
+ *       and inode: hard links, or symbolic links the scan followed) are
+ *       collapsed into one candidate, since removing one of them frees
+ *       nothing; the group reports them as that file's other names. The
+ *       stat taken here also supplies the modification time the later stages
+ *       trust, since a scan that replayed a directory from the index reports
+ *       the cached one;</li>
+ *   <li><b>partial</b> &ndash; the first and last blocks of each remaining
+ *       file are hashed, which separates most same-size files that merely
+ *       share a format header;</li>
+ *   <li><b>full</b> &ndash; only files that still collide are hashed
+ *       completely, reusing hashes from the {@link ScanIndex} when the file is
+ *       unchanged since they were recorded.</li>
+ * </ol>
+ *
+ * <p>Reads in the hash stages go through an {@link IoScheduler}, so the
+ * number of concurrent reads against a disk suits the kind of disk, and a
+ * spinning disk reads its candidates in path order.
+ *
+ * <p>The finder is fed as a {@link ScanListener}, or through {@link #add};
+ * {@link #find} then runs the hash stages over everything collected so far.
+ */
+public final class DuplicateFinder implements ScanListener {
+
+    private final DedupOptions options;
+    private final ContentHasher hasher;
+    private final Map<Long, List<FileCandidate>> bySize = new ConcurrentHashMap<>();
+    private final LongAdder seenFiles = new LongAdder();
+    private final LongAdder seenBytes = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+
+    public DuplicateFinder(DedupOptions options) throws NoSuchAlgorithmException {
+        this.options = Objects.requireNonNull(options, "options");
+        this.hasher = new ContentHasher(options.digestAlgorithm());
+    }
+
+    @Override
+    public void fileVisited(int dirId, Path file, long size, long lastModified) {
+        add(file, size, lastModified);
+    }
+
+    /** Adds a file to the size stage. Safe to call from several threads. */
+    public void add(Path file, long size, long lastModified) {
+        if (size < options.minSize()) {
+            return;
+        }
+        seenFiles.increment();
+        seenBytes.add(size);
+        FileCandidate candidate = new FileCandidate(file, size, lastModified);
+        bySize.compute(size, (k, group) -> {
+            List<FileCandidate> g = group != null ? group : new ArrayList<>(2);
+            g.add(candidate);
+            return g;
+        });
+    }
+
+    /** Runs the hash stages over all files added so far. */
+    public DuplicateReport find() throws InterruptedException {
+        List<StageStats> stages = new ArrayList<>(3);
+        LongAdder errors = new LongAdder();
+
+        List<List<FileCandidate>> sizeGroups = new ArrayList<>();
+        long survivors = 0;
+        long survivingBytes = 0;
+        for (List<FileCandidate> group : bySize.values()) {
+            if (group.size() > 1) {
+                sizeGroups.add(group);
+                survivors += group.size();
+                survivingBytes += group.get(0).size() * group.size();
+            }
+        }
+        stages.add(new StageStats("size", seenFiles.sum(), survivors, 0, seenBytes.sum() - survivingBytes));
+
+        IoScheduler owned = options.ioScheduler() == null ? new IoScheduler(IoOptions.defaults()) : null;
+        IoScheduler io = owned != null ? owned : options.ioScheduler();
+        StageMetrics.Registration queue = ContentHasher.METRICS.queue(queued::sum);
+        try {
+            List<List<FileCandidate>> fileGroups = linkStage(sizeGroups, io, stages, errors);
+            List<List<Hashed>> partialGroups = partialStage(fileGroups, io, stages, errors);
+            List<DuplicateGroup> groups = fullStage(partialGroups, io, stages, errors);
+            groups.sort(Comparator.comparingLong(DuplicateGroup::reclaimableBytes).reversed());
+            return new DuplicateReport(groups, stages, errors.sum());
+        } finally {
+            queue.close();
+            if (owned != null) {
+                owned.close();
+            }
+        }
+    }
+
+    private <T> Future<T> submit(IoScheduler io, Path file, Callable<T> task) {
+        queued.increment();
+        return io.submit(file, () -> {
+            queued.decrement();
+            return task.call();
+        });
+    }
+
+    private List<List<FileCandidate>> linkStage(List<List<FileCandidate>> sizeGroups, IoScheduler io,
+            List<StageStats> stages, LongAdder errors) throws InterruptedException {
+        List<List<Future<Identity>>> pending = new ArrayList<>(sizeGroups.size());
+        for (List<FileCandidate> group : sizeGroups) {
+            List<Future<Identity>> futures = new ArrayList<>(group.size());
+            for (FileCandidate file : group) {
+                futures.add(submit(io, file.path(), () -> identity(file.path())));
+            }
+            pending.add(futures);
+        }
+
+        long in = 0;
+        long out = 0;
+        long avoided = 0;
+        List<List<FileCandidate>> result = new ArrayList<>();
+        for (int g = 0; g < sizeGroups.size(); g++) {
+            List<FileCandidate> group = sizeGroups.get(g);
+            Map<Object, List<Path>> namesByFile = new HashMap<>();
+            Map<Path, Long> modified = new HashMap<>();
+            for (int i = 0; i < group.size(); i++) {
+                in++;
+                Identity identity = await(pending.get(g).get(i), errors);
+                if (identity != null) {
+                    Path path = group.get(i).path();
+                    namesByFile.computeIfAbsent(identity.key(), k -> new ArrayList<>(1)).add(path);
+                    modified.put(path, identity.lastModified());
+                }
+            }
+            long size = group.get(0).size();
+            List<FileCandidate> files = new ArrayList<>(namesByFile.size());
+            for (List<Path> names : namesByFile.values()) {
+                // The first name in path order stands for the file, so reports do not depend on scan order.
+                names.sort(null);
+                Path first = names.get(0);
+                files.add(new FileCandidate(first, size, modified.get(first),
+                        List.copyOf(names.subList(1, names.size()))));
+                avoided += size * (names.size() - 1);
+            }
+            if (files.size() > 1) {
+                out += files.size();
+                result.add(files);
+            } else if (files.size() == 1) {
+                avoided += size;
+            }
+        }
+        stages.add(new StageStats("links", in, out, 0, avoided));
+        return result;
+    }
+
+    /**
+     * Returns what identifies the file behind {@code path}, its file key or
+     * the path where there is none, with its modification time as of now.
+     */
+    private static Identity identity(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        Object key = attrs.fileKey();
+        return new Identity(key != null ? key : path, attrs.lastModifiedTime().toMillis());
+    }
+
+    private List<List<Hashed>> partialStage(List<List<FileCandidate>> sizeGroups, IoScheduler io,
+            List<StageStats> stages, LongAdder errors) throws InterruptedException {
+        int block = options.partialBlockSize();
+        List<List<Future<ContentHasher.PartialHash>>> pending = new ArrayList<>(sizeGroups.size());
+        for (List<FileCandidate> group : sizeGroups) {
+            List<Future<ContentHasher.PartialHash>> futures = new ArrayList<>(group.size());
+            for (FileCandidate file : group) {
+                futures.add(submit(io, file.path(), () -> hasher.partial(file, block)));
+            }
+            pending.add(futures);
+        }
+
+        long in = 0;
+        long out = 0;
+        long read = 0;
+        long avoided = 0;
+        List<List<Hashed>> result = new ArrayList<>();
+        for (int g = 0; g < sizeGroups.size(); g++) {
+            List<FileCandidate> group = sizeGroups.get(g);
+            Map<String, List<Hashed>> byDigest = new HashMap<>();
+            for (int i = 0; i < group.size(); i++) {
+                FileCandidate file = group.get(i);
+                in++;
+                ContentHasher.PartialHash partial = await(pending.get(g).get(i), errors);
+                if (partial == null) {
+                    continue;
+                }
+                read += partial.bytesRead();
+                byDigest.computeIfAbsent(HexFormat.of().formatHex(partial.digest()), k -> new ArrayList<>(2))
+                        .add(new Hashed(file, partial));
+            }
+            for (List<Hashed> candidates : byDigest.values()) {
+                if (candidates.size() > 1) {
+                    out += candidates.size();
+                    result.add(candidates);
+                } else {
+                    Hashed lone = candidates.get(0);
+                    avoided += lone.file.size() - lone.partial.bytesRead();
+                }
+            }
+        }
+        stages.add(new StageStats("partial", in, out, read, avoided));
+        return result;
+    }
+
+    private List<DuplicateGroup> fullStage(List<List<Hashed>> partialGroups, IoScheduler io,
+            List<StageStats> stages, LongAdder errors) throws InterruptedException {
+        ScanIndex index = options.index();
+        List<List<Future<byte[]>>> pending = new ArrayList<>(partialGroups.size());
+        LongAdder fromIndex = new LongAdder();
+        for (List<Hashed> group : partialGroups) {
+            List<Future<byte[]>> futures = new ArrayList<>(group.size());
+            for (Hashed h : group) {
+                futures.add(h.partial.complete() ? null : submit(io, h.file.path(), () -> {
+                    FileCandidate file = h.file;
+                    byte[] cached = index == null ? null
+                            : index.contentHash(file.path(), file.size(), file.lastModified());
+                    if (cached != null) {
+                        fromIndex.add(file.size());
+                        return cached;
+                    }
+                    byte[] digest = hasher.full(file);
+                    if (index != null) {
+                        index.recordContentHash(file.path(), file.size(), file.lastModified(), digest);
+                    }
+                    return digest;
+                }));
+            }
+            pending.add(futures);
+        }
+
+        long in = 0;
+        long out = 0;
+        long hashedBytes = 0;
+        List<DuplicateGroup> groups = new ArrayList<>();
+        for (int g = 0; g < partialGroups.size(); g++) {
+            List<Hashed> group = partialGroups.get(g);
+            Map<String, List<FileCandidate>> byDigest = new HashMap<>();
+            for (int i = 0; i < group.size(); i++) {
+                Hashed h = group.get(i);
+                Future<byte[]> future = pending.get(g).get(i);
+                in++;
+                byte[] digest = future == null ? h.partial.digest() : await(future, errors);
+                if (digest == null) {
+                    continue;
+                }
+                if (future != null) {
+                    hashedBytes += h.file.size();
+                }
+                byDigest.computeIfAbsent(HexFormat.of().formatHex(digest), k -> new ArrayList<>(2)).add(h.file);
+            }
+            long size = group.get(0).file.size();
+            for (Map.Entry<String, List<FileCandidate>> e : byDigest.entrySet()) {
+                List<FileCandidate> same = e.getValue();
+                if (same.size() > 1) {
+                    out += same.size();
+                    same.sort(Comparator.comparing(FileCandidate::path));
+                    List<Path> files = new ArrayList<>(same.size());
+                    Map<Path, List<Path>> otherNames = new HashMap<>();
+                    for (FileCandidate file : same) {
+                        files.add(file.path());
+                        if (!file.otherNames().isEmpty()) {
+                            otherNames.put(file.path(), file.otherNames());
+                        }
+                    }
+                    groups.add(new DuplicateGroup(size, e.getKey(), files, otherNames));
+                }
+            }
+        }
+        long avoided = fromIndex.sum();
+        stages.add(new StageStats("full", in, out, hashedBytes - avoided, avoided));
+        return groups;
+    }
+
+    private static <T> T await(Future<T> future, LongAdder errors) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof IOException)) {
+                throw new IllegalStateException(e.getCause());
+            }
+            errors.increment();
+            return null;
+        }
+    }
+
+    private record Identity(Object key, long lastModified) {
+    }
+
+    private record Hashed(FileCandidate file, ContentHasher.PartialHash partial) {
+    }
+}
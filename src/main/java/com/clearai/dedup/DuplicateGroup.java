@@ -0,0 +1,37 @@
+package com.clearai.dedup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Files with identical content.
+ *
+ * @param size       size of each file in bytes
+ * @param digest     hex-encoded content hash shared by the files
+ * @param files      the duplicates in path order, one name per file, at least two
+ * @param otherNames further names of some of {@code files}, hard links or
+ *                   followed symbolic links; removing one of those frees
+ *                   nothing while the file keeps another name
+ */
+public record DuplicateGroup(long size, String digest, List<Path> files, Map<Path, List<Path>> otherNames) {
+
+    public DuplicateGroup {
+        files = List.copyOf(files);
+        otherNames = Map.copyOf(otherNames);
+    }
+
+    public DuplicateGroup(long size, String digest, List<Path> files) {
+        this(size, digest, files, Map.of());
+    }
+
+    /** Returns the other names of {@code file}, empty if it has none. */
+    public List<Path> otherNames(Path file) {
+        return otherNames.getOrDefault(file, List.of());
+    }
+
+    /** Bytes freed by keeping a single copy. */
+    public long reclaimableBytes() {
+        return size * (files.size() - 1);
+    }
+}
@@ -0,0 +1,27 @@
+package com.clearai.dedup;
+
+import java.util.List;
+
+/**
+ * Result of a {@link DuplicateFinder} run.
+ *
+ * @param groups duplicate groups, largest reclaimable size first
+ * @param stages per-stage statistics in pipeline order
+ * @param errors files dropped because they could not be read or changed while being read
+ */
+public record DuplicateReport(List<DuplicateGroup> groups, List<StageStats> stages, long errors) {
+
+    public DuplicateReport {
+        groups = List.copyOf(groups);
+        stages = List.copyOf(stages);
+    }
+
+    /** Bytes freed by keeping one copy of every group. */
+    public long reclaimableBytes() {
+        long total = 0;
+        for (DuplicateGroup g : groups) {
+            total += g.reclaimableBytes();
+        }
+        return total;
+    }
+}
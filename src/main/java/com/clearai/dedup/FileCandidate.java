@@ -0,0 +1,20 @@
+package com.clearai.dedup;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A file taking part in duplicate detection, with the size reported by the
+ * scan. The modification time is the scan's until the links stage replaces
+ * it with a fresh stat; only the fresh one is used to look up the index.
+ *
+ * @param otherNames further names the scan reported for the same file, hard
+ *                   links or followed symbolic links; they share its content
+ *                   and its storage, so they are never duplicates of it
+ */
+record FileCandidate(Path path, long size, long lastModified, List<Path> otherNames) {
+
+    FileCandidate(Path path, long size, long lastModified) {
+        this(path, size, lastModified, List.of());
+    }
+}
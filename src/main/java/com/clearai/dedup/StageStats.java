@@ -0,0 +1,19 @@
+package com.clearai.dedup;
+
+/**
+ * What one stage of the duplicate pipeline did.
+ *
+ * @param stage        stage name
+ * @param filesIn      candidates entering the stage
+ * @param filesOut     candidates still possibly duplicated after the stage
+ * @param bytesRead    bytes read from disk by the stage
+ * @param bytesAvoided bytes that a naive full hash of every input would have read but this stage did not
+ */
+public record StageStats(String stage, long filesIn, long filesOut, long bytesRead, long bytesAvoided) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d -> %,d files, %,d bytes read, %,d bytes avoided",
+                stage, filesIn, filesOut, bytesRead, bytesAvoided);
+    }
+}
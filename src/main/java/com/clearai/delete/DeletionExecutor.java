@@ -0,0 +1,375 @@
+package com.clearai.delete;
+
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes cleanup candidates in parallel, journaled so that a run can be
+ * undone or, after a crash, finished.
+ *
+ * <p>Candidates, files or whole directories, are grouped by parent directory
+ * into batches of at most {@link DeletionOptions#maxBatchSize()} entries.
+ * Duplicates, and candidates inside another candidate directory, are dropped
+ * first: they go with the directory and would otherwise fail as missing.
+ * Every batch is written to the run's {@link TrashJournal} before anything is
+ * touched; batches then run on a fixed pool. In {@link DeletionOptions.Mode#TRASH}
+ * mode each entry is renamed into a per-batch directory of a trash on the
+ * same file system (see {@link TrashLocator}), so a directory such as
+ * {@code node_modules} goes away in one {@code rename(2)} no matter how many
+ * files it holds, and the run can be reversed with {@link #undo}. An entry
+ * that would need a cross-device copy fails instead.
+ *
+ * <p>Runs are identified by the id in their {@link DeletionReport}; their
+ * journals live under {@code <trashRoot>/journals}.
+ */
+public final class DeletionExecutor {
+
+    private static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.DELETE);
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final DeletionOptions options;
+
+    public DeletionExecutor(DeletionOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+    }
+
+    /** Starts a new run that removes {@code paths}. */
+    public DeletionReport delete(Collection<Path> paths) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        TrashLocator trash = new TrashLocator(options.trashRoot());
+        String runId = LocalDateTime.now().format(RUN_ID) + '-'
+                + Integer.toHexString(ThreadLocalRandom.current().nextInt(0x1000, 0x10000));
+        List<TrashJournal.Batch> batches = plan(paths, trash, runId);
+        try (TrashJournal journal = TrashJournal.create(journalFile(runId), runId, options.mode())) {
+            for (TrashJournal.Batch batch : batches) {
+                journal.batch(batch);
+            }
+            journal.force();
+            DeletionReport report = run(runId, "delete", batches, journal, false, start);
+            journal.mark(TrashJournal.COMMIT);
+            return report;
+        }
+    }
+
+    /** Finishes the batches of an interrupted run that did not complete. */
+    public DeletionReport resume(String runId) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Path file = journalFile(runId);
+        TrashJournal.State state = TrashJournal.read(file);
+        List<TrashJournal.Batch> pending = new ArrayList<>();
+        if (!state.committed && !state.undone) {
+            for (TrashJournal.Batch batch : state.batches) {
+                if (!state.done.contains(batch.id())) {
+                    pending.add(batch);
+                }
+            }
+        }
+        try (TrashJournal journal = TrashJournal.append(file)) {
+            DeletionReport report = run(runId, "resume", pending, journal, true, start);
+            if (!state.committed && !state.undone) {
+                journal.mark(TrashJournal.COMMIT);
+            }
+            return report;
+        }
+    }
+
+    /** Moves everything a trash run removed back to where it was. */
+    public DeletionReport undo(String runId) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Path file = journalFile(runId);
+        TrashJournal.State state = TrashJournal.read(file);
+        if (state.mode != DeletionOptions.Mode.TRASH) {
+            throw new IllegalStateException("run " + runId + " deleted permanently and cannot be undone");
+        }
+        if (state.purged) {
+            throw new IllegalStateException("trash of run " + runId + " has been purged");
+        }
+        LongAdder entries = new LongAdder();
+        LongAdder restored = new LongAdder();
+        Queue<DeletionReport.Failure> failures = new ConcurrentLinkedQueue<>();
+        try (TrashJournal journal = TrashJournal.append(file)) {
+            forEachBatch(state.batches, batch -> {
+                for (TrashJournal.Entry e : batch.entries()) {
+                    entries.increment();
+                    Path source = Path.of(e.source());
+                    Path target = Path.of(e.target());
+                    try {
+                        if (Files.exists(source, LinkOption.NOFOLLOW_LINKS)) {
+                            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+                                fail(journal, failures, e.source(), "original location is occupied");
+                            }
+                            continue;
+                        }
+                        Files.createDirectories(source.getParent());
+                        Files.move(target, source, StandardCopyOption.ATOMIC_MOVE);
+                        journal.restored(e.source());
+                        restored.increment();
+                    } catch (NoSuchFileException ex) {
+                        fail(journal, failures, e.source(), "not in trash");
+                    } catch (IOException ex) {
+                        fail(journal, failures, e.source(), ex.toString());
+                    }
+                }
+                removeIfEmpty(batchDirectory(batch));
+            });
+            for (TrashJournal.Batch batch : state.batches) {
+                Path dir = batchDirectory(batch);
+                removeIfEmpty(dir == null ? null : dir.getParent());
+            }
+            journal.mark(TrashJournal.UNDONE);
+        }
+        return new DeletionReport(runId, "undo", entries.sum(), restored.sum(), List.copyOf(failures),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /** Permanently deletes the trashed entries of a completed run. */
+    public void purge(String runId) throws IOException, InterruptedException {
+        Path file = journalFile(runId);
+        TrashJournal.State state = TrashJournal.read(file);
+        if (state.mode != DeletionOptions.Mode.TRASH || state.undone || state.purged) {
+            return;
+        }
+        try (TrashJournal journal = TrashJournal.append(file)) {
+            forEachBatch(state.batches, batch -> {
+                Path dir = batchDirectory(batch);
+                if (dir != null && Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) {
+                    deleteRecursively(dir);
+                }
+            });
+            for (TrashJournal.Batch batch : state.batches) {
+                Path dir = batchDirectory(batch);
+                removeIfEmpty(dir == null ? null : dir.getParent());
+            }
+            journal.mark(TrashJournal.PURGED);
+        }
+    }
+
+    /** Returns the ids of all journaled runs, oldest first. */
+    public List<String> runs() throws IOException {
+        Path dir = options.trashRoot().resolve("journals");
+        List<String> ids = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.journal")) {
+                for (Path p : stream) {
+                    String name = p.getFileName().toString();
+                    ids.add(name.substring(0, name.length() - ".journal".length()));
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private List<TrashJournal.Batch> plan(Collection<Path> paths, TrashLocator trash, String runId) {
+        Set<Path> requested = new LinkedHashSet<>();
+        for (Path p : paths) {
+            Path abs = p.toAbsolutePath().normalize();
+            if (abs.getParent() == null) {
+                throw new IllegalArgumentException("refusing to delete a root directory: " + p);
+            }
+            requested.add(abs);
+        }
+        Map<Path, List<Path>> byDirectory = new LinkedHashMap<>();
+        for (Path abs : requested) {
+            if (!insideAnother(abs, requested)) {
+                byDirectory.computeIfAbsent(abs.getParent(), k -> new ArrayList<>()).add(abs);
+            }
+        }
+        List<TrashJournal.Batch> batches = new ArrayList<>();
+        for (Map.Entry<Path, List<Path>> e : byDirectory.entrySet()) {
+            List<Path> entries = e.getValue();
+            for (int from = 0; from < entries.size(); from += options.maxBatchSize()) {
+                int id = batches.size();
+                Path batchDir = options.mode() == DeletionOptions.Mode.TRASH
+                        ? trash.trashFor(e.getKey()).resolve(runId).resolve(Integer.toString(id)) : null;
+                List<TrashJournal.Entry> batch = new ArrayList<>();
+                for (Path p : entries.subList(from, Math.min(entries.size(), from + options.maxBatchSize()))) {
+                    batch.add(new TrashJournal.Entry(p.toString(),
+                            batchDir == null ? null : batchDir.resolve(p.getFileName()).toString()));
+                }
+                batches.add(new TrashJournal.Batch(id, batch));
+            }
+        }
+        return batches;
+    }
+
+    private static boolean insideAnother(Path path, Set<Path> requested) {
+        for (Path p = path.getParent(); p != null; p = p.getParent()) {
+            if (requested.contains(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DeletionReport run(String runId, String operation, List<TrashJournal.Batch> batches,
+            TrashJournal journal, boolean resuming, long start) throws IOException, InterruptedException {
+        LongAdder entries = new LongAdder();
+        LongAdder succeeded = new LongAdder();
+        Queue<DeletionReport.Failure> failures = new ConcurrentLinkedQueue<>();
+        forEachBatch(batches, batch -> {
+            long batchStart = METRICS.start();
+            Path batchDir = batchDirectory(batch);
+            if (batchDir != null) {
+                Files.createDirectories(batchDir);
+            }
+            for (TrashJournal.Entry e : batch.entries()) {
+                entries.increment();
+                Path source = Path.of(e.source());
+                try {
+                    if (e.target() != null) {
+                        Files.move(source, Path.of(e.target()), StandardCopyOption.ATOMIC_MOVE);
+                    } else {
+                        deleteRecursively(source);
+                    }
+                    succeeded.increment();
+                } catch (NoSuchFileException ex) {
+                    boolean alreadyDone = resuming && (e.target() == null
+                            || Files.exists(Path.of(e.target()), LinkOption.NOFOLLOW_LINKS));
+                    if (alreadyDone) {
+                        succeeded.increment();
+                    } else {
+                        fail(journal, failures, e.source(), "missing");
+                    }
+                } catch (AtomicMoveNotSupportedException ex) {
+                    fail(journal, failures, e.source(), "trash is on another file system");
+                } catch (FileAlreadyExistsException ex) {
+                    fail(journal, failures, e.source(), "trash entry already exists");
+                } catch (IOException ex) {
+                    fail(journal, failures, e.source(), ex.toString());
+                }
+            }
+            journal.done(batch.id());
+            METRICS.record(batch.entries().size(), 0, batchStart);
+        });
+        return new DeletionReport(runId, operation, entries.sum(), succeeded.sum(), List.copyOf(failures),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void forEachBatch(List<TrashJournal.Batch> batches, BatchAction action)
+            throws IOException, InterruptedException {
+        if (batches.isEmpty()) {
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        AtomicInteger waiting = new AtomicInteger(batches.size());
+        StageMetrics.Registration queue = METRICS.queue(waiting::get);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(options.parallelism(), batches.size()), r -> {
+            Thread t = new Thread(r, "clear-ai-delete-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(batches.size());
+            for (TrashJournal.Batch batch : batches) {
+                futures.add(pool.submit(() -> {
+                    waiting.decrementAndGet();
+                    action.run(batch);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+            queue.close();
+        }
+    }
+
+    private static void fail(TrashJournal journal, Queue<DeletionReport.Failure> failures, String path,
+            String reason) throws IOException {
+        failures.add(new DeletionReport.Failure(path, reason));
+        METRICS.error();
+        journal.failed(path, reason);
+    }
+
+    private static Path batchDirectory(TrashJournal.Batch batch) {
+        if (batch.entries().isEmpty() || batch.entries().get(0).target() == null) {
+            return null;
+        }
+        return Path.of(batch.entries().get(0).target()).getParent();
+    }
+
+    private static void removeIfEmpty(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(dir);
+        } catch (IOException ignored) {
+            // Not empty, or already gone; either way nothing to tidy.
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isDirectory()) {
+            Files.delete(path);
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes a) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Path journalFile(String runId) {
+        return options.trashRoot().resolve("journals").resolve(runId + ".journal");
+    }
+
+    @FunctionalInterface
+    private interface BatchAction {
+        void run(TrashJournal.Batch batch) throws IOException;
+    }
+}
@@ -0,0 +1,102 @@
+package com.clearai.delete;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Immutable settings for a {@link DeletionExecutor}. Create instances with {@link #builder()}.
+ */
+public final class DeletionOptions {
+
+    /** How a run disposes of files. */
+    public enum Mode {
+        /** Rename into a trash directory on the same file system; can be undone. */
+        TRASH,
+        /** Delete immediately; cannot be undone. */
+        PERMANENT
+    }
+
+    private final Mode mode;
+    private final Path trashRoot;
+    private final int parallelism;
+    private final int maxBatchSize;
+
+    private DeletionOptions(Builder b) {
+        this.mode = b.mode;
+        this.trashRoot = b.trashRoot;
+        this.parallelism = b.parallelism;
+        this.maxBatchSize = b.maxBatchSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static DeletionOptions defaults() {
+        return builder().build();
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Directory holding journals and, for files on the same device, the trash.
+     * Files on other devices go to a {@code .clear-ai-trash} directory at the
+     * root of their own file system.
+     */
+    public Path trashRoot() {
+        return trashRoot;
+    }
+
+    /** Number of batches processed at the same time. */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /** Largest number of entries of one directory handled as a single batch. */
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public static final class Builder {
+
+        private Mode mode = Mode.TRASH;
+        private Path trashRoot = Path.of(System.getProperty("user.home"), ".local", "share", "clear-ai", "trash");
+        private int parallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+        private int maxBatchSize = 1024;
+
+        private Builder() {
+        }
+
+        public Builder mode(Mode mode) {
+            this.mode = Objects.requireNonNull(mode, "mode");
+            return this;
+        }
+
+        public Builder trashRoot(Path trashRoot) {
+            this.trashRoot = Objects.requireNonNull(trashRoot, "trashRoot");
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public DeletionOptions build() {
+            return new DeletionOptions(this);
+        }
+    }
+}
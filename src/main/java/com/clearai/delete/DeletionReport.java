@@ -0,0 +1,38 @@
+package com.clearai.delete;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of one pass of a {@link DeletionExecutor} over a run.
+ *
+ * @param runId     run the pass belongs to
+ * @param operation what the pass did: {@code delete}, {@code resume} or {@code undo}
+ * @param entries   entries the pass attempted
+ * @param succeeded entries moved, deleted or restored
+ * @param failures  entries that could not be handled, with the reason
+ * @param elapsed   wall-clock duration of the pass
+ */
+public record DeletionReport(String runId, String operation, long entries, long succeeded,
+                             List<Failure> failures, Duration elapsed) {
+
+    public DeletionReport {
+        failures = List.copyOf(failures);
+    }
+
+    /** Entries handled per second. */
+    public double entriesPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return succeeded * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: %,d of %,d entries, %,d failed in %d ms (%,.0f entries/s)",
+                operation, runId, succeeded, entries, failures.size(), elapsed.toMillis(), entriesPerSecond());
+    }
+
+    /** An entry that could not be handled. */
+    public record Failure(String path, String reason) {
+    }
+}
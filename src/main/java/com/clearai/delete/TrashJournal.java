@@ -0,0 +1,234 @@
+package com.clearai.delete;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only, line-oriented log of one deletion run.
+ *
+ * <p>The whole plan is written, and forced to disk, before the first file is
+ * touched: a {@code RUN} header, then per batch a {@code BATCH} line followed
+ * by one {@code MOVE src dst} or {@code DELETE src} line per entry. As batches
+ * finish, {@code DONE} and {@code FAIL} lines are appended, and {@code COMMIT}
+ * closes the run. Undo and purge append {@code RESTORED}, {@code UNDONE} and
+ * {@code PURGED}. Because every step can be checked against the file system
+ * (is the source still there, is the trash copy there), completion markers
+ * need not be forced one by one: after a crash, replaying the plan is
+ * idempotent.
+ *
+ * <p>Fields are tab-separated; {@code %}, tab, CR and LF inside paths are
+ * percent-encoded. A last line without a newline is a torn write and is ignored.
+ */
+final class TrashJournal implements Closeable {
+
+    static final String RUN = "RUN";
+    static final String BATCH = "BATCH";
+    static final String MOVE = "MOVE";
+    static final String DELETE = "DELETE";
+    static final String DONE = "DONE";
+    static final String FAIL = "FAIL";
+    static final String COMMIT = "COMMIT";
+    static final String RESTORED = "RESTORED";
+    static final String UNDONE = "UNDONE";
+    static final String PURGED = "PURGED";
+
+    private final FileChannel channel;
+    private final Writer writer;
+
+    private TrashJournal(FileChannel channel) {
+        this.channel = channel;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /** Creates a new journal; fails if {@code file} already exists. */
+    static TrashJournal create(Path file, String runId, DeletionOptions.Mode mode) throws IOException {
+        Files.createDirectories(file.getParent());
+        TrashJournal journal = new TrashJournal(
+                FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        journal.line(RUN, runId, mode.name());
+        return journal;
+    }
+
+    /** Opens an existing journal for appending. */
+    static TrashJournal append(Path file) throws IOException {
+        return new TrashJournal(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    synchronized void batch(Batch batch) throws IOException {
+        line(BATCH, Integer.toString(batch.id()));
+        for (Entry e : batch.entries()) {
+            if (e.target() != null) {
+                line(MOVE, e.source(), e.target());
+            } else {
+                line(DELETE, e.source());
+            }
+        }
+    }
+
+    synchronized void done(int batchId) throws IOException {
+        line(DONE, Integer.toString(batchId));
+    }
+
+    synchronized void failed(String path, String reason) throws IOException {
+        line(FAIL, path, reason);
+    }
+
+    synchronized void restored(String path) throws IOException {
+        line(RESTORED, path);
+    }
+
+    synchronized void mark(String type) throws IOException {
+        line(type);
+    }
+
+    /** Flushes buffered lines and forces them to disk. */
+    synchronized void force() throws IOException {
+        writer.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            force();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /** Reads the state of a run back from its journal. */
+    static State read(Path file) throws IOException {
+        boolean torn;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            torn = ch.size() > 0 && ch.read(last, ch.size() - 1) == 1 && last.get(0) != '\n';
+        }
+        State state = new State();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            String line = in.readLine();
+            Batch current = null;
+            while (line != null) {
+                String next = in.readLine();
+                if (next == null && torn) {
+                    break;
+                }
+                String[] f = line.split("\t", -1);
+                switch (f[0]) {
+                    case RUN -> {
+                        state.runId = unescape(f[1]);
+                        state.mode = DeletionOptions.Mode.valueOf(f[2]);
+                    }
+                    case BATCH -> {
+                        current = new Batch(Integer.parseInt(f[1]), new ArrayList<>());
+                        state.batches.add(current);
+                    }
+                    case MOVE -> current.entries().add(new Entry(unescape(f[1]), unescape(f[2])));
+                    case DELETE -> current.entries().add(new Entry(unescape(f[1]), null));
+                    case DONE -> state.done.add(Integer.parseInt(f[1]));
+                    case COMMIT -> state.committed = true;
+                    case UNDONE -> state.undone = true;
+                    case PURGED -> state.purged = true;
+                    case FAIL, RESTORED -> {
+                        // Informational; the file system is the source of truth on replay.
+                    }
+                    default -> throw new IOException("unknown journal record " + f[0] + " in " + file);
+                }
+                line = next;
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt journal: " + file, e);
+        }
+        if (state.runId == null) {
+            throw new IOException("journal has no RUN header: " + file);
+        }
+        return state;
+    }
+
+    private void line(String type, String... fields) throws IOException {
+        writer.write(type);
+        for (String field : fields) {
+            writer.write('\t');
+            writer.write(escape(field));
+        }
+        writer.write('\n');
+    }
+
+    static String escape(String s) {
+        StringBuilder out = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String code = switch (c) {
+                case '%' -> "%25";
+                case '\t' -> "%09";
+                case '\n' -> "%0A";
+                case '\r' -> "%0D";
+                default -> null;
+            };
+            if (code != null && out == null) {
+                out = new StringBuilder(s.length() + 8).append(s, 0, i);
+            }
+            if (out != null) {
+                if (code != null) {
+                    out.append(code);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        return out == null ? s : out.toString();
+    }
+
+    static String unescape(String s) {
+        if (s.indexOf('%') < 0) {
+            return s;
+        }
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '%' && i + 2 < s.length()) {
+                out.append((char) Integer.parseInt(s.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /** One entry of a batch: a path and, in trash mode, where it goes. */
+    record Entry(String source, String target) {
+    }
+
+    /** Entries of one directory, handled together. */
+    record Batch(int id, List<Entry> entries) {
+    }
+
+    /** A run as reconstructed from its journal. */
+    static final class State {
+        String runId;
+        DeletionOptions.Mode mode;
+        final List<Batch> batches = new ArrayList<>();
+        final Set<Integer> done = new HashSet<>();
+        boolean committed;
+        boolean undone;
+        boolean purged;
+    }
+}
@@ -0,0 +1,68 @@
+package com.clearai.delete;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Picks, for each directory, a trash directory on the same file system, so
+ * trashing is always a rename and never a copy. The configured trash root is
+ * used when it shares the device; otherwise a {@code .clear-ai-trash}
+ * directory at the top of the directory's own file system, in the manner of
+ * the freedesktop.org {@code $topdir/.Trash}.
+ */
+final class TrashLocator {
+
+    static final String TOP_DIR_TRASH = ".clear-ai-trash";
+
+    private final Path trashRoot;
+    private final Object trashDevice;
+    private final Map<Path, Object> devices = new ConcurrentHashMap<>();
+    private final Map<Path, Path> trashByDirectory = new ConcurrentHashMap<>();
+
+    TrashLocator(Path trashRoot) throws IOException {
+        this.trashRoot = trashRoot.toAbsolutePath().normalize();
+        Files.createDirectories(this.trashRoot);
+        this.trashDevice = device(this.trashRoot);
+    }
+
+    Path trashRoot() {
+        return trashRoot;
+    }
+
+    /** Returns the trash directory for entries of {@code dir}. */
+    Path trashFor(Path dir) {
+        return trashByDirectory.computeIfAbsent(dir, d -> {
+            Object device = device(d);
+            if (Objects.equals(device, trashDevice)) {
+                return trashRoot;
+            }
+            Path top = d;
+            for (Path p = d.getParent(); p != null && Objects.equals(device(p), device); p = p.getParent()) {
+                top = p;
+            }
+            return top.resolve(TOP_DIR_TRASH);
+        });
+    }
+
+    private Object device(Path path) {
+        return devices.computeIfAbsent(path, TrashLocator::lookupDevice);
+    }
+
+    private static Object lookupDevice(Path path) {
+        try {
+            return Files.getAttribute(path, "unix:dev");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            try {
+                return Files.getFileStore(path);
+            } catch (IOException ignored) {
+                return path;
+            }
+        } catch (IOException e) {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.clearai.index;
+
+import com.clearai.scan.DirectoryListing;
+
+/**
+ * What the index remembers about one directory: the attributes it had when it
+ * was last listed, the listing itself, and a content-hash slot per file.
+ */
+final class DirectoryRecord {
+
+    final long modifiedNanos;
+    final long device;
+    final long inode;
+    final DirectoryListing listing;
+    /** Content hash per file, parallel to the listing's files; guarded by {@code this}. */
+    private final byte[][] hashes;
+    /** Generation of the last scan that visited this directory. */
+    volatile int generation;
+
+    DirectoryRecord(long modifiedNanos, FileKey key, DirectoryListing listing, byte[][] hashes, int generation) {
+        this.modifiedNanos = modifiedNanos;
+        this.device = key.device();
+        this.inode = key.inode();
+        this.listing = listing;
+        this.hashes = hashes;
+        this.generation = generation;
+    }
+
+    boolean matches(long modifiedNanos, FileKey key) {
+        return this.modifiedNanos == modifiedNanos && device == key.device() && inode == key.inode();
+    }
+
+    synchronized byte[] hash(int file) {
+        return hashes[file];
+    }
+
+    synchronized void setHash(int file, byte[] hash) {
+        hashes[file] = hash;
+    }
+
+    /** Returns the hash of {@code name} if the file still has the given size and modification time. */
+    byte[] hashIfUnchanged(String name, long size, long lastModified) {
+        int i = listing.indexOfFile(name);
+        if (i < 0 || listing.fileSize(i) != size || listing.fileModified(i) != lastModified) {
+            return null;
+        }
+        return hash(i);
+    }
+}
@@ -0,0 +1,38 @@
+package com.clearai.index;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * The identity of a directory on disk: its device and inode.
+ *
+ * <p>The JDK exposes these only through the opaque
+ * {@link BasicFileAttributes#fileKey()}, whose Unix implementation prints as
+ * {@code (dev=<hex>,ino=<decimal>)}; parsing that avoids a second stat per
+ * directory for the {@code unix:dev} and {@code unix:ino} attributes. Where
+ * the platform has no file key (Windows), or one in another format, both are
+ * zero, so only the modification time is compared.
+ */
+record FileKey(long device, long inode) {
+
+    static final FileKey NONE = new FileKey(0, 0);
+
+    static FileKey of(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        if (key == null) {
+            return NONE;
+        }
+        String s = key.toString();
+        int dev = s.indexOf("dev=");
+        int ino = s.indexOf(",ino=");
+        int end = s.indexOf(')', ino);
+        if (dev < 0 || ino < dev || end < 0) {
+            return NONE;
+        }
+        try {
+            return new FileKey(Long.parseUnsignedLong(s, dev + 4, ino, 16),
+                    Long.parseUnsignedLong(s, ino + 5, end, 10));
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.clearai.index;
+
+import com.clearai.scan.DirectoryCache;
+import com.clearai.scan.DirectoryListing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent record of earlier scans, used to make repeat scans incremental.
+ *
+ * <p>For every directory the index keeps the modification time and file key
+ * (device and inode on Unix) it had when last listed, its files with size,
+ * modification time and an optional content hash, and the names of its
+ * subdirectories. Plugged into a scan as a {@link DirectoryCache}, it lets the
+ * scanner replay any directory whose modification time and file key are
+ * unchanged instead of reading it again. Like {@code updatedb}, this relies on
+ * the fact that creating, removing or renaming an entry always updates the
+ * directory's modification time; a file rewritten in place is only noticed the
+ * next time its directory changes.
+ *
+ * <p>Directories under a scan root that were not visited by the latest scan of
+ * that root are dropped when the scan finishes, so deleted subtrees do not
+ * linger.
+ *
+ * <p>On disk the index is a base file plus a delta log next to it
+ * ({@code <file>.delta}), both memory-mapped on {@link #load}. {@link #save}
+ * appends the directories that changed or disappeared since the last save to
+ * the log, so a mostly unchanged tree costs a few records rather than a
+ * rewrite of the whole index. Once the log grows past half the size of the
+ * base, the base is rewritten atomically instead and the log starts over.
+ * Every log record carries a checksum; a record torn by a crash mid-append is
+ * dropped, along with anything after it. Each file must stay below 2 GiB,
+ * which is a few tens of millions of files.
+ */
+public final class ScanIndex implements DirectoryCache {
+
+    private static final int MAGIC = 0x434c4958; // "CLIX"
+    private static final int DELTA_MAGIC = 0x434c4944; // "CLID"
+    private static final int VERSION = 2;
+    /** Magic, version and epoch, then the base's record count. */
+    private static final int HEADER = 16;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 0;
+
+    private final Path file;
+    private final Path deltaFile;
+    private final Map<String, DirectoryRecord> directories;
+    /** Directories updated or removed since the last save. */
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private volatile int generation;
+    /** Identifies the base file; a delta log written against another base is ignored. */
+    private long epoch;
+    private long baseBytes;
+    /** Length of the valid prefix of the delta log; anything after it is a torn append. */
+    private long deltaBytes;
+
+    private ScanIndex(Path file, Map<String, DirectoryRecord> directories, long epoch, long baseBytes,
+            long deltaBytes) {
+        this.file = file;
+        this.deltaFile = file.resolveSibling(file.getFileName() + ".delta");
+        this.directories = directories;
+        this.epoch = epoch;
+        this.baseBytes = baseBytes;
+        this.deltaBytes = deltaBytes;
+    }
+
+    /** Creates an empty index that will be saved to {@code file}. */
+    public static ScanIndex create(Path file) {
+        return new ScanIndex(Objects.requireNonNull(file, "file"), new ConcurrentHashMap<>(), 0, 0, 0);
+    }
+
+    /**
+     * Loads the index stored in {@code file} and its delta log, or returns an
+     * empty one if the file does not exist.
+     */
+    public static ScanIndex load(Path file) throws IOException {
+        Map<String, DirectoryRecord> directories;
+        long epoch;
+        long baseBytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = map(channel, file);
+            if (in.limit() < HEADER + 4 || in.getInt() != MAGIC) {
+                throw new IOException("not a scan index: " + file);
+            }
+            checkVersion(in.getInt(), file);
+            epoch = in.getLong();
+            int count = in.getInt();
+            directories = new ConcurrentHashMap<>(Math.max(16, count * 4 / 3));
+            for (int d = 0; d < count; d++) {
+                String path = readString(in, in.getInt());
+                directories.put(path, readRecord(in));
+            }
+            baseBytes = in.limit();
+        } catch (NoSuchFileException e) {
+            return create(file);
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt scan index: " + file, e);
+        }
+        ScanIndex index = new ScanIndex(file, directories, epoch, baseBytes, 0);
+        index.deltaBytes = index.replayDeltas();
+        return index;
+    }
+
+    /** Applies the delta log on top of the base and returns the length of its valid prefix. */
+    private long replayDeltas() throws IOException {
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.READ)) {
+            ByteBuffer in = map(channel, deltaFile);
+            if (in.limit() < HEADER || in.getInt() != DELTA_MAGIC) {
+                return 0;
+            }
+            checkVersion(in.getInt(), deltaFile);
+            if (in.getLong() != epoch) {
+                // Left over from before the base was last rewritten; already part of it.
+                return 0;
+            }
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= 8) {
+                int start = in.position();
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) {
+                    return start;
+                }
+                ByteBuffer frame = in.slice(in.position(), length);
+                crc.reset();
+                crc.update(frame.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return start;
+                }
+                in.position(in.position() + length);
+                String path = readString(frame, frame.getInt());
+                if (frame.get() == PUT) {
+                    directories.put(path, readRecord(frame));
+                } else {
+                    directories.remove(path);
+                }
+            }
+            return in.position();
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt scan index: " + deltaFile, e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, Path file) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("index file too large: " + file);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private static void checkVersion(int version, Path file) throws IOException {
+        if (version != VERSION) {
+            throw new IOException("unsupported scan index version " + version + ": " + file);
+        }
+    }
+
+    private static DirectoryRecord readRecord(ByteBuffer in) {
+        long modifiedNanos = in.getLong();
+        FileKey key = new FileKey(in.getLong(), in.getLong());
+        int files = in.getInt();
+        String[] names = new String[files];
+        long[] sizes = new long[files];
+        long[] modified = new long[files];
+        byte[][] hashes = new byte[files][];
+        for (int f = 0; f < files; f++) {
+            names[f] = readString(in, in.getShort() & 0xffff);
+            sizes[f] = in.getLong();
+            modified[f] = in.getLong();
+            int hashLength = in.get() & 0xff;
+            if (hashLength > 0) {
+                hashes[f] = new byte[hashLength];
+                in.get(hashes[f]);
+            }
+        }
+        String[] subdirs = new String[in.getInt()];
+        for (int s = 0; s < subdirs.length; s++) {
+            subdirs[s] = readString(in, in.getShort() & 0xffff);
+        }
+        return new DirectoryRecord(modifiedNanos, key, new DirectoryListing(names, sizes, modified, subdirs), hashes,
+                0);
+    }
+
+    /** The file this index is loaded from and saved to. */
+    public Path file() {
+        return file;
+    }
+
+    /** Number of directories currently indexed. */
+    public int directoryCount() {
+        return directories.size();
+    }
+
+    /** Whether anything changed since the index was loaded or last saved. */
+    public boolean isDirty() {
+        return !changed.isEmpty();
+    }
+
+    @Override
+    public DirectoryListing lookup(Path dir, BasicFileAttributes attrs) {
+        DirectoryRecord record = directories.get(key(dir));
+        if (record == null || !record.matches(modifiedNanos(attrs), FileKey.of(attrs))) {
+            return null;
+        }
+        record.generation = generation;
+        return record.listing;
+    }
+
+    @Override
+    public void update(Path dir, BasicFileAttributes attrs, DirectoryListing listing) {
+        String key = key(dir);
+        DirectoryRecord previous = directories.get(key);
+        byte[][] hashes = new byte[listing.fileCount()][];
+        if (previous != null) {
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = previous.hashIfUnchanged(listing.fileName(i), listing.fileSize(i), listing.fileModified(i));
+            }
+        }
+        directories.put(key, new DirectoryRecord(modifiedNanos(attrs), FileKey.of(attrs), listing, hashes, generation));
+        changed.add(key);
+    }
+
+    /** Forgets {@code dir} so the next scan lists it again. */
+    public void invalidate(Path dir) {
+        String key = key(dir);
+        if (directories.remove(key) != null) {
+            changed.add(key);
+        }
+    }
+
+    @Override
+    public void scanStarted(Path root) {
+        generation++;
+    }
+
+    @Override
+    public void scanFinished(Path root) {
+        String prefix = key(root);
+        String childPrefix = prefix.endsWith(root.getFileSystem().getSeparator())
+                ? prefix : prefix + root.getFileSystem().getSeparator();
+        int current = generation;
+        for (Iterator<Map.Entry<String, DirectoryRecord>> it = directories.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, DirectoryRecord> e = it.next();
+            String key = e.getKey();
+            if (e.getValue().generation != current && (key.equals(prefix) || key.startsWith(childPrefix))) {
+                it.remove();
+                changed.add(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the recorded content hash of {@code file}, or {@code null} if none
+     * is recorded or the file's size or modification time no longer match.
+     */
+    public byte[] contentHash(Path file, long size, long lastModified) {
+        DirectoryRecord record = recordOf(file);
+        return record == null ? null : record.hashIfUnchanged(file.getFileName().toString(), size, lastModified);
+    }
+
+    /**
+     * Records the content hash of {@code file}. Ignored if the file is not
+     * indexed with the given size and modification time.
+     */
+    public void recordContentHash(Path file, long size, long lastModified, byte[] hash) {
+        if (hash.length > 255) {
+            throw new IllegalArgumentException("hash longer than 255 bytes");
+        }
+        Path parent = file.getParent();
+        String key = parent == null ? null : key(parent);
+        DirectoryRecord record = key == null ? null : directories.get(key);
+        if (record == null) {
+            return;
+        }
+        DirectoryListing listing = record.listing;
+        int i = listing.indexOfFile(file.getFileName().toString());
+        if (i >= 0 && listing.fileSize(i) == size && listing.fileModified(i) == lastModified) {
+            record.setHash(i, hash.clone());
+            changed.add(key);
+        }
+    }
+
+    /**
+     * Persists the changes since the last save, appending them to the delta
+     * log, or rewriting the base atomically when there is none yet or the log
+     * has grown past half its size.
+     */
+    public synchronized void save() throws IOException {
+        if (changed.isEmpty() && baseBytes > 0) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(changed);
+        // Taken off before reading the records; an update racing with the save adds its key back for the next one.
+        changed.removeAll(keys);
+        try {
+            if (baseBytes == 0 || deltaBytes > baseBytes / 2 || !Files.exists(file)) {
+                rewriteBase();
+            } else {
+                appendDeltas(keys);
+            }
+        } catch (IOException | RuntimeException e) {
+            changed.addAll(keys);
+            throw e;
+        }
+    }
+
+    private void rewriteBase() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        long newEpoch = ThreadLocalRandom.current().nextLong();
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(newEpoch);
+                Map<String, DirectoryRecord> snapshot = Map.copyOf(directories);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, DirectoryRecord> e : snapshot.entrySet()) {
+                    writePath(out, e.getKey());
+                    writeRecord(out, e.getValue());
+                }
+            }
+            long size = Files.size(tmp);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // The old log names the old epoch, so a crash before this delete leaves it ignored, not replayed.
+            Files.deleteIfExists(deltaFile);
+            epoch = newEpoch;
+            baseBytes = size;
+            deltaBytes = 0;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void appendDeltas(List<String> keys) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 12);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (deltaBytes == 0) {
+            out.writeInt(DELTA_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(epoch);
+        }
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(1 << 10);
+        DataOutputStream frameOut = new DataOutputStream(frame);
+        CRC32 crc = new CRC32();
+        for (String key : keys) {
+            frame.reset();
+            writePath(frameOut, key);
+            DirectoryRecord record = directories.get(key);
+            if (record != null) {
+                frameOut.writeByte(PUT);
+                writeRecord(frameOut, record);
+            } else {
+                frameOut.writeByte(REMOVE);
+            }
+            crc.reset();
+            crc.update(frame.toByteArray());
+            out.writeInt(frame.size());
+            out.writeInt((int) crc.getValue());
+            frame.writeTo(out);
+        }
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Cut off a torn append from a crash, so that what follows stays readable.
+            channel.truncate(deltaBytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            for (long position = deltaBytes; buffer.hasRemaining(); ) {
+                position += channel.write(buffer, position);
+            }
+        }
+        deltaBytes += bytes.size();
+    }
+
+    private static void writePath(DataOutputStream out, String path) throws IOException {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(pathBytes.length);
+        out.write(pathBytes);
+    }
+
+    private static void writeRecord(DataOutputStream out, DirectoryRecord record) throws IOException {
+        out.writeLong(record.modifiedNanos);
+        out.writeLong(record.device);
+        out.writeLong(record.inode);
+        DirectoryListing listing = record.listing;
+        out.writeInt(listing.fileCount());
+        for (int f = 0; f < listing.fileCount(); f++) {
+            writeName(out, listing.fileName(f));
+            out.writeLong(listing.fileSize(f));
+            out.writeLong(listing.fileModified(f));
+            byte[] hash = record.hash(f);
+            out.writeByte(hash == null ? 0 : hash.length);
+            if (hash != null) {
+                out.write(hash);
+            }
+        }
+        out.writeInt(listing.subdirectoryCount());
+        for (int s = 0; s < listing.subdirectoryCount(); s++) {
+            writeName(out, listing.subdirectory(s));
+        }
+    }
+
+    private static void writeName(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IOException("file name too long: " + name);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private DirectoryRecord recordOf(Path file) {
+        Path parent = file.getParent();
+        return parent == null ? null : directories.get(key(parent));
+    }
+
+    private static String key(Path dir) {
+        return dir.toAbsolutePath().normalize().toString();
+    }
+
+    private static long modifiedNanos(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,12 @@
+package com.clearai.io;
+
+/**
+ * A block device or remote share that files live on.
+ *
+ * @param id     {@code major:minor} on Linux, otherwise the file store name; equal ids share one queue
+ * @param type   file system type, e.g. {@code ext4} or {@code nfs4}
+ * @param source what is mounted, e.g. {@code /dev/sda1} or {@code server:/export}
+ * @param kind   how the device is scheduled
+ */
+public record Device(String id, String type, String source, DeviceKind kind) {
+}
@@ -0,0 +1,14 @@
+package com.clearai.io;
+
+/**
+ * How a device responds to concurrent reads, which decides how many an
+ * {@link IoScheduler} lets through at once and in what order.
+ */
+public enum DeviceKind {
+    /** Flash or memory backed; seeks are free and deep queues help. */
+    SOLID_STATE,
+    /** Spinning disk; every extra concurrent reader costs a seek, so reads are serialized and sorted. */
+    ROTATIONAL,
+    /** Network file system; latency bound, so a few requests in flight hide the round trips. */
+    NETWORK
+}
@@ -0,0 +1,119 @@
+package com.clearai.io;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Admission control for one device: at most {@code limit} operations run at
+ * once, the rest wait here. Waiters are handed the slot of a finishing
+ * operation directly, in arrival order, or on rotational devices in path
+ * order, sweeping upwards from the last path served and wrapping around at
+ * the end (C-LOOK), so the files of a directory and neighbouring directories
+ * are read one after another instead of making the head seek back and forth.
+ *
+ * <p>Once {@linkplain #close closed} the queue stops limiting: operations
+ * still arriving while their owners wind down are admitted at once.
+ */
+final class DeviceQueue {
+
+    private static final Comparator<Waiter> SWEEP_ORDER =
+            Comparator.comparing(Waiter::key).thenComparingLong(Waiter::sequence);
+
+    private final int limit;
+    private final ArrayDeque<Runnable> arrivals;
+    private final TreeSet<Waiter> sweep;
+    private int active;
+    private long sequence;
+    private Path head;
+    private boolean closed;
+
+    DeviceQueue(int limit, boolean elevator) {
+        this.limit = limit;
+        this.arrivals = elevator ? null : new ArrayDeque<>();
+        this.sweep = elevator ? new TreeSet<>(SWEEP_ORDER) : null;
+    }
+
+    /**
+     * Takes a slot for an operation on {@code key} and returns true, or, when
+     * the device is busy, queues {@code resume} to be run with the slot once
+     * one is released and returns false.
+     */
+    synchronized boolean admit(Path key, Runnable resume) {
+        if (closed || active < limit) {
+            active++;
+            head = key;
+            return true;
+        }
+        if (sweep != null) {
+            sweep.add(new Waiter(key, sequence++, resume));
+        } else {
+            arrivals.add(resume);
+        }
+        return false;
+    }
+
+    /** Gives up a slot, passing it on to the next waiter if there is one. */
+    void release() {
+        Runnable next;
+        synchronized (this) {
+            next = next();
+            if (next == null) {
+                active--;
+                return;
+            }
+        }
+        next.run();
+    }
+
+    /**
+     * Stops limiting and returns the waiters, each already holding the slot
+     * it was waiting for, for the caller to run outside the lock. Their
+     * releases balance as if they had been handed a slot normally.
+     */
+    synchronized List<Runnable> close() {
+        closed = true;
+        List<Runnable> waiting = new ArrayList<>();
+        if (sweep != null) {
+            for (Waiter w : sweep) {
+                waiting.add(w.resume);
+            }
+            sweep.clear();
+        } else {
+            waiting.addAll(arrivals);
+            arrivals.clear();
+        }
+        active += waiting.size();
+        return waiting;
+    }
+
+    synchronized int active() {
+        return active;
+    }
+
+    synchronized int waiting() {
+        return sweep != null ? sweep.size() : arrivals.size();
+    }
+
+    private Runnable next() {
+        if (sweep == null) {
+            return arrivals.poll();
+        }
+        if (sweep.isEmpty()) {
+            return null;
+        }
+        Waiter next = sweep.ceiling(new Waiter(head, Long.MIN_VALUE, null));
+        if (next == null) {
+            next = sweep.first();
+        }
+        sweep.remove(next);
+        head = next.key;
+        return next.resume;
+    }
+
+    private record Waiter(Path key, long sequence, Runnable resume) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.clearai.io;
+
+/**
+ * Immutable settings for an {@link IoScheduler}. Create instances with {@link #builder()}.
+ */
+public final class IoOptions {
+
+    private final int solidStateParallelism;
+    private final int rotationalParallelism;
+    private final int networkParallelism;
+    private final boolean sortRotationalReads;
+
+    private IoOptions(Builder b) {
+        this.solidStateParallelism = b.solidStateParallelism;
+        this.rotationalParallelism = b.rotationalParallelism;
+        this.networkParallelism = b.networkParallelism;
+        this.sortRotationalReads = b.sortRotationalReads;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static IoOptions defaults() {
+        return builder().build();
+    }
+
+    /** Maximum number of operations running at the same time against one device of the given kind. */
+    public int parallelism(DeviceKind kind) {
+        return switch (kind) {
+            case SOLID_STATE -> solidStateParallelism;
+            case ROTATIONAL -> rotationalParallelism;
+            case NETWORK -> networkParallelism;
+        };
+    }
+
+    /** Whether operations waiting for a rotational device are served in path order rather than arrival order. */
+    public boolean sortRotationalReads() {
+        return sortRotationalReads;
+    }
+
+    public static final class Builder {
+
+        private int solidStateParallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+        private int rotationalParallelism = 1;
+        private int networkParallelism = 8;
+        private boolean sortRotationalReads = true;
+
+        private Builder() {
+        }
+
+        public Builder solidStateParallelism(int solidStateParallelism) {
+            if (solidStateParallelism < 1) {
+                throw new IllegalArgumentException("solidStateParallelism must be positive: " + solidStateParallelism);
+            }
+            this.solidStateParallelism = solidStateParallelism;
+            return this;
+        }
+
+        public Builder rotationalParallelism(int rotationalParallelism) {
+            if (rotationalParallelism < 1) {
+                throw new IllegalArgumentException("rotationalParallelism must be positive: " + rotationalParallelism);
+            }
+            this.rotationalParallelism = rotationalParallelism;
+            return this;
+        }
+
+        public Builder networkParallelism(int networkParallelism) {
+            if (networkParallelism < 1) {
+                throw new IllegalArgumentException("networkParallelism must be positive: " + networkParallelism);
+            }
+            this.networkParallelism = networkParallelism;
+            return this;
+        }
+
+        public Builder sortRotationalReads(boolean sortRotationalReads) {
+            this.sortRotationalReads = sortRotationalReads;
+            return this;
+        }
+
+        public IoOptions build() {
+            return new IoOptions(this);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.clearai.io;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes file work by the device it touches, so each device gets the
+ * concurrency it can actually use: several operations in flight on SSDs and
+ * network shares, one at a time on spinning disks, where parallel readers
+ * only add seeks. Limits are per device, not global, so a busy HDD never holds
+ * back work on the SSD next to it.
+ *
+ * <p>Devices are found by the {@code unix:dev} of a path matched against
+ * {@code /proc/self/mountinfo}, falling back to the path's
+ * {@link FileStore} on other platforms. Operations waiting for a
+ * rotational device are started in path order rather than arrival order
+ * (see {@link IoOptions#sortRotationalReads()}), keeping the head near the
+ * directory it is already in.
+ *
+ * <p>Work is either handed over with {@link #submit}, or, for callers that run
+ * on their own threads such as the scanner's fork/join tasks, bracketed by
+ * {@link #admit} and {@link #release}. One scheduler may be shared by a scan
+ * and the hashing that follows it.
+ *
+ * <p>{@link #submit} remembers the device of each directory it has seen, up
+ * to {@link #DIRECTORY_CACHE} of them, after which it starts over, so a
+ * long-lived scheduler does not grow with the trees it has read.
+ */
+public final class IoScheduler implements AutoCloseable {
+
+    /** Number of directories whose device {@link #submit} remembers before forgetting them all. */
+    static final int DIRECTORY_CACHE = 4096;
+
+    private final IoOptions options;
+    private final Map<Path, Device> deviceByDirectory = new ConcurrentHashMap<>();
+    private final Map<String, DeviceQueue> queues = new ConcurrentHashMap<>();
+    private final Set<String> mountReloads = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private volatile MountTable mounts;
+    private volatile boolean closed;
+
+    public IoScheduler(IoOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "clear-ai-io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public IoOptions options() {
+        return options;
+    }
+
+    /**
+     * Returns the device {@code path} lives on. Costs a stat; callers that
+     * already know the device of the parent directory use {@link #child}.
+     */
+    public Device device(Path path) {
+        Path absolute = path.toAbsolutePath();
+        try {
+            Object dev = Files.getAttribute(absolute, "unix:dev");
+            String id = MountTable.deviceId((Long) dev);
+            Device device = mounts().byId(id);
+            if (device == null && mountReloads.add(id)) {
+                // Mounted after the table was read.
+                mounts = MountTable.load();
+                device = mounts.byId(id);
+            }
+            if (device != null) {
+                return device;
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException ignored) {
+            // Not a Unix file system, or the path is unreadable; fall back to the file store below.
+        }
+        return fileStoreDevice(absolute);
+    }
+
+    /**
+     * Returns the device of {@code dir}, a directory inside a directory on
+     * {@code parent}: a mount table lookup rather than a stat, since only a
+     * mount point can be on another device than its parent.
+     */
+    public Device child(Device parent, Path dir) {
+        Device mounted = mounts().mountedAt(dir.isAbsolute() ? dir : dir.toAbsolutePath().normalize());
+        return mounted != null ? mounted : parent;
+    }
+
+    /** Maximum number of operations that run at the same time against {@code device}. */
+    public int parallelism(Device device) {
+        return options.parallelism(device.kind());
+    }
+
+    /**
+     * Runs {@code task}, which reads {@code file}, on the scheduler's threads
+     * once its device has a free slot.
+     *
+     * @throws IllegalStateException if the scheduler has been closed
+     */
+    public <T> Future<T> submit(Path file, Callable<T> task) {
+        if (closed) {
+            throw new IllegalStateException("scheduler closed");
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Device device = dir == null ? device(file) : directoryDevice(dir);
+        DeviceQueue queue = queue(device);
+        FutureTask<T> future = new FutureTask<>(task);
+        Runnable run = () -> {
+            try {
+                future.run();
+            } finally {
+                queue.release();
+            }
+        };
+        Runnable start = () -> {
+            try {
+                executor.execute(run);
+            } catch (RejectedExecutionException e) {
+                // Closed before the task got its turn; it never runs.
+                future.cancel(false);
+                queue.release();
+            }
+        };
+        if (queue.admit(file, start)) {
+            start.run();
+        }
+        return future;
+    }
+
+    private Device directoryDevice(Path dir) {
+        Device device = deviceByDirectory.get(dir);
+        if (device == null) {
+            if (deviceByDirectory.size() >= DIRECTORY_CACHE) {
+                deviceByDirectory.clear();
+            }
+            device = device(dir);
+            deviceByDirectory.put(dir, device);
+        }
+        return device;
+    }
+
+    /**
+     * Takes a slot on {@code device} for an operation on {@code path} that the
+     * caller runs itself, and returns true if it may start right away. If not,
+     * {@code resume} is called once a slot is free, with the slot already
+     * taken; it is called on the thread that released the slot and should only
+     * hand the operation back to its executor. Either way the operation must
+     * end with {@link #release}.
+     */
+    public boolean admit(Device device, Path path, Runnable resume) {
+        return queue(device).admit(path, resume);
+    }
+
+    /** Ends an operation started through {@link #admit}. */
+    public void release(Device device) {
+        queue(device).release();
+    }
+
+    /** Number of operations running and waiting for {@code device}. */
+    public int load(Device device) {
+        DeviceQueue queue = queues.get(device.id());
+        return queue == null ? 0 : queue.active() + queue.waiting();
+    }
+
+    /**
+     * Stops the scheduler's threads. Submitted operations that have not
+     * started are cancelled. Callers waiting in {@link #admit} are resumed at
+     * once, so they can wind down, and no further admission waits.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        for (DeviceQueue queue : queues.values()) {
+            for (Runnable waiter : queue.close()) {
+                waiter.run();
+            }
+        }
+    }
+
+    /** Number of directories whose device is remembered. */
+    int cachedDirectories() {
+        return deviceByDirectory.size();
+    }
+
+    private DeviceQueue queue(Device device) {
+        return queues.computeIfAbsent(device.id(), id -> new DeviceQueue(parallelism(device),
+                device.kind() == DeviceKind.ROTATIONAL && options.sortRotationalReads()));
+    }
+
+    private MountTable mounts() {
+        MountTable m = mounts;
+        if (m == null) {
+            synchronized (this) {
+                m = mounts;
+                if (m == null) {
+                    mounts = m = MountTable.load();
+                }
+            }
+        }
+        return m;
+    }
+
+    private static Device fileStoreDevice(Path path) {
+        try {
+            FileStore store = Files.getFileStore(path);
+            DeviceKind kind = MountTable.isNetwork(store.type()) ? DeviceKind.NETWORK : DeviceKind.SOLID_STATE;
+            return new Device(store.name(), store.type(), store.name(), kind);
+        } catch (IOException e) {
+            return new Device("", "", "", DeviceKind.SOLID_STATE);
+        }
+    }
+}
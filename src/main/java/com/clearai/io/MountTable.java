@@ -0,0 +1,145 @@
+package com.clearai.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The mounts of this process as listed in {@code /proc/self/mountinfo}, with
+ * the kind of each device worked out from its file system type and from
+ * {@code /sys/block/<dev>/queue/rotational}. Empty on platforms without
+ * procfs.
+ */
+final class MountTable {
+
+    static final Path MOUNTINFO = Path.of("/proc/self/mountinfo");
+    private static final Path SYS_DEV_BLOCK = Path.of("/sys/dev/block");
+    private static final Path SYS_CLASS_BLOCK = Path.of("/sys/class/block");
+
+    private static final Set<String> NETWORK_TYPES = Set.of("nfs", "nfs4", "cifs", "smb3", "smbfs", "ncpfs", "afs",
+            "ceph", "glusterfs", "lustre", "gpfs", "9p", "davfs", "fuse.sshfs", "fuse.s3fs", "fuse.rclone",
+            "fuse.gcsfuse", "fuse.glusterfs", "fuse.cephfs");
+
+    private final Map<String, Device> byId = new HashMap<>();
+    private final Map<Path, Device> byMountPoint = new HashMap<>();
+
+    private MountTable() {
+    }
+
+    static MountTable load() {
+        try {
+            // Decoded leniently: one oddly named mount point must not cost the whole table.
+            return parse(new String(Files.readAllBytes(MOUNTINFO), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return new MountTable();
+        }
+    }
+
+    /** Builds the table from the text of a mountinfo file, skipping lines it cannot make sense of. */
+    static MountTable parse(String mountinfo) {
+        MountTable table = new MountTable();
+        Map<String, DeviceKind> kinds = new HashMap<>();
+        for (String line : mountinfo.split("\n")) {
+            // 36 35 98:0 /mnt1 /mnt2 rw,noatime master:1 - ext3 /dev/root rw,errors=continue
+            String[] f = line.split(" ");
+            int separator = List.of(f).indexOf("-");
+            if (f.length < 6 || separator < 0 || separator + 2 >= f.length) {
+                continue;
+            }
+            String id = f[2];
+            String type = f[separator + 1];
+            String source = unescape(f[separator + 2]);
+            DeviceKind kind = kinds.computeIfAbsent(id, k -> kind(k, type, source));
+            Device device = new Device(id, type, source, kind);
+            table.byId.putIfAbsent(id, device);
+            try {
+                // Later lines are mounted on top of earlier ones at the same point.
+                table.byMountPoint.put(Path.of(unescape(f[4])), device);
+            } catch (InvalidPathException ignored) {
+                // Not representable in this platform charset; files below it keep their parent's device.
+            }
+        }
+        return table;
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    /** Returns the device with the given {@code major:minor} id, or {@code null} if it is not mounted. */
+    Device byId(String id) {
+        return byId.get(id);
+    }
+
+    /** Returns the device mounted at {@code dir}, or {@code null} if {@code dir} is not a mount point. */
+    Device mountedAt(Path dir) {
+        return byMountPoint.get(dir);
+    }
+
+    /** Formats a Linux {@code st_dev} as {@code major:minor}, as used in mountinfo and sysfs. */
+    static String deviceId(long dev) {
+        long major = ((dev >>> 8) & 0xfff) | ((dev >>> 32) & ~0xfffL);
+        long minor = (dev & 0xff) | ((dev >>> 12) & 0xffffff00L);
+        return major + ":" + minor;
+    }
+
+    static boolean isNetwork(String type) {
+        return NETWORK_TYPES.contains(type);
+    }
+
+    static DeviceKind kind(String id, String type, String source) {
+        if (isNetwork(type)) {
+            return DeviceKind.NETWORK;
+        }
+        int rotational = rotational(SYS_DEV_BLOCK.resolve(id));
+        if (rotational < 0 && source.startsWith("/dev/")) {
+            try {
+                // Covers btrfs and other file systems that report an anonymous device number.
+                Path node = Path.of(source).toRealPath();
+                rotational = rotational(SYS_CLASS_BLOCK.resolve(node.getFileName().toString()));
+            } catch (IOException | InvalidPathException ignored) {
+                // Leave it unknown.
+            }
+        }
+        return rotational > 0 ? DeviceKind.ROTATIONAL : DeviceKind.SOLID_STATE;
+    }
+
+    /** Returns 1 or 0 from the block device's queue attributes, or -1 if there are none. */
+    private static int rotational(Path blockDevice) {
+        try {
+            Path dev = blockDevice.toRealPath();
+            Path flag = dev.resolve("queue/rotational");
+            if (!Files.exists(flag) && dev.getParent() != null) {
+                // A partition; the queue belongs to the whole disk.
+                flag = dev.getParent().resolve("queue/rotational");
+            }
+            return Files.readString(flag).trim().equals("1") ? 1 : 0;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /** Undoes the octal escapes mountinfo uses for space, tab, newline and backslash. */
+    static String unescape(String field) {
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 3 < field.length()) {
+                sb.append((char) Integer.parseInt(field.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.clearai.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a {@link MemorySnapshot} into a ranked list of
+ * {@link ReclaimSuggestion}s. Stateless apart from its thresholds; the
+ * history it needs is carried by the snapshot.
+ */
+public final class MemoryAnalyzer {
+
+    private static final long MIB = 1024 * 1024;
+
+    private final double lowMemoryRatio;
+    private final int largestCount;
+    private final long growthThreshold;
+    private final long swapThreshold;
+    private final int instanceThreshold;
+
+    /** Creates an analyzer with thresholds suited to a desktop machine. */
+    public MemoryAnalyzer() {
+        this(0.10, 5, 100 * MIB, 200 * MIB, 4);
+    }
+
+    /**
+     * @param lowMemoryRatio    available/total ratio below which the largest processes are suggested for closing
+     * @param largestCount      how many of the largest processes to suggest in that case
+     * @param growthThreshold   RSS growth across the history above which a process is reported as growing
+     * @param swapThreshold     swapped-out size above which a process is reported as idle
+     * @param instanceThreshold number of same-named processes from which they are reported together
+     */
+    public MemoryAnalyzer(double lowMemoryRatio, int largestCount, long growthThreshold, long swapThreshold,
+            int instanceThreshold) {
+        this.lowMemoryRatio = lowMemoryRatio;
+        this.largestCount = largestCount;
+        this.growthThreshold = growthThreshold;
+        this.swapThreshold = swapThreshold;
+        this.instanceThreshold = instanceThreshold;
+    }
+
+    /** Returns the {@code n} processes with the largest footprint. */
+    public static List<ProcessMemory> largest(MemorySnapshot snapshot, int n) {
+        List<ProcessMemory> processes = snapshot.processes();
+        return processes.subList(0, Math.min(n, processes.size()));
+    }
+
+    /** Returns suggestions, largest expected gain first. */
+    public List<ReclaimSuggestion> analyze(MemorySnapshot snapshot) {
+        List<ReclaimSuggestion> suggestions = new ArrayList<>();
+        SystemMemory system = snapshot.system();
+        if (system.availableRatio() < lowMemoryRatio) {
+            for (ProcessMemory p : largest(snapshot, largestCount)) {
+                suggestions.add(new ReclaimSuggestion(ReclaimSuggestion.Kind.CLOSE_LARGEST, p.pid(), p.name(),
+                        p.footprint(), String.format("only %.0f%% of memory is available; %s (%d) uses %d MiB",
+                        system.availableRatio() * 100, p.name(), p.pid(), p.footprint() / MIB)));
+            }
+        }
+        Map<String, long[]> instances = new HashMap<>();
+        for (ProcessMemory p : snapshot.processes()) {
+            if (p.growth() > growthThreshold) {
+                suggestions.add(new ReclaimSuggestion(ReclaimSuggestion.Kind.RESTART_GROWING, p.pid(), p.name(),
+                        p.growth(), String.format("%s (%d) grew by %d MiB over the last %d samples; restarting it"
+                        + " would release that", p.name(), p.pid(), p.growth() / MIB, p.samples())));
+            }
+            if (p.swap() > swapThreshold) {
+                suggestions.add(new ReclaimSuggestion(ReclaimSuggestion.Kind.CLOSE_IDLE_SWAPPED, p.pid(), p.name(),
+                        p.swap() + p.rss(), String.format("%s (%d) has %d MiB swapped out and is probably idle",
+                        p.name(), p.pid(), p.swap() / MIB)));
+            }
+            if (p.name() != null) {
+                long[] totals = instances.computeIfAbsent(p.name(), k -> new long[2]);
+                totals[0]++;
+                totals[1] += p.footprint();
+            }
+        }
+        for (Map.Entry<String, long[]> e : instances.entrySet()) {
+            long[] totals = e.getValue();
+            if (totals[0] >= instanceThreshold) {
+                suggestions.add(new ReclaimSuggestion(ReclaimSuggestion.Kind.REDUCE_INSTANCES, -1, e.getKey(),
+                        totals[1], String.format("%d instances of %s use %d MiB together",
+                        totals[0], e.getKey(), totals[1] / MIB)));
+            }
+        }
+        suggestions.sort(Comparator.comparingLong(ReclaimSuggestion::bytes).reversed());
+        return suggestions;
+    }
+}
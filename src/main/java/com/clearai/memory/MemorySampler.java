@@ -0,0 +1,311 @@
+package com.clearai.memory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the memory use of every process on the host from procfs.
+ *
+ * <p>The sampler is built to run continuously at 1 Hz on hosts with thousands
+ * of processes, so each tick reads as little as possible:
+ * <ul>
+ *   <li>{@code /proc/<pid>/statm} every tick &ndash; a single short line the
+ *       kernel produces without walking anything, enough for RSS;</li>
+ *   <li>{@code /proc/<pid>/status} when a process is first seen and then every
+ *       {@link SamplerOptions#statusEveryTicks()} ticks, for name and swap;</li>
+ *   <li>{@code /proc/<pid>/smaps_rollup} every
+ *       {@link SamplerOptions#rollupEveryTicks()} ticks and only for the
+ *       {@link SamplerOptions#rollupTopN()} largest processes, since the kernel
+ *       walks the whole address space to produce it.</li>
+ * </ul>
+ * Up to {@link SamplerOptions#maxOpenFiles()} {@code statm} handles stay open
+ * between ticks and are re-read in place, saving the open and close calls.
+ * Files are parsed straight from a reused byte buffer and per-process state
+ * lives in a {@link ProcessTable} of primitive arrays, so steady-state ticks
+ * allocate little beyond the {@code /proc} directory listing.
+ */
+public final class MemorySampler implements AutoCloseable {
+
+    private static final byte[][] MEMINFO_KEYS = {
+            ProcReader.key("MemTotal:"), ProcReader.key("MemFree:"), ProcReader.key("MemAvailable:"),
+            ProcReader.key("Cached:"), ProcReader.key("SwapTotal:"), ProcReader.key("SwapFree:")
+    };
+    private static final byte[][] STATUS_KEYS = {ProcReader.key("VmSwap:")};
+    private static final byte[] NAME_KEY = ProcReader.key("Name:");
+    private static final byte[][] ROLLUP_KEYS = {
+            ProcReader.key("Pss:"), ProcReader.key("Private_Dirty:"), ProcReader.key("Swap:")
+    };
+
+    private final SamplerOptions options;
+    private final File procDir;
+    private final String meminfoPath;
+    private final long pageKb;
+    private final ProcReader reader = new ProcReader();
+    private final ProcessTable table;
+    private final long[] meminfo = new long[MEMINFO_KEYS.length];
+    private final long[] fields = new long[ROLLUP_KEYS.length];
+    private final int[] top;
+    private long tick;
+    private long errors;
+    private long lastSampleNanos;
+    private ScheduledExecutorService timer;
+
+    public MemorySampler(SamplerOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+        this.procDir = new File(options.procRoot());
+        this.meminfoPath = options.procRoot() + "/meminfo";
+        this.table = new ProcessTable(options.historySize());
+        this.top = new int[options.rollupTopN()];
+        this.pageKb = detectPageKb(options.procRoot());
+    }
+
+    /**
+     * Takes one sample of every process.
+     *
+     * @throws IllegalStateException if {@code meminfo} cannot be read
+     */
+    public synchronized void sample() {
+        long start = System.nanoTime();
+        tick++;
+        if (!reader.read(meminfoPath)) {
+            throw new IllegalStateException("cannot read " + meminfoPath);
+        }
+        reader.fields(MEMINFO_KEYS, meminfo);
+
+        String[] entries = procDir.list();
+        if (entries != null) {
+            for (String entry : entries) {
+                int pid = parsePid(entry);
+                if (pid > 0) {
+                    sampleProcess(pid);
+                }
+            }
+        }
+        for (int slot = 0; slot < table.highWater(); slot++) {
+            if (table.inUse(slot) && table.lastSeen[slot] != tick) {
+                table.remove(slot);
+            }
+        }
+        if (top.length > 0 && tick % options.rollupEveryTicks() == 1 % options.rollupEveryTicks()) {
+            sampleRollups();
+        }
+        lastSampleNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Starts sampling on a background daemon thread every {@code period}. A
+     * tick that fails is counted in {@link #errors()} and the next one runs
+     * as scheduled.
+     */
+    public synchronized void start(Duration period) {
+        if (timer != null) {
+            throw new IllegalStateException("already started");
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clear-ai-memory-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        long nanos = period.toNanos();
+        timer.scheduleAtFixedRate(this::sampleOrCount, 0, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void sampleOrCount() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            // Letting it escape would cancel the schedule for good.
+            synchronized (this) {
+                errors++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        table.closeChannels();
+    }
+
+    /** Number of ticks taken so far. */
+    public synchronized long ticks() {
+        return tick;
+    }
+
+    /** Number of background ticks that failed, e.g. because {@code meminfo} could not be read. */
+    public synchronized long errors() {
+        return errors;
+    }
+
+    /** Wall-clock time the latest tick took. */
+    public synchronized Duration lastSampleDuration() {
+        return Duration.ofNanos(lastSampleNanos);
+    }
+
+    /** Returns the figures of the latest tick. */
+    public synchronized MemorySnapshot snapshot() {
+        SystemMemory system = new SystemMemory(kb(meminfo[0]), kb(meminfo[1]), kb(meminfo[2]), kb(meminfo[3]),
+                kb(meminfo[4]), kb(meminfo[5]));
+        List<ProcessMemory> processes = new ArrayList<>(table.size());
+        for (int slot = 0; slot < table.highWater(); slot++) {
+            if (table.inUse(slot)) {
+                long[] history = table.history(slot);
+                long growth = history.length < 2 ? 0 : history[history.length - 1] - history[0];
+                processes.add(new ProcessMemory(table.pids[slot], table.names[slot], kb(table.rssKb[slot]),
+                        kb(table.sharedKb[slot]), kb(table.swapKb[slot]), kb(table.pssKb[slot]),
+                        kb(table.privateDirtyKb[slot]), growth * 1024, history.length));
+            }
+        }
+        processes.sort(Comparator.comparingLong(ProcessMemory::footprint).reversed());
+        return new MemorySnapshot(tick, system, processes);
+    }
+
+    /** Returns the remembered RSS samples of {@code pid} in bytes, oldest first, or an empty array. */
+    public synchronized long[] history(int pid) {
+        int slot = table.find(pid);
+        if (slot == ProcessTable.NONE) {
+            return new long[0];
+        }
+        long[] history = table.history(slot);
+        for (int i = 0; i < history.length; i++) {
+            history[i] *= 1024;
+        }
+        return history;
+    }
+
+    private void sampleProcess(int pid) {
+        int slot = table.find(pid);
+        boolean fresh = slot == ProcessTable.NONE;
+        if (fresh) {
+            slot = table.insert(pid);
+            table.statmPaths[slot] = options.procRoot() + '/' + pid + "/statm";
+        }
+        if (!readStatm(slot)) {
+            if (fresh) {
+                table.remove(slot);
+            }
+            return;
+        }
+        long resident = reader.number(1);
+        long shared = reader.number(2);
+        table.rssKb[slot] = resident * pageKb;
+        table.sharedKb[slot] = shared * pageKb;
+        table.record(slot, resident * pageKb);
+        table.lastSeen[slot] = tick;
+        if (fresh || tick - table.lastStatus[slot] >= options.statusEveryTicks()) {
+            sampleStatus(slot, pid);
+        }
+    }
+
+    private boolean readStatm(int slot) {
+        FileChannel channel = table.statmChannels[slot];
+        if (channel != null) {
+            if (reader.read(channel)) {
+                return true;
+            }
+            // The handle may belong to an earlier process with the same pid.
+            table.closeChannel(slot);
+        }
+        String path = table.statmPaths[slot];
+        if (!reader.read(path)) {
+            return false;
+        }
+        if (table.openChannels() < options.maxOpenFiles()) {
+            try {
+                table.setChannel(slot, FileChannel.open(Path.of(path), StandardOpenOption.READ));
+            } catch (IOException ignored) {
+                // Fall back to reopening by path next tick.
+            }
+        }
+        return true;
+    }
+
+    private void sampleStatus(int slot, int pid) {
+        table.lastStatus[slot] = tick;
+        if (!reader.read(options.procRoot() + '/' + pid + "/status")) {
+            return;
+        }
+        String name = reader.text(NAME_KEY);
+        String previous = table.names[slot];
+        if (previous != null && !previous.equals(name)) {
+            // The pid was recycled by a different program; its history is meaningless.
+            table.clearHistory(slot);
+            table.record(slot, table.rssKb[slot]);
+            table.pssKb[slot] = table.privateDirtyKb[slot] = -1;
+        }
+        table.names[slot] = name;
+        reader.fields(STATUS_KEYS, fields);
+        table.swapKb[slot] = Math.max(0, fields[0]);
+    }
+
+    private void sampleRollups() {
+        int count = 0;
+        for (int slot = 0; slot < table.highWater(); slot++) {
+            if (!table.inUse(slot)) {
+                continue;
+            }
+            long rss = table.rssKb[slot];
+            if (count < top.length) {
+                count++;
+            } else if (rss <= table.rssKb[top[count - 1]]) {
+                continue;
+            }
+            int i = count - 1;
+            while (i > 0 && table.rssKb[top[i - 1]] < rss) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = slot;
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = top[i];
+            if (reader.read(options.procRoot() + '/' + table.pids[slot] + "/smaps_rollup")) {
+                reader.fields(ROLLUP_KEYS, fields);
+                table.pssKb[slot] = fields[0];
+                table.privateDirtyKb[slot] = fields[1];
+                if (fields[2] >= 0) {
+                    table.swapKb[slot] = fields[2];
+                }
+            }
+        }
+    }
+
+    private static int parsePid(String name) {
+        int pid = 0;
+        for (int i = 0, n = name.length(); i < n; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || i > 9) {
+                return -1;
+            }
+            pid = pid * 10 + (c - '0');
+        }
+        return pid;
+    }
+
+    private static long detectPageKb(String procRoot) {
+        ProcReader reader = new ProcReader();
+        long[] out = new long[1];
+        if (reader.read(procRoot + "/self/smaps")) {
+            reader.fields(new byte[][]{ProcReader.key("KernelPageSize:")}, out);
+        }
+        return out[0] > 0 ? out[0] : 4;
+    }
+
+    private static long kb(long kb) {
+        return kb < 0 ? -1 : kb * 1024;
+    }
+}
@@ -0,0 +1,17 @@
+package com.clearai.memory;
+
+import java.util.List;
+
+/**
+ * Consistent view of the latest sampling tick.
+ *
+ * @param tick      number of the tick the figures come from
+ * @param system    host-wide memory
+ * @param processes every sampled process, largest footprint first
+ */
+public record MemorySnapshot(long tick, SystemMemory system, List<ProcessMemory> processes) {
+
+    public MemorySnapshot {
+        processes = List.copyOf(processes);
+    }
+}
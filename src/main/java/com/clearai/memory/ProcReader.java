@@ -0,0 +1,170 @@
+package com.clearai.memory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads small {@code /proc} files into a reusable byte buffer and pulls
+ * numbers out of them without regular expressions, string splitting or any
+ * per-field allocation.
+ *
+ * <p>Not thread-safe; each sampling thread owns one reader.
+ */
+final class ProcReader {
+
+    private byte[] buffer = new byte[4096];
+    private ByteBuffer view = ByteBuffer.wrap(buffer);
+    private int length;
+
+    /** Reads the whole file; returns false if it is missing or unreadable, e.g. because the process exited. */
+    boolean read(String path) {
+        try (FileInputStream in = new FileInputStream(path)) {
+            length = 0;
+            int n;
+            while ((n = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += n;
+                if (length == buffer.length) {
+                    grow();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            length = 0;
+            return false;
+        }
+    }
+
+    /**
+     * Re-reads a procfs file through a handle kept open across ticks; procfs
+     * regenerates the content on every read from offset 0, and a positional
+     * read saves the open and close system calls. Returns false if the read
+     * fails, typically because the process is gone.
+     */
+    boolean read(FileChannel channel) {
+        try {
+            view.clear();
+            int n;
+            while ((n = channel.read(view, view.position())) > 0) {
+                if (!view.hasRemaining()) {
+                    int position = view.position();
+                    grow();
+                    view.position(position);
+                }
+            }
+            length = view.position();
+            return length > 0;
+        } catch (IOException e) {
+            length = 0;
+            return false;
+        }
+    }
+
+    private void grow() {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        view = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Returns the {@code index}-th whitespace-separated number of the content,
+     * as in {@code statm}, or -1 if there are fewer numbers.
+     */
+    long number(int index) {
+        int i = 0;
+        for (int n = 0; ; n++) {
+            while (i < length && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i >= length) {
+                return -1;
+            }
+            if (n == index) {
+                return parseNumber(i);
+            }
+            while (i < length && !isSpace(buffer[i])) {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Scans {@code Key: value kB} lines in a single pass and stores the value of
+     * each of {@code keys} in the matching slot of {@code out}. Keys are given
+     * with their trailing colon. Missing keys leave -1.
+     */
+    void fields(byte[][] keys, long[] out) {
+        Arrays.fill(out, -1);
+        int i = 0;
+        while (i < length) {
+            for (int k = 0; k < keys.length; k++) {
+                if (out[k] < 0 && startsWith(i, keys[k])) {
+                    out[k] = parseNumber(i + keys[k].length);
+                    break;
+                }
+            }
+            while (i < length && buffer[i] != '\n') {
+                i++;
+            }
+            i++;
+        }
+    }
+
+    /** Returns the rest of the line after {@code key}, trimmed, or {@code null} if no line starts with it. */
+    String text(byte[] key) {
+        int i = 0;
+        while (i < length) {
+            if (startsWith(i, key)) {
+                int start = i + key.length;
+                while (start < length && isSpace(buffer[start]) && buffer[start] != '\n') {
+                    start++;
+                }
+                int end = start;
+                while (end < length && buffer[end] != '\n') {
+                    end++;
+                }
+                return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+            }
+            while (i < length && buffer[i] != '\n') {
+                i++;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private boolean startsWith(int offset, byte[] key) {
+        if (offset + key.length > length) {
+            return false;
+        }
+        for (int j = 0; j < key.length; j++) {
+            if (buffer[offset + j] != key[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseNumber(int i) {
+        while (i < length && (buffer[i] == ' ' || buffer[i] == '\t')) {
+            i++;
+        }
+        long value = 0;
+        boolean digits = false;
+        while (i < length && buffer[i] >= '0' && buffer[i] <= '9') {
+            value = value * 10 + (buffer[i++] - '0');
+            digits = true;
+        }
+        return digits ? value : -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n';
+    }
+}
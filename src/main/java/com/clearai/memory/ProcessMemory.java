@@ -0,0 +1,23 @@
+package com.clearai.memory;
+
+/**
+ * Memory use of one process at the time of a snapshot, in bytes.
+ *
+ * @param pid          process id
+ * @param name         command name from {@code status}, or {@code null} if not read yet
+ * @param rss          resident set size
+ * @param shared       resident pages backed by files or shared memory
+ * @param swap         swapped-out anonymous memory
+ * @param pss          proportional set size from {@code smaps_rollup}, or -1 if not sampled
+ * @param privateDirty private dirty memory from {@code smaps_rollup}, or -1 if not sampled
+ * @param growth       RSS change across the remembered history
+ * @param samples      number of samples {@code growth} spans
+ */
+public record ProcessMemory(int pid, String name, long rss, long shared, long swap, long pss, long privateDirty,
+                            long growth, int samples) {
+
+    /** Best estimate of the memory this process alone accounts for: PSS if known, otherwise RSS. */
+    public long footprint() {
+        return pss >= 0 ? pss : rss;
+    }
+}
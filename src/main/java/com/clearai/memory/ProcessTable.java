@@ -0,0 +1,225 @@
+package com.clearai.memory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Per-process sampling state kept in parallel primitive arrays indexed by
+ * slot, with an open-addressing pid-to-slot map and a fixed-size RSS history
+ * ring per slot. Slots of exited processes are recycled, so after warm-up a
+ * sampling tick allocates nothing here.
+ *
+ * <p>Not thread-safe; owned by {@link MemorySampler}.
+ */
+final class ProcessTable {
+
+    static final int NONE = -1;
+
+    private final int historySize;
+    /** Slot + 1 per bucket, 0 for empty. */
+    private int[] buckets = new int[256];
+    private int size;
+    private int highWater;
+    private int[] free = new int[16];
+    private int freeCount;
+
+    int[] pids = new int[64];
+    String[] names = new String[64];
+    String[] statmPaths = new String[64];
+    FileChannel[] statmChannels = new FileChannel[64];
+    private int openChannels;
+    long[] lastSeen = new long[64];
+    long[] lastStatus = new long[64];
+    long[] rssKb = new long[64];
+    long[] sharedKb = new long[64];
+    long[] swapKb = new long[64];
+    long[] pssKb = new long[64];
+    long[] privateDirtyKb = new long[64];
+    private long[] history;
+    private int[] historyCount = new int[64];
+    private int[] historyHead = new int[64];
+
+    ProcessTable(int historySize) {
+        this.historySize = historySize;
+        this.history = new long[64 * historySize];
+    }
+
+    int openChannels() {
+        return openChannels;
+    }
+
+    void setChannel(int slot, FileChannel channel) {
+        closeChannel(slot);
+        statmChannels[slot] = channel;
+        openChannels++;
+    }
+
+    void closeChannel(int slot) {
+        FileChannel channel = statmChannels[slot];
+        if (channel != null) {
+            statmChannels[slot] = null;
+            openChannels--;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing to recover for a read-only procfs handle.
+            }
+        }
+    }
+
+    /** Releases every open handle. */
+    void closeChannels() {
+        for (int slot = 0; slot < highWater; slot++) {
+            closeChannel(slot);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Upper bound (exclusive) of slots ever handed out; slots below it may be free. */
+    int highWater() {
+        return highWater;
+    }
+
+    boolean inUse(int slot) {
+        return pids[slot] > 0;
+    }
+
+    int find(int pid) {
+        int mask = buckets.length - 1;
+        for (int i = hash(pid) & mask; ; i = (i + 1) & mask) {
+            int b = buckets[i];
+            if (b == 0) {
+                return NONE;
+            }
+            if (pids[b - 1] == pid) {
+                return b - 1;
+            }
+        }
+    }
+
+    /** Adds {@code pid}, which must not be present, and returns its cleared slot. */
+    int insert(int pid) {
+        if ((size + 1) * 2 > buckets.length) {
+            rehash(buckets.length * 2);
+        }
+        int slot = freeCount > 0 ? free[--freeCount] : highWater++;
+        if (slot >= pids.length) {
+            grow(pids.length * 2);
+        }
+        pids[slot] = pid;
+        names[slot] = null;
+        statmPaths[slot] = null;
+        lastSeen[slot] = 0;
+        lastStatus[slot] = 0;
+        rssKb[slot] = sharedKb[slot] = swapKb[slot] = 0;
+        pssKb[slot] = privateDirtyKb[slot] = -1;
+        historyCount[slot] = 0;
+        historyHead[slot] = 0;
+        int mask = buckets.length - 1;
+        int i = hash(pid) & mask;
+        while (buckets[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        buckets[i] = slot + 1;
+        size++;
+        return slot;
+    }
+
+    void remove(int slot) {
+        int mask = buckets.length - 1;
+        int i = hash(pids[slot]) & mask;
+        while (buckets[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        buckets[i] = 0;
+        // Backward-shift deletion keeps probe chains intact without tombstones.
+        for (int j = (i + 1) & mask; buckets[j] != 0; j = (j + 1) & mask) {
+            int home = hash(pids[buckets[j] - 1]) & mask;
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                buckets[i] = buckets[j];
+                buckets[j] = 0;
+                i = j;
+            }
+        }
+        closeChannel(slot);
+        pids[slot] = 0;
+        names[slot] = null;
+        statmPaths[slot] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+        size--;
+    }
+
+    /** Appends an RSS sample to the slot's history ring. */
+    void record(int slot, long kb) {
+        int head = historyHead[slot];
+        history[slot * historySize + head] = kb;
+        historyHead[slot] = head + 1 == historySize ? 0 : head + 1;
+        if (historyCount[slot] < historySize) {
+            historyCount[slot]++;
+        }
+    }
+
+    void clearHistory(int slot) {
+        historyCount[slot] = 0;
+        historyHead[slot] = 0;
+    }
+
+    /** Returns the slot's RSS history in kB, oldest first. */
+    long[] history(int slot) {
+        int count = historyCount[slot];
+        long[] out = new long[count];
+        int start = historyHead[slot] - count;
+        if (start < 0) {
+            start += historySize;
+        }
+        for (int i = 0; i < count; i++) {
+            int at = start + i;
+            out[i] = history[slot * historySize + (at >= historySize ? at - historySize : at)];
+        }
+        return out;
+    }
+
+    private void grow(int capacity) {
+        pids = Arrays.copyOf(pids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        statmPaths = Arrays.copyOf(statmPaths, capacity);
+        statmChannels = Arrays.copyOf(statmChannels, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+        lastStatus = Arrays.copyOf(lastStatus, capacity);
+        rssKb = Arrays.copyOf(rssKb, capacity);
+        sharedKb = Arrays.copyOf(sharedKb, capacity);
+        swapKb = Arrays.copyOf(swapKb, capacity);
+        pssKb = Arrays.copyOf(pssKb, capacity);
+        privateDirtyKb = Arrays.copyOf(privateDirtyKb, capacity);
+        history = Arrays.copyOf(history, capacity * historySize);
+        historyCount = Arrays.copyOf(historyCount, capacity);
+        historyHead = Arrays.copyOf(historyHead, capacity);
+    }
+
+    private void rehash(int capacity) {
+        buckets = new int[capacity];
+        int mask = capacity - 1;
+        for (int slot = 0; slot < highWater; slot++) {
+            if (pids[slot] > 0) {
+                int i = hash(pids[slot]) & mask;
+                while (buckets[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                buckets[i] = slot + 1;
+            }
+        }
+    }
+
+    private static int hash(int pid) {
+        int h = pid * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
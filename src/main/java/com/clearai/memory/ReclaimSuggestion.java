@@ -0,0 +1,24 @@
+package com.clearai.memory;
+
+/**
+ * Something the user could do to get memory back.
+ *
+ * @param kind    what kind of action is suggested
+ * @param pid     process concerned, or -1 for host-wide suggestions
+ * @param name    process name, or {@code null}
+ * @param bytes   memory the action is expected to free
+ * @param message human-readable explanation
+ */
+public record ReclaimSuggestion(Kind kind, int pid, String name, long bytes, String message) {
+
+    public enum Kind {
+        /** Available memory is low; closing the largest consumers helps most. */
+        CLOSE_LARGEST,
+        /** The process keeps growing and may be leaking; restarting it frees the growth. */
+        RESTART_GROWING,
+        /** The process has a lot of memory swapped out and is probably idle. */
+        CLOSE_IDLE_SWAPPED,
+        /** Many instances of one program add up to a large total. */
+        REDUCE_INSTANCES
+    }
+}
@@ -0,0 +1,121 @@
+package com.clearai.memory;
+
+/**
+ * Immutable settings for a {@link MemorySampler}. Create instances with {@link #builder()}.
+ */
+public final class SamplerOptions {
+
+    private final String procRoot;
+    private final int historySize;
+    private final int statusEveryTicks;
+    private final int rollupEveryTicks;
+    private final int rollupTopN;
+    private final int maxOpenFiles;
+
+    private SamplerOptions(Builder b) {
+        this.procRoot = b.procRoot;
+        this.historySize = b.historySize;
+        this.statusEveryTicks = b.statusEveryTicks;
+        this.rollupEveryTicks = b.rollupEveryTicks;
+        this.rollupTopN = b.rollupTopN;
+        this.maxOpenFiles = b.maxOpenFiles;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static SamplerOptions defaults() {
+        return builder().build();
+    }
+
+    /** Mount point of procfs. */
+    public String procRoot() {
+        return procRoot;
+    }
+
+    /** Number of RSS samples remembered per process. */
+    public int historySize() {
+        return historySize;
+    }
+
+    /** How often, in ticks, {@code status} is re-read for name and swap; {@code statm} is read every tick. */
+    public int statusEveryTicks() {
+        return statusEveryTicks;
+    }
+
+    /** How often, in ticks, {@code smaps_rollup} is read for the largest processes. */
+    public int rollupEveryTicks() {
+        return rollupEveryTicks;
+    }
+
+    /** Number of largest processes whose {@code smaps_rollup} is read. */
+    public int rollupTopN() {
+        return rollupTopN;
+    }
+
+    /** Maximum number of {@code statm} handles kept open between ticks; further processes are reopened each tick. */
+    public int maxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    public static final class Builder {
+
+        private String procRoot = "/proc";
+        private int historySize = 60;
+        private int statusEveryTicks = 30;
+        private int rollupEveryTicks = 60;
+        private int rollupTopN = 8;
+        private int maxOpenFiles = 1024;
+
+        private Builder() {
+        }
+
+        public Builder procRoot(String procRoot) {
+            this.procRoot = procRoot;
+            return this;
+        }
+
+        public Builder historySize(int historySize) {
+            this.historySize = positive("historySize", historySize);
+            return this;
+        }
+
+        public Builder statusEveryTicks(int statusEveryTicks) {
+            this.statusEveryTicks = positive("statusEveryTicks", statusEveryTicks);
+            return this;
+        }
+
+        public Builder rollupEveryTicks(int rollupEveryTicks) {
+            this.rollupEveryTicks = positive("rollupEveryTicks", rollupEveryTicks);
+            return this;
+        }
+
+        public Builder rollupTopN(int rollupTopN) {
+            if (rollupTopN < 0) {
+                throw new IllegalArgumentException("rollupTopN must not be negative: " + rollupTopN);
+            }
+            this.rollupTopN = rollupTopN;
+            return this;
+        }
+
+        public Builder maxOpenFiles(int maxOpenFiles) {
+            if (maxOpenFiles < 0) {
+                throw new IllegalArgumentException("maxOpenFiles must not be negative: " + maxOpenFiles);
+            }
+            this.maxOpenFiles = maxOpenFiles;
+            return this;
+        }
+
+        public SamplerOptions build() {
+            return new SamplerOptions(this);
+        }
+
+        private static int positive(String name, int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
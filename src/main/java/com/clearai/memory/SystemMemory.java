@@ -0,0 +1,12 @@
+package com.clearai.memory;
+
+/**
+ * Host-wide figures from {@code /proc/meminfo}, in bytes.
+ */
+public record SystemMemory(long total, long free, long available, long cached, long swapTotal, long swapFree) {
+
+    /** Fraction of memory the kernel could hand out without swapping. */
+    public double availableRatio() {
+        return total <= 0 ? 1.0 : (double) available / total;
+    }
+}
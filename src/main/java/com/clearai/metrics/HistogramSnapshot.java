@@ -0,0 +1,17 @@
+package com.clearai.metrics;
+
+/**
+ * Summary of a {@link LatencyHistogram} at one point in time. Percentiles are
+ * upper bounds of the bucket they fall in, so they overstate by at most about
+ * 3%.
+ *
+ * @param count number of recorded values
+ * @param mean  arithmetic mean
+ * @param p50   median
+ * @param p90   90th percentile
+ * @param p99   99th percentile
+ * @param p999  99.9th percentile
+ * @param max   largest recorded value
+ */
+public record HistogramSnapshot(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+}
@@ -0,0 +1,90 @@
+package com.clearai.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values, typically nanoseconds.
+ *
+ * <p>Buckets are laid out like HdrHistogram's: values below 32 get a bucket
+ * each, and every power of two above that is split into 32 linear
+ * sub-buckets, so any recorded value is known to within about 3% over the
+ * full {@code long} range with a fixed 1,888 counters (15 KiB). Recording
+ * is a bit scan and one atomic increment; reading walks the counters
+ * without stopping writers, so a snapshot taken under load may be off by
+ * the few values recorded while it was being read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Records one value; negative values are recorded as zero. */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.getAndIncrement(bucket(v));
+        total.increment();
+        sum.add(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /** Returns counts and percentiles of everything recorded so far. */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        long highest = max.get();
+        return new HistogramSnapshot(n, n == 0 ? 0 : sum.sum() / Math.max(1, total.sum()),
+                percentile(copy, n, 0.50, highest), percentile(copy, n, 0.90, highest),
+                percentile(copy, n, 0.99, highest), percentile(copy, n, 0.999, highest), highest);
+    }
+
+    static int bucket(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (magnitude - SUB_BITS)) & (SUB_COUNT - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /** Largest value that falls into bucket {@code index}. */
+    static long highestIn(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int magnitude = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        long lowest = (SUB_COUNT + sub) << (magnitude - SUB_BITS);
+        long width = 1L << (magnitude - SUB_BITS);
+        return lowest + (width - 1);
+    }
+
+    private static long percentile(long[] counts, long n, double p, long max) {
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max);
+            }
+        }
+        return max;
+    }
+}
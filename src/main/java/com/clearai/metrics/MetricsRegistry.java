@@ -0,0 +1,119 @@
+package com.clearai.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * The set of pipeline stages being measured.
+ *
+ * <p>Components look their stage up once, usually into a static field, and
+ * record into it from then on. The figures are published three ways, each
+ * opt-in: JMX beans ({@link #registerMBeans()}), a periodic JFR event
+ * ({@link #registerFlightRecorder()}) and a local HTTP endpoint
+ * ({@link MetricsServer}).
+ */
+public final class MetricsRegistry {
+
+    /** Whether recording is on; set {@code -Dclearai.metrics=false} to turn it off. */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("clearai.metrics"));
+
+    public static final String SCAN = "scan";
+    public static final String CLASSIFY = "classify";
+    public static final String HASH = "hash";
+    public static final String RECOMMEND = "recommend";
+    public static final String DELETE = "delete";
+    public static final String ARCHIVE = "archive";
+    public static final String WATCH = "watch";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+    private boolean mbeansRegistered;
+    private Runnable flightRecorderHook;
+
+    /** Registry the application's components record into. */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /** Returns the metrics of stage {@code name}, creating them on first use. */
+    public StageMetrics stage(String name) {
+        StageMetrics stage = stages.get(name);
+        if (stage != null) {
+            return stage;
+        }
+        stage = stages.computeIfAbsent(name, StageMetrics::new);
+        synchronized (this) {
+            if (mbeansRegistered) {
+                register(ManagementFactory.getPlatformMBeanServer(), stage);
+            }
+        }
+        return stage;
+    }
+
+    /** Returns a snapshot of every stage, ordered by name. */
+    public List<StageSnapshot> snapshot() {
+        List<StageSnapshot> out = new ArrayList<>(stages.size());
+        for (StageMetrics stage : stages.values()) {
+            out.add(stage.snapshot());
+        }
+        out.sort((a, b) -> a.stage().compareTo(b.stage()));
+        return out;
+    }
+
+    /** Registers a {@link StageMXBean} per stage, including stages created later, with the platform MBean server. */
+    public synchronized void registerMBeans() {
+        if (mbeansRegistered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (StageMetrics stage : stages.values()) {
+            register(server, stage);
+        }
+        mbeansRegistered = true;
+    }
+
+    /** Emits a {@code com.clearai.StageStatistics} JFR event per stage every period of an active recording. */
+    public synchronized void registerFlightRecorder() {
+        if (flightRecorderHook != null) {
+            return;
+        }
+        flightRecorderHook = () -> {
+            for (StageSnapshot s : snapshot()) {
+                StageStatisticsEvent event = new StageStatisticsEvent();
+                event.stage = s.stage();
+                event.operations = s.operations();
+                event.items = s.items();
+                event.bytes = s.bytes();
+                event.errors = s.errors();
+                event.itemsPerSecond = s.itemsPerSecond();
+                event.queueDepth = s.queueDepth();
+                event.p50 = s.latency().p50();
+                event.p99 = s.latency().p99();
+                event.max = s.latency().max();
+                event.commit();
+            }
+        };
+        FlightRecorder.addPeriodicEvent(StageStatisticsEvent.class, flightRecorderHook);
+    }
+
+    private static void register(MBeanServer server, StageMetrics stage) {
+        try {
+            ObjectName name = new ObjectName("com.clearai:type=Stage,name=" + stage.name());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StageMXBeanImpl(stage), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register metrics of stage " + stage.name(), e);
+        }
+    }
+}
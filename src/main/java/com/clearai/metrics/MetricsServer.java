@@ -0,0 +1,124 @@
+package com.clearai.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} over HTTP on the loopback
+ * interface, in the Prometheus text exposition format, at {@code /metrics}.
+ * Latencies are exported as summaries in seconds.
+ */
+public final class MetricsServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts serving on {@code 127.0.0.1:port}; port 0 picks a free port.
+     */
+    public static MetricsServer start(MetricsRegistry registry, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> respond(exchange, registry));
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "clear-ai-metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+        return new MetricsServer(server);
+    }
+
+    /** The address actually bound. */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render(registry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    static String render(MetricsRegistry registry) {
+        List<StageSnapshot> stages = registry.snapshot();
+        StringBuilder out = new StringBuilder(4096);
+        // Prometheus wants every sample of a metric family in one group, after its TYPE line.
+        counter(out, stages, "clearai_stage_operations_total", "Timed operations per stage.", StageSnapshot::operations);
+        counter(out, stages, "clearai_stage_items_total", "Items processed per stage.", StageSnapshot::items);
+        counter(out, stages, "clearai_stage_bytes_total", "Bytes processed per stage.", StageSnapshot::bytes);
+        counter(out, stages, "clearai_stage_errors_total", "Failed items per stage.", StageSnapshot::errors);
+        header(out, "clearai_stage_items_per_second", "gauge", "Recent item throughput per stage.");
+        for (StageSnapshot s : stages) {
+            sample(out, "clearai_stage_items_per_second", labels(s), s.itemsPerSecond());
+        }
+        header(out, "clearai_stage_queue_depth", "gauge", "Work waiting per stage.");
+        for (StageSnapshot s : stages) {
+            sample(out, "clearai_stage_queue_depth", labels(s), s.queueDepth());
+        }
+        header(out, "clearai_stage_latency_seconds", "summary", "Latency of timed operations per stage.");
+        for (StageSnapshot s : stages) {
+            HistogramSnapshot l = s.latency();
+            String stage = labels(s);
+            sample(out, "clearai_stage_latency_seconds", stage + ",quantile=\"0.5\"", l.p50() / 1e9);
+            sample(out, "clearai_stage_latency_seconds", stage + ",quantile=\"0.9\"", l.p90() / 1e9);
+            sample(out, "clearai_stage_latency_seconds", stage + ",quantile=\"0.99\"", l.p99() / 1e9);
+            sample(out, "clearai_stage_latency_seconds", stage + ",quantile=\"0.999\"", l.p999() / 1e9);
+            sample(out, "clearai_stage_latency_seconds_sum", stage, l.mean() * (double) l.count() / 1e9);
+            sample(out, "clearai_stage_latency_seconds_count", stage, l.count());
+        }
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, List<StageSnapshot> stages, String name, String help,
+            ToLongFunction<StageSnapshot> value) {
+        header(out, name, "counter", help);
+        for (StageSnapshot s : stages) {
+            sample(out, name, labels(s), value.applyAsLong(s));
+        }
+    }
+
+    /** Opening label set of a stage; callers append further labels and the closing brace is added by sample. */
+    private static String labels(StageSnapshot s) {
+        return "{stage=\"" + s.stage() + "\"";
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append("} ").append(String.format(Locale.ROOT, "%.6g", value)).append('\n');
+    }
+}
@@ -0,0 +1,28 @@
+package com.clearai.metrics;
+
+/**
+ * JMX view of one pipeline stage, registered as
+ * {@code com.clearai:type=Stage,name=<stage>}. Latencies are in microseconds.
+ */
+public interface StageMXBean {
+
+    long getOperations();
+
+    long getItems();
+
+    long getBytes();
+
+    long getErrors();
+
+    double getItemsPerSecond();
+
+    long getQueueDepth();
+
+    double getLatencyMeanMicros();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    double getLatencyMaxMicros();
+}
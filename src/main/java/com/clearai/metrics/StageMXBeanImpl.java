@@ -0,0 +1,61 @@
+package com.clearai.metrics;
+
+/** Reads a fresh {@link StageSnapshot} for every attribute; JMX clients poll rarely. */
+final class StageMXBeanImpl implements StageMXBean {
+
+    private final StageMetrics stage;
+
+    StageMXBeanImpl(StageMetrics stage) {
+        this.stage = stage;
+    }
+
+    @Override
+    public long getOperations() {
+        return stage.snapshot().operations();
+    }
+
+    @Override
+    public long getItems() {
+        return stage.snapshot().items();
+    }
+
+    @Override
+    public long getBytes() {
+        return stage.snapshot().bytes();
+    }
+
+    @Override
+    public long getErrors() {
+        return stage.snapshot().errors();
+    }
+
+    @Override
+    public double getItemsPerSecond() {
+        return stage.snapshot().itemsPerSecond();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return stage.snapshot().queueDepth();
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return stage.snapshot().latency().mean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return stage.snapshot().latency().p50() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return stage.snapshot().latency().p99() / 1e3;
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return stage.snapshot().latency().max() / 1e3;
+    }
+}
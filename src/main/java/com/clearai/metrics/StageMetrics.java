@@ -0,0 +1,116 @@
+package com.clearai.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, throughput, queue depth and latency of one pipeline stage.
+ *
+ * <p>Recording never locks: counters are {@link LongAdder}s and latencies go
+ * into a {@link LatencyHistogram}. Stages whose operations take less than a
+ * few microseconds, such as classifying one path, count them in thread-local
+ * state and record one timed operation covering {@link #SAMPLE_RATE} items,
+ * so neither clock reads nor shared counters show up in their cost.
+ * When metrics are disabled with {@code -Dclearai.metrics=false} every
+ * recording method returns immediately, and the JIT drops the calls.
+ */
+public final class StageMetrics {
+
+    /**
+     * Sampling interval for operations too short to time individually; a
+     * power of two, so callers can test a counter with a mask.
+     */
+    public static final int SAMPLE_RATE = 64;
+    /** Minimum age of the reference point used for {@link StageSnapshot#itemsPerSecond()}. */
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final String name;
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final List<LongSupplier> queues = new CopyOnWriteArrayList<>();
+
+    // Throughput reference points, guarded by this; only touched by readers.
+    private long previousNanos = System.nanoTime();
+    private long previousItems;
+    private long currentNanos = previousNanos;
+    private long currentItems;
+
+    StageMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Returns the time to pass to {@link #record} when the operation ends. */
+    public long start() {
+        return MetricsRegistry.ENABLED ? System.nanoTime() : 0;
+    }
+
+    /** Records one operation that processed {@code items} and {@code bytes} and began at {@code start}. */
+    public void record(long items, long bytes, long start) {
+        if (!MetricsRegistry.ENABLED) {
+            return;
+        }
+        operations.increment();
+        latency.record(System.nanoTime() - start);
+        add(items, bytes);
+    }
+
+    /** Counts processed items and bytes without timing anything. */
+    public void add(long items, long bytes) {
+        if (!MetricsRegistry.ENABLED) {
+            return;
+        }
+        this.items.add(items);
+        if (bytes != 0) {
+            this.bytes.add(bytes);
+        }
+    }
+
+    public void error() {
+        if (MetricsRegistry.ENABLED) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Adds a queue whose depth counts towards this stage, until the returned
+     * registration is closed.
+     */
+    public Registration queue(LongSupplier depth) {
+        queues.add(depth);
+        return () -> queues.remove(depth);
+    }
+
+    public synchronized StageSnapshot snapshot() {
+        long now = System.nanoTime();
+        long count = items.sum();
+        if (now - currentNanos >= RATE_WINDOW_NANOS) {
+            previousNanos = currentNanos;
+            previousItems = currentItems;
+            currentNanos = now;
+            currentItems = count;
+        }
+        double rate = now == previousNanos ? 0 : (count - previousItems) * 1e9 / (now - previousNanos);
+        long depth = 0;
+        for (LongSupplier queue : queues) {
+            depth += queue.getAsLong();
+        }
+        return new StageSnapshot(name, operations.sum(), count, bytes.sum(), errors.sum(), rate, depth,
+                latency.snapshot());
+    }
+
+    /** Handle for undoing {@link #queue}. */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
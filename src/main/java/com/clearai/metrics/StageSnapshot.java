@@ -0,0 +1,17 @@
+package com.clearai.metrics;
+
+/**
+ * Figures of one pipeline stage at one point in time.
+ *
+ * @param stage          stage name
+ * @param operations     number of timed operations, such as directories listed or batches deleted
+ * @param items          number of items processed, such as files or paths
+ * @param bytes          bytes processed, where the stage deals in bytes
+ * @param errors         number of failed items
+ * @param itemsPerSecond item throughput over roughly the last few seconds
+ * @param queueDepth     work waiting to be picked up, summed over the stage's queues
+ * @param latency        nanoseconds per timed operation
+ */
+public record StageSnapshot(String stage, long operations, long items, long bytes, long errors,
+        double itemsPerSecond, long queueDepth, HistogramSnapshot latency) {
+}
@@ -0,0 +1,59 @@
+package com.clearai.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Periodic JFR event with the cumulative figures of one pipeline stage,
+ * emitted once per stage each period while a recording has it enabled.
+ * Consume it live with {@code jdk.jfr.consumer.RecordingStream}.
+ */
+@Name("com.clearai.StageStatistics")
+@Label("Stage Statistics")
+@Category("Clear AI")
+@Description("Counters and latency percentiles of one pipeline stage")
+@Period("1 s")
+@StackTrace(false)
+final class StageStatisticsEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Operations")
+    long operations;
+
+    @Label("Items")
+    long items;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Errors")
+    long errors;
+
+    @Label("Items per Second")
+    double itemsPerSecond;
+
+    @Label("Queue Depth")
+    long queueDepth;
+
+    @Label("Median Latency")
+    @Timespan
+    long p50;
+
+    @Label("99th Percentile Latency")
+    @Timespan
+    long p99;
+
+    @Label("Maximum Latency")
+    @Timespan
+    long max;
+}
@@ -0,0 +1,26 @@
+package com.clearai.recommend;
+
+import com.clearai.classify.Rule;
+
+import java.nio.file.Path;
+
+/**
+ * What a {@link RecommendationModel} knows about a file.
+ *
+ * @param path         the file
+ * @param size         size in bytes
+ * @param lastModified modification time in milliseconds since the epoch
+ * @param rule         classification rule that matched the file, or {@code null}
+ * @param contentHash  hex content hash if one is known, or {@code null}
+ */
+public record FileFeatures(Path path, long size, long lastModified, Rule rule, String contentHash) {
+
+    public FileFeatures(Path path, long size, long lastModified, Rule rule) {
+        this(path, size, lastModified, rule, null);
+    }
+
+    /** Days since last modification at {@code now}, never negative. */
+    public long ageDays(long now) {
+        return Math.max(0, (now - lastModified) / 86_400_000L);
+    }
+}
@@ -0,0 +1,82 @@
+package com.clearai.recommend;
+
+import com.clearai.classify.Category;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Offline stand-in for a learned model: scores files from their
+ * classification, size and age with fixed rules of thumb. Always available,
+ * so recommendations work without any model runtime installed.
+ */
+public final class HeuristicModel implements RecommendationModel {
+
+    private static final long MIB = 1024 * 1024;
+    private static final long STALE_DAYS = 30;
+    private static final long UNTOUCHED_DAYS = 365;
+    private static final long LARGE_LOG = 10 * MIB;
+    private static final long LARGE_FILE = 100 * MIB;
+    private static final long[] SIZE_THRESHOLDS = {LARGE_LOG, LARGE_FILE};
+    private static final long[] AGE_THRESHOLDS = {STALE_DAYS, UNTOUCHED_DAYS};
+
+    private final Clock clock;
+
+    public HeuristicModel() {
+        this(Clock.systemUTC());
+    }
+
+    public HeuristicModel(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    @Override
+    public List<Recommendation> score(List<FileFeatures> batch) {
+        long now = clock.millis();
+        List<Recommendation> out = new ArrayList<>(batch.size());
+        for (FileFeatures f : batch) {
+            out.add(score(f, now));
+        }
+        return out;
+    }
+
+    @Override
+    public long[] sizeThresholds() {
+        return SIZE_THRESHOLDS;
+    }
+
+    @Override
+    public long[] ageThresholds() {
+        return AGE_THRESHOLDS;
+    }
+
+    private static Recommendation score(FileFeatures f, long now) {
+        long age = f.ageDays(now);
+        Category category = f.rule() == null ? null : f.rule().category();
+        if (category == null) {
+            if (age > UNTOUCHED_DAYS && f.size() > LARGE_FILE) {
+                return new Recommendation(Recommendation.Action.REVIEW, 0.3,
+                        "large file untouched for over a year");
+            }
+            return new Recommendation(Recommendation.Action.KEEP, 0.9, "no cleanup rule applies");
+        }
+        return switch (category) {
+            case TEMP -> new Recommendation(Recommendation.Action.DELETE, 0.9, "temporary file");
+            case CACHE -> new Recommendation(Recommendation.Action.DELETE, age > STALE_DAYS ? 0.9 : 0.7,
+                    "cache data the application can rebuild");
+            case BUILD -> age > STALE_DAYS
+                    ? new Recommendation(Recommendation.Action.DELETE, 0.8, "stale build output")
+                    : new Recommendation(Recommendation.Action.REVIEW, 0.5, "build output of a recent build");
+            case LOG -> age > STALE_DAYS
+                    ? new Recommendation(Recommendation.Action.DELETE, 0.8, "log older than a month")
+                    : f.size() > LARGE_LOG
+                    ? new Recommendation(Recommendation.Action.ARCHIVE, 0.6, "large recent log")
+                    : new Recommendation(Recommendation.Action.KEEP, 0.6, "recent log");
+            case DOWNLOAD -> f.size() > LARGE_FILE
+                    ? new Recommendation(Recommendation.Action.ARCHIVE, 0.6, "large download not opened in months")
+                    : new Recommendation(Recommendation.Action.REVIEW, 0.6, "download not opened in months");
+        };
+    }
+}
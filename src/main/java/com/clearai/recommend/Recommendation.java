@@ -0,0 +1,22 @@
+package com.clearai.recommend;
+
+/**
+ * A model's verdict on one file.
+ *
+ * @param action     what to do with the file
+ * @param confidence how sure the model is, from 0 to 1
+ * @param reason     short human-readable explanation
+ */
+public record Recommendation(Action action, double confidence, String reason) {
+
+    public enum Action {
+        /** Safe to delete; it is regenerated or no longer needed. */
+        DELETE,
+        /** Rarely needed but worth keeping; compress it. */
+        ARCHIVE,
+        /** Could go, but the user should decide. */
+        REVIEW,
+        /** Leave it alone. */
+        KEEP
+    }
+}
@@ -0,0 +1,90 @@
+package com.clearai.recommend;
+
+import java.nio.file.Path;
+
+/**
+ * Derives the cache key under which a recommendation is stored, so that files
+ * that look the same to the model are scored once.
+ *
+ * <ul>
+ *   <li>A file with a known content hash is keyed by that hash and by the
+ *       rule that matched it, if any: the model's verdict depends on the
+ *       category, so a copy outside {@code node_modules} must not inherit
+ *       the verdict of one inside it.</li>
+ *   <li>A classified file is keyed by the rule that matched it, so every file
+ *       under any {@code node_modules} or {@code ~/.cache} shares one key per
+ *       size and age bucket.</li>
+ *   <li>Anything else is keyed by a path pattern: its parent directory with
+ *       digits folded, plus its extension.</li>
+ * </ul>
+ * Size and age are folded into power-of-two buckets, so keys stay few while
+ * the model still sees the magnitude it decides on. Buckets do not line up
+ * with thresholds such as "older than 30 days", so the key also records
+ * which of the model's {@link RecommendationModel#sizeThresholds() size} and
+ * {@link RecommendationModel#ageThresholds() age} thresholds the file exceeds.
+ */
+public final class RecommendationKeys {
+
+    private RecommendationKeys() {
+    }
+
+    /** Returns the key for a model without thresholds. */
+    public static String of(FileFeatures f, long now) {
+        return of(f, now, RecommendationModel.NO_THRESHOLDS, RecommendationModel.NO_THRESHOLDS);
+    }
+
+    public static String of(FileFeatures f, long now, long[] sizeThresholds, long[] ageThresholds) {
+        long age = f.ageDays(now);
+        String buckets = "|s" + log2(f.size()) + '.' + exceeded(f.size(), sizeThresholds)
+                + "|a" + log2(age) + '.' + exceeded(age, ageThresholds);
+        String rule = f.rule() == null ? null : f.rule().priority() + ":" + f.rule().pattern();
+        if (f.contentHash() != null) {
+            return "hash:" + f.contentHash() + "|r" + (rule == null ? "" : rule) + buckets;
+        }
+        if (rule != null) {
+            return "rule:" + rule + buckets;
+        }
+        Path parent = f.path().getParent();
+        return "path:" + (parent == null ? "" : foldDigits(parent.toString())) + "|*" + extension(f.path()) + buckets;
+    }
+
+    private static int log2(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static int exceeded(long value, long[] thresholds) {
+        int n = 0;
+        for (long threshold : thresholds) {
+            if (value > threshold) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static String extension(Path path) {
+        Path name = path.getFileName();
+        if (name == null) {
+            return "";
+        }
+        String s = name.toString();
+        int dot = s.lastIndexOf('.');
+        return dot <= 0 ? "" : s.substring(dot);
+    }
+
+    private static String foldDigits(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        boolean inDigits = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+            if (!digit) {
+                out.append(c);
+            } else if (!inDigits) {
+                out.append('#');
+            }
+            inDigits = digit;
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.clearai.recommend;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link RecommendationService}. Updated without locks and
+ * readable at any time; figures read together are not an atomic snapshot.
+ */
+public final class RecommendationMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedItems = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+    private final AtomicLong lastBatchNanos = new AtomicLong();
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordBatch(int size, long nanos) {
+        batches.increment();
+        batchedItems.add(size);
+        batchNanos.add(nanos);
+        lastBatchNanos.set(nanos);
+        maxBatchNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Recommendations requested. */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /** Requests answered from the cache. */
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    /** Requests that joined an identical request already waiting for the model. */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /** Fraction of requests that did not need their own model evaluation. */
+    public double hitRate() {
+        long r = requests();
+        return r == 0 ? 0 : (cacheHits() + coalesced()) / (double) r;
+    }
+
+    /** Model invocations. */
+    public long batches() {
+        return batches.sum();
+    }
+
+    public double averageBatchSize() {
+        long b = batches();
+        return b == 0 ? 0 : (double) batchedItems.sum() / b;
+    }
+
+    public Duration averageBatchLatency() {
+        long b = batches();
+        return Duration.ofNanos(b == 0 ? 0 : batchNanos.sum() / b);
+    }
+
+    public Duration lastBatchLatency() {
+        return Duration.ofNanos(lastBatchNanos.get());
+    }
+
+    public Duration maxBatchLatency() {
+        return Duration.ofNanos(maxBatchNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d requests, %.1f%% hit rate, %,d batches of %.1f avg, latency avg %d us max %d us",
+                requests(), hitRate() * 100, batches(), averageBatchSize(),
+                averageBatchLatency().toNanos() / 1000, maxBatchLatency().toNanos() / 1000);
+    }
+}
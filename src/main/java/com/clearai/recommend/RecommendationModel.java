@@ -0,0 +1,41 @@
+package com.clearai.recommend;
+
+import java.util.List;
+
+/**
+ * Scores files for cleanup. Implementations run locally; a model backed by a
+ * heavier local runtime is expected to amortise its per-call cost over a
+ * batch, which is why the interface is batch-only.
+ *
+ * <p>Implementations must be stateless with respect to the batch: the
+ * verdict for a file may only depend on the features its
+ * {@link RecommendationKeys cache key} captures, since verdicts are reused
+ * for every file with the same key.
+ */
+public interface RecommendationModel {
+
+    long[] NO_THRESHOLDS = new long[0];
+
+    /** Returns one recommendation per element of {@code batch}, in the same order. */
+    List<Recommendation> score(List<FileFeatures> batch);
+
+    /**
+     * Sizes in bytes at which the verdict changes, as in {@code size > threshold}.
+     * The cache key records on which side of each the file lies, so files
+     * that only differ across one are never given each other's verdict. The
+     * array is shared and must not be modified.
+     */
+    default long[] sizeThresholds() {
+        return NO_THRESHOLDS;
+    }
+
+    /** Ages in days at which the verdict changes, as in {@code ageDays > threshold}; see {@link #sizeThresholds()}. */
+    default long[] ageThresholds() {
+        return NO_THRESHOLDS;
+    }
+
+    /** Short name used in metrics and logs. */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,111 @@
+package com.clearai.recommend;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable settings for a {@link RecommendationService}. Create instances with {@link #builder()}.
+ */
+public final class RecommendationOptions {
+
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final int cacheCapacity;
+    private final int queueCapacity;
+    private final Clock clock;
+
+    private RecommendationOptions(Builder b) {
+        this.batchSize = b.batchSize;
+        this.maxDelay = b.maxDelay;
+        this.cacheCapacity = b.cacheCapacity;
+        this.queueCapacity = b.queueCapacity;
+        this.clock = b.clock;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static RecommendationOptions defaults() {
+        return builder().build();
+    }
+
+    /** Maximum number of files sent to the model in one call. */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /** Longest time a request waits for its batch to fill before the batch is sent anyway. */
+    public Duration maxDelay() {
+        return maxDelay;
+    }
+
+    /** Maximum number of cached recommendations. */
+    public int cacheCapacity() {
+        return cacheCapacity;
+    }
+
+    /** Maximum number of requests waiting for the model; callers block beyond it. */
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /** Clock used to compute file ages for cache keys. */
+    public Clock clock() {
+        return clock;
+    }
+
+    public static final class Builder {
+
+        private int batchSize = 256;
+        private Duration maxDelay = Duration.ofMillis(20);
+        private int cacheCapacity = 100_000;
+        private int queueCapacity = 65_536;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay.isNegative()) {
+                throw new IllegalArgumentException("maxDelay must not be negative: " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder cacheCapacity(int cacheCapacity) {
+            if (cacheCapacity < 1) {
+                throw new IllegalArgumentException("cacheCapacity must be positive: " + cacheCapacity);
+            }
+            this.cacheCapacity = cacheCapacity;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock, "clock");
+            return this;
+        }
+
+        public RecommendationOptions build() {
+            return new RecommendationOptions(this);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.clearai.recommend;
+
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Front end of a {@link RecommendationModel}: answers from an LRU cache where
+ * it can, and otherwise queues the file for a background thread that sends
+ * files to the model in batches.
+ *
+ * <p>A batch is sent when it reaches {@link RecommendationOptions#batchSize()}
+ * or when its oldest request has waited {@link RecommendationOptions#maxDelay()}.
+ * Requests whose cache key is already waiting for the model share that
+ * evaluation rather than adding another. {@link #recommend} may be called from
+ * any number of threads, for example straight from a scan.
+ */
+public final class RecommendationService implements AutoCloseable {
+
+    private static final Request SHUTDOWN = new Request(null, null, null);
+    private static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.RECOMMEND);
+
+    private final RecommendationModel model;
+    private final RecommendationOptions options;
+    private final long[] sizeThresholds;
+    private final long[] ageThresholds;
+    private final LruCache<String, Recommendation> cache;
+    private final Map<String, CompletableFuture<Recommendation>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Request> queue;
+    private final RecommendationMetrics metrics = new RecommendationMetrics();
+    private final Thread dispatcher;
+    private final StageMetrics.Registration queueGauge;
+    private volatile boolean closed;
+
+    public RecommendationService(RecommendationModel model, RecommendationOptions options) {
+        this.model = Objects.requireNonNull(model, "model");
+        this.options = Objects.requireNonNull(options, "options");
+        this.sizeThresholds = model.sizeThresholds();
+        this.ageThresholds = model.ageThresholds();
+        this.cache = new LruCache<>(options.cacheCapacity());
+        this.queue = new LinkedBlockingQueue<>(options.queueCapacity());
+        this.queueGauge = METRICS.queue(queue::size);
+        this.dispatcher = new Thread(this::dispatch, "clear-ai-recommend-" + model.name());
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public RecommendationMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the recommendation for {@code file}, completed immediately on a
+     * cache hit. Blocks while the request queue is full.
+     *
+     * @throws IllegalStateException if the service has been closed
+     */
+    public CompletableFuture<Recommendation> recommend(FileFeatures file) {
+        if (closed) {
+            throw new IllegalStateException("service closed");
+        }
+        metrics.recordRequest();
+        METRICS.add(1, 0);
+        String key = RecommendationKeys.of(file, options.clock().millis(), sizeThresholds, ageThresholds);
+        Recommendation cached = cache.get(key);
+        if (cached != null) {
+            metrics.recordCacheHit();
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Recommendation> future = new CompletableFuture<>();
+        CompletableFuture<Recommendation> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            metrics.recordCoalesced();
+            return existing;
+        }
+        try {
+            queue.put(new Request(key, file, future));
+        } catch (InterruptedException e) {
+            inFlight.remove(key, future);
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /** Number of recommendations currently cached. */
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    /** Number of requests waiting for the model. */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /** Sends whatever is queued, waits for it to be scored and stops the background thread. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(SHUTDOWN);
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        queueGauge.close();
+    }
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(options.batchSize());
+        long maxDelay = options.maxDelay().toNanos();
+        boolean running = true;
+        while (running) {
+            try {
+                Request first = queue.take();
+                if (first == SHUTDOWN) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay;
+                while (batch.size() < options.batchSize()) {
+                    Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == SHUTDOWN) {
+                        running = false;
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                evaluate(batch);
+                batch.clear();
+            }
+        }
+        // Requests that raced with close() after the shutdown marker.
+        for (Request r; (r = queue.poll()) != null; ) {
+            if (r != SHUTDOWN) {
+                inFlight.remove(r.key, r.future);
+                r.future.completeExceptionally(new IllegalStateException("service closed"));
+            }
+        }
+    }
+
+    private void evaluate(List<Request> batch) {
+        List<FileFeatures> features = new ArrayList<>(batch.size());
+        for (Request r : batch) {
+            features.add(r.features);
+        }
+        long start = System.nanoTime();
+        List<Recommendation> results;
+        try {
+            results = model.score(features);
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException(model.name() + " returned " + results.size()
+                        + " recommendations for " + batch.size() + " files");
+            }
+        } catch (RuntimeException e) {
+            for (Request r : batch) {
+                METRICS.error();
+                inFlight.remove(r.key, r.future);
+                r.future.completeExceptionally(e);
+            }
+            return;
+        }
+        metrics.recordBatch(batch.size(), System.nanoTime() - start);
+        METRICS.record(0, 0, start);
+        for (int i = 0; i < batch.size(); i++) {
+            Request r = batch.get(i);
+            cache.put(r.key, results.get(i));
+            inFlight.remove(r.key, r.future);
+            r.future.complete(results.get(i));
+        }
+    }
+
+    private record Request(String key, FileFeatures features, CompletableFuture<Recommendation> future) {
+    }
+}
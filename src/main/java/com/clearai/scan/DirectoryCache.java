@@ -0,0 +1,34 @@
+package com.clearai.scan;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Lets a {@link FileScanner} skip listing directories that have not changed
+ * since an earlier scan.
+ *
+ * <p>Before listing a directory the scanner asks {@link #lookup} for a cached
+ * listing that is still valid for the directory's current attributes. If one is
+ * returned its entries are replayed instead of reading the directory;
+ * subdirectories are still visited, since changes below a directory do not
+ * touch its own modification time. Otherwise the directory is listed and the
+ * fresh result handed to {@link #update}.
+ *
+ * <p>Methods are called concurrently from the scanner's worker threads.
+ */
+public interface DirectoryCache {
+
+    /** Returns the cached listing of {@code dir} if it is still current, otherwise {@code null}. */
+    DirectoryListing lookup(Path dir, BasicFileAttributes attrs);
+
+    /** Records a listing that was just read from disk. */
+    void update(Path dir, BasicFileAttributes attrs, DirectoryListing listing);
+
+    /** Called before the first directory of a scan is looked up. */
+    default void scanStarted(Path root) {
+    }
+
+    /** Called after the last directory of a scan has been visited. */
+    default void scanFinished(Path root) {
+    }
+}
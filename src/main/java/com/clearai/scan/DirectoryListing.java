@@ -0,0 +1,119 @@
+package com.clearai.scan;
+
+import java.util.Arrays;
+
+/**
+ * The entries of one directory as seen by a single listing: regular files with
+ * their size and modification time, and the names of subdirectories.
+ *
+ * <p>Listings are recorded unfiltered, so a cached listing can be replayed
+ * under different {@link ScanOptions}. Files are sorted by name.
+ */
+public final class DirectoryListing {
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private final String[] fileNames;
+    private final long[] fileSizes;
+    private final long[] fileModified;
+    private final String[] subdirectories;
+
+    public DirectoryListing(String[] fileNames, long[] fileSizes, long[] fileModified, String[] subdirectories) {
+        if (fileSizes.length != fileNames.length || fileModified.length != fileNames.length) {
+            throw new IllegalArgumentException("file columns differ in length");
+        }
+        this.fileNames = fileNames;
+        this.fileSizes = fileSizes;
+        this.fileModified = fileModified;
+        this.subdirectories = subdirectories;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int fileCount() {
+        return fileNames.length;
+    }
+
+    public String fileName(int i) {
+        return fileNames[i];
+    }
+
+    public long fileSize(int i) {
+        return fileSizes[i];
+    }
+
+    /** Modification time in milliseconds since the epoch. */
+    public long fileModified(int i) {
+        return fileModified[i];
+    }
+
+    /** Returns the position of the file called {@code name}, or a negative value if absent. */
+    public int indexOfFile(String name) {
+        return Arrays.binarySearch(fileNames, name);
+    }
+
+    public int subdirectoryCount() {
+        return subdirectories.length;
+    }
+
+    public String subdirectory(int i) {
+        return subdirectories[i];
+    }
+
+    /** Accumulates entries while a directory is being listed. Not thread-safe. */
+    public static final class Builder {
+
+        private String[] names = NO_NAMES;
+        private long[] sizes = NO_LONGS;
+        private long[] modified = NO_LONGS;
+        private int files;
+        private String[] subdirs = NO_NAMES;
+        private int dirs;
+
+        private Builder() {
+        }
+
+        public Builder addFile(String name, long size, long lastModified) {
+            if (files == names.length) {
+                int capacity = Math.max(8, files * 2);
+                names = Arrays.copyOf(names, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                modified = Arrays.copyOf(modified, capacity);
+            }
+            names[files] = name;
+            sizes[files] = size;
+            modified[files] = lastModified;
+            files++;
+            return this;
+        }
+
+        public Builder addSubdirectory(String name) {
+            if (dirs == subdirs.length) {
+                subdirs = Arrays.copyOf(subdirs, Math.max(4, dirs * 2));
+            }
+            subdirs[dirs++] = name;
+            return this;
+        }
+
+        public DirectoryListing build() {
+            Integer[] order = new Integer[files];
+            for (int i = 0; i < files; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+            String[] sortedNames = new String[files];
+            long[] sortedSizes = new long[files];
+            long[] sortedModified = new long[files];
+            for (int i = 0; i < files; i++) {
+                int from = order[i];
+                sortedNames[i] = names[from];
+                sortedSizes[i] = sizes[from];
+                sortedModified[i] = modified[from];
+            }
+            return new DirectoryListing(sortedNames, sortedSizes, sortedModified, Arrays.copyOf(subdirs, dirs));
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.clearai.scan;
+
+import com.clearai.io.Device;
+import com.clearai.io.IoOptions;
+import com.clearai.io.IoScheduler;
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Walks a directory tree in parallel and streams every entry to a {@link ScanListener}.
+ *
+ * <p>Each directory is listed by its own {@link CountedCompleter} task on a
+ * private {@link ForkJoinPool}; subdirectories are forked as they are found and
+ * nobody ever blocks in {@code join()}, so deep trees do not grow the stack and
+ * idle workers steal whole subtrees from busy ones. A task only holds the path
+ * of the directory it is listing, so memory stays proportional to the scan
+ * frontier rather than to the size of the tree.
+ *
+ * <p>Where the platform offers a {@link SecureDirectoryStream} (Linux), entries
+ * are stat'ed relative to the open directory handle instead of resolving the
+ * full path from the root for every file.
+ *
+ * <p>If the options carry a {@link DirectoryCache}, directories whose cached
+ * listing is still valid are replayed from the cache instead of being read,
+ * which turns a repeat scan of a mostly unchanged tree into little more than a
+ * stat per directory.
+ *
+ * <p>Directory reads go through an {@link IoScheduler}, which caps how many
+ * run at once on each device and, on spinning disks, starts waiting ones in
+ * path order. A task whose device is busy does not block its worker: it
+ * parks in the device's queue and is handed back to the scanner's pool when
+ * a slot frees up. The slot is given back however the directory ends, so a
+ * listener that throws fails the scan without starving the device for scans
+ * that share the scheduler.
+ *
+ * <p>A scanner may be reused for several scans, but not concurrently.
+ */
+public final class FileScanner implements AutoCloseable {
+
+    private static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.SCAN);
+
+    private final ScanOptions options;
+    private final ForkJoinPool pool;
+    private final IoScheduler scheduler;
+    private final StageMetrics.Registration queue;
+
+    public FileScanner(ScanOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+        this.pool = new ForkJoinPool(options.parallelism());
+        this.scheduler = options.ioScheduler() != null ? options.ioScheduler() : new IoScheduler(IoOptions.defaults());
+        this.queue = METRICS.queue(pool::getQueuedTaskCount);
+    }
+
+    public ScanOptions options() {
+        return options;
+    }
+
+    /**
+     * Scans {@code root} and blocks until every reachable entry has been reported.
+     *
+     * @throws IOException if the root itself cannot be read
+     */
+    public ScanSummary scan(Path root, ScanListener listener) throws IOException {
+        Objects.requireNonNull(listener, "listener");
+        long start = System.nanoTime();
+        Run run = new Run(options, pool, scheduler, listener);
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class, run.linkOptions);
+        if (attrs.isDirectory()) {
+            DirectoryCache cache = options.directoryCache();
+            if (cache != null) {
+                cache.scanStarted(root);
+            }
+            int rootId = run.nextId.getAndIncrement();
+            run.directories.increment();
+            run.enter(attrs);
+            listener.directoryVisited(rootId, ScanListener.NO_PARENT, root);
+            pool.invoke(new DirectoryTask(null, run, root, attrs, scheduler.device(root), rootId, 0));
+            if (cache != null) {
+                cache.scanFinished(root);
+            }
+        } else {
+            run.file(ScanListener.NO_PARENT, root, attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+        return run.summary(root, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    @Override
+    public void close() {
+        queue.close();
+        pool.shutdownNow();
+        if (scheduler != options.ioScheduler()) {
+            scheduler.close();
+        }
+    }
+
+    /** State shared by all tasks of one scan. */
+    static final class Run {
+
+        final ScanOptions options;
+        final ForkJoinPool pool;
+        final IoScheduler scheduler;
+        final ScanListener listener;
+        final DirectoryCache cache;
+        final LinkOption[] linkOptions;
+        final AtomicInteger nextId = new AtomicInteger();
+        final LongAdder files = new LongAdder();
+        final LongAdder directories = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder reused = new LongAdder();
+        /** File keys of directories already entered; only tracked when following links. */
+        private final Set<Object> entered;
+
+        Run(ScanOptions options, ForkJoinPool pool, IoScheduler scheduler, ScanListener listener) {
+            this.options = options;
+            this.pool = pool;
+            this.scheduler = scheduler;
+            this.listener = listener;
+            this.cache = options.directoryCache();
+            this.linkOptions = options.followLinks() ? new LinkOption[0] : new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
+            this.entered = options.followLinks() ? ConcurrentHashMap.newKeySet() : null;
+        }
+
+        /** Returns false if the directory was already entered through another link. */
+        boolean enter(BasicFileAttributes attrs) {
+            if (entered == null) {
+                return true;
+            }
+            Object key = attrs.fileKey();
+            return key == null || entered.add(key);
+        }
+
+        void file(int dirId, Path file, long size, long lastModified) {
+            files.increment();
+            bytes.add(size);
+            listener.fileVisited(dirId, file, size, lastModified);
+        }
+
+        void failed(Path path, IOException cause) {
+            errors.increment();
+            METRICS.error();
+            listener.visitFailed(path, cause);
+        }
+
+        ScanSummary summary(Path root, Duration elapsed) {
+            return new ScanSummary(root, files.sum(), directories.sum(), reused.sum(), bytes.sum(), errors.sum(),
+                    elapsed);
+        }
+    }
+
+    /** Lists one directory, reports its files and forks a task per subdirectory. */
+    static final class DirectoryTask extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final Device device;
+        private final int dirId;
+        private final int depth;
+        private boolean admitted;
+        /** Set when an entry name does not survive the trip through {@code String}, see {@link #list}. */
+        private boolean lossyNames;
+        private int files;
+        private long bytes;
+
+        DirectoryTask(CountedCompleter<?> parent, Run run, Path dir, BasicFileAttributes attrs, Device device,
+                int dirId, int depth) {
+            super(parent);
+            this.run = run;
+            this.dir = dir;
+            this.attrs = attrs;
+            this.device = device;
+            this.dirId = dirId;
+            this.depth = depth;
+        }
+
+        @Override
+        public void compute() {
+            if (!admitted) {
+                admitted = true;
+                if (!run.scheduler.admit(device, dir, this::resume)) {
+                    // Still pending; resumed with the slot once the device frees one.
+                    return;
+                }
+            }
+            // The slot goes back before the task completes, so a scan that returns or fails leaves none held.
+            Throwable failure = null;
+            try {
+                long start = METRICS.start();
+                DirectoryCache cache = run.cache;
+                DirectoryListing cached = cache != null ? cache.lookup(dir, attrs) : null;
+                if (cached != null) {
+                    run.reused.increment();
+                    replay(cached);
+                } else {
+                    list(cache != null ? DirectoryListing.builder() : null);
+                }
+                METRICS.record(files, bytes, start);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                run.scheduler.release(device);
+            }
+            if (failure != null) {
+                completeExceptionally(failure);
+            } else {
+                tryComplete();
+            }
+        }
+
+        /**
+         * Runs the task again once it holds a slot. Called on whichever thread
+         * released the slot, which need not be one of the scanner's workers,
+         * so the task is handed to the scanner's pool explicitly rather than
+         * forked into the common pool.
+         */
+        private void resume() {
+            try {
+                run.pool.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The scanner was closed mid-scan; pass the slot on instead of keeping it forever.
+                run.scheduler.release(device);
+            }
+        }
+
+        private void list(DirectoryListing.Builder listing) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                SecureDirectoryStream<Path> secure = stream instanceof SecureDirectoryStream<Path> s ? s : null;
+                for (Path entry : stream) {
+                    visit(secure, entry, listing);
+                }
+            } catch (IOException e) {
+                run.failed(dir, e);
+                return;
+            } catch (DirectoryIteratorException e) {
+                run.failed(dir, e.getCause());
+                return;
+            }
+            if (listing != null && !lossyNames) {
+                run.cache.update(dir, attrs, listing.build());
+            }
+        }
+
+        private void replay(DirectoryListing listing) {
+            boolean skipHidden = run.options.skipHidden();
+            for (int i = 0, n = listing.fileCount(); i < n; i++) {
+                String name = listing.fileName(i);
+                if (!skipHidden || !name.startsWith(".")) {
+                    file(dir.resolve(name), listing.fileSize(i), listing.fileModified(i));
+                }
+            }
+            for (int i = 0, n = listing.subdirectoryCount(); i < n; i++) {
+                visit(null, dir.resolve(listing.subdirectory(i)), null);
+            }
+        }
+
+        private void visit(SecureDirectoryStream<Path> secure, Path entry, DirectoryListing.Builder listing) {
+            ScanOptions options = run.options;
+            String name = entry.getFileName().toString();
+            if (listing == null && options.skipHidden() && name.startsWith(".")) {
+                return;
+            }
+            BasicFileAttributes attrs;
+            try {
+                attrs = secure != null
+                        ? secure.getFileAttributeView(entry.getFileName(), BasicFileAttributeView.class, run.linkOptions)
+                                .readAttributes()
+                        : Files.readAttributes(entry, BasicFileAttributes.class, run.linkOptions);
+            } catch (IOException e) {
+                run.failed(entry, e);
+                return;
+            }
+            if (listing != null && !lossyNames && !roundTrips(entry, name)) {
+                // The platform charset cannot represent this name; a cached copy could not be resolved again.
+                lossyNames = true;
+            }
+            if (!attrs.isDirectory()) {
+                if (attrs.isSymbolicLink()) {
+                    return;
+                }
+                long size = attrs.size();
+                long lastModified = attrs.lastModifiedTime().toMillis();
+                if (listing != null) {
+                    listing.addFile(name, size, lastModified);
+                    if (options.skipHidden() && name.startsWith(".")) {
+                        return;
+                    }
+                }
+                file(entry, size, lastModified);
+                return;
+            }
+            if (listing != null) {
+                listing.addSubdirectory(name);
+                if (options.skipHidden() && name.startsWith(".")) {
+                    return;
+                }
+            }
+            if (depth >= options.maxDepth() || !options.directoryFilter().test(entry) || !run.enter(attrs)) {
+                return;
+            }
+            int childId = run.nextId.getAndIncrement();
+            run.directories.increment();
+            run.listener.directoryVisited(childId, dirId, entry);
+            addToPendingCount(1);
+            Device childDevice = run.scheduler.child(device, entry);
+            new DirectoryTask(this, run, entry, attrs, childDevice, childId, depth + 1).fork();
+        }
+
+        private void file(Path file, long size, long lastModified) {
+            files++;
+            bytes += size;
+            run.file(dirId, file, size, lastModified);
+        }
+
+        private boolean roundTrips(Path entry, String name) {
+            if (name.indexOf('?') < 0 && name.indexOf('\uFFFD') < 0) {
+                return true;
+            }
+            try {
+                return dir.resolve(name).equals(entry);
+            } catch (InvalidPathException e) {
+                return false;
+            }
+        }
+    }
+}
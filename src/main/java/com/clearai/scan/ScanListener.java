@@ -0,0 +1,75 @@
+package com.clearai.scan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Receives scan results as they are produced.
+ *
+ * <p>Callbacks are invoked concurrently from the scanner's worker threads, so
+ * implementations must be thread-safe. Nothing is buffered on the scanner
+ * side: a listener that wants a list has to build it itself, which keeps the
+ * scanner's own footprint independent of the number of files.
+ *
+ * <p>Every directory gets a small integer id, assigned when it is discovered.
+ * A directory is always reported before any of its children, and a child's id
+ * is always greater than its parent's, so consumers can key compact primitive
+ * arrays by id.
+ */
+public interface ScanListener {
+
+    /** Id reported as the parent of the scan root. */
+    int NO_PARENT = -1;
+
+    /**
+     * Called once for each directory, before any of its entries.
+     *
+     * @param dirId    id of the directory
+     * @param parentId id of the enclosing directory, or {@link #NO_PARENT} for the root
+     * @param dir      the directory
+     */
+    default void directoryVisited(int dirId, int parentId, Path dir) {
+    }
+
+    /**
+     * Called once for each non-directory entry.
+     *
+     * @param dirId        id of the enclosing directory
+     * @param file         the file
+     * @param size         size in bytes
+     * @param lastModified modification time in milliseconds since the epoch
+     */
+    void fileVisited(int dirId, Path file, long size, long lastModified);
+
+    /** Called when a directory cannot be listed or an entry cannot be read. */
+    default void visitFailed(Path path, IOException cause) {
+    }
+
+    /** Returns a listener that forwards every callback to each of {@code listeners} in order. */
+    static ScanListener all(ScanListener... listeners) {
+        List<ScanListener> targets = List.of(listeners);
+        return new ScanListener() {
+            @Override
+            public void directoryVisited(int dirId, int parentId, Path dir) {
+                for (ScanListener l : targets) {
+                    l.directoryVisited(dirId, parentId, dir);
+                }
+            }
+
+            @Override
+            public void fileVisited(int dirId, Path file, long size, long lastModified) {
+                for (ScanListener l : targets) {
+                    l.fileVisited(dirId, file, size, lastModified);
+                }
+            }
+
+            @Override
+            public void visitFailed(Path path, IOException cause) {
+                for (ScanListener l : targets) {
+                    l.visitFailed(path, cause);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.clearai.scan;
+
+import com.clearai.io.IoScheduler;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Immutable settings for a {@link FileScanner}. Create instances with {@link #builder()}.
+ */
+public final class ScanOptions {
+
+    private final int parallelism;
+    private final int maxDepth;
+    private final boolean followLinks;
+    private final boolean skipHidden;
+    private final Predicate<Path> directoryFilter;
+    private final DirectoryCache directoryCache;
+    private final IoScheduler ioScheduler;
+
+    private ScanOptions(Builder b) {
+        this.parallelism = b.parallelism;
+        this.maxDepth = b.maxDepth;
+        this.followLinks = b.followLinks;
+        this.skipHidden = b.skipHidden;
+        this.directoryFilter = b.directoryFilter;
+        this.directoryCache = b.directoryCache;
+        this.ioScheduler = b.ioScheduler;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ScanOptions defaults() {
+        return builder().build();
+    }
+
+    /** Number of worker threads walking the tree. */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /** Maximum directory depth below the root; the root itself is depth 0. */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /** Whether symbolic links to directories are descended into. */
+    public boolean followLinks() {
+        return followLinks;
+    }
+
+    /** Whether entries whose name starts with a dot are ignored. */
+    public boolean skipHidden() {
+        return skipHidden;
+    }
+
+    /** Directories rejected by this filter are neither reported nor descended into. */
+    public Predicate<Path> directoryFilter() {
+        return directoryFilter;
+    }
+
+    /** Cache of earlier listings consulted before reading a directory, or {@code null} for none. */
+    public DirectoryCache directoryCache() {
+        return directoryCache;
+    }
+
+    /**
+     * Scheduler that limits concurrent directory reads per device, or
+     * {@code null} for one with default settings owned by the scanner.
+     */
+    public IoScheduler ioScheduler() {
+        return ioScheduler;
+    }
+
+    public static final class Builder {
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int maxDepth = Integer.MAX_VALUE;
+        private boolean followLinks;
+        private boolean skipHidden;
+        private Predicate<Path> directoryFilter = dir -> true;
+        private DirectoryCache directoryCache;
+        private IoScheduler ioScheduler;
+
+        private Builder() {
+        }
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder followLinks(boolean followLinks) {
+            this.followLinks = followLinks;
+            return this;
+        }
+
+        public Builder skipHidden(boolean skipHidden) {
+            this.skipHidden = skipHidden;
+            return this;
+        }
+
+        public Builder directoryFilter(Predicate<Path> directoryFilter) {
+            this.directoryFilter = Objects.requireNonNull(directoryFilter, "directoryFilter");
+            return this;
+        }
+
+        public Builder directoryCache(DirectoryCache directoryCache) {
+            this.directoryCache = directoryCache;
+            return this;
+        }
+
+        public Builder ioScheduler(IoScheduler ioScheduler) {
+            this.ioScheduler = ioScheduler;
+            return this;
+        }
+
+        public ScanOptions build() {
+            return new ScanOptions(this);
+        }
+    }
+}
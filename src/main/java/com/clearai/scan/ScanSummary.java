@@ -0,0 +1,30 @@
+package com.clearai.scan;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Totals for one completed scan.
+ *
+ * @param root        the scanned root
+ * @param files       number of non-directory entries reported
+ * @param directories number of directories reported, including the root
+ * @param reused      number of directories replayed from a {@link DirectoryCache} instead of being listed
+ * @param bytes       sum of the reported file sizes
+ * @param errors      number of entries that could not be read
+ * @param elapsed     wall-clock duration of the scan
+ */
+public record ScanSummary(Path root, long files, long directories, long reused, long bytes, long errors, Duration elapsed) {
+
+    /** Entries (files and directories) visited per second. */
+    public double entriesPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return (files + directories) * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d files, %,d dirs (%,d reused), %,d bytes, %,d errors in %d ms (%,.0f entries/s)",
+                root, files, directories, reused, bytes, errors, elapsed.toMillis(), entriesPerSecond());
+    }
+}
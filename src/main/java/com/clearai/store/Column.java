@@ -0,0 +1,123 @@
+package com.clearai.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-width values stored off-heap in pages of direct buffers, addressed by
+ * a {@code long} index. Pages are allocated on demand and never moved, so
+ * values written through one page array stay visible after the column grows.
+ *
+ * <p>Writers must {@link #ensure} an index before writing it. Distinct
+ * indices may be written concurrently; the column does no other locking.
+ */
+final class Column {
+
+    private final int width;
+    private final int pageShift;
+    private final long pageMask;
+    private final Object growLock = new Object();
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+    private volatile int allocatedPages;
+
+    /**
+     * @param width     bytes per value
+     * @param pageShift log2 of the number of values per page
+     */
+    Column(int width, int pageShift) {
+        if ((long) width << pageShift > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("page too large: " + width + " << " + pageShift);
+        }
+        this.width = width;
+        this.pageShift = pageShift;
+        this.pageMask = (1L << pageShift) - 1;
+    }
+
+    /** Makes {@code index} addressable. */
+    void ensure(long index) {
+        int page = (int) (index >>> pageShift);
+        ByteBuffer[] p = pages;
+        if (page >= p.length || p[page] == null) {
+            grow(page);
+        }
+    }
+
+    /** Number of values per page. */
+    long pageSize() {
+        return pageMask + 1;
+    }
+
+    /** Bytes of direct memory allocated so far. */
+    long allocatedBytes() {
+        return (long) allocatedPages * width << pageShift;
+    }
+
+    byte getByte(long index) {
+        return page(index).get(offset(index));
+    }
+
+    void putByte(long index, byte value) {
+        page(index).put(offset(index), value);
+    }
+
+    short getShort(long index) {
+        return page(index).getShort(offset(index));
+    }
+
+    void putShort(long index, short value) {
+        page(index).putShort(offset(index), value);
+    }
+
+    int getInt(long index) {
+        return page(index).getInt(offset(index));
+    }
+
+    void putInt(long index, int value) {
+        page(index).putInt(offset(index), value);
+    }
+
+    long getLong(long index) {
+        return page(index).getLong(offset(index));
+    }
+
+    void putLong(long index, long value) {
+        page(index).putLong(offset(index), value);
+    }
+
+    /** Copies {@code length} bytes starting at {@code index}; the range must lie in one page. */
+    void getBytes(long index, byte[] dst, int dstOffset, int length) {
+        page(index).get(offset(index), dst, dstOffset, length);
+    }
+
+    /** Copies {@code length} bytes to {@code index}; the range must lie in one page. */
+    void putBytes(long index, byte[] src, int srcOffset, int length) {
+        page(index).put(offset(index), src, srcOffset, length);
+    }
+
+    private ByteBuffer page(long index) {
+        return pages[(int) (index >>> pageShift)];
+    }
+
+    private int offset(long index) {
+        return (int) (index & pageMask) * width;
+    }
+
+    private void grow(int page) {
+        synchronized (growLock) {
+            ByteBuffer[] current = pages;
+            if (page < current.length && current[page] != null) {
+                return;
+            }
+            // A fresh array every time: pages are only ever published through the volatile write.
+            int length = page < current.length ? current.length
+                    : Math.max(page + 1, current.length + (current.length >> 1));
+            ByteBuffer[] next = new ByteBuffer[length];
+            System.arraycopy(current, 0, next, 0, allocatedPages);
+            for (int i = allocatedPages; i <= page; i++) {
+                next[i] = ByteBuffer.allocateDirect(width << pageShift).order(ByteOrder.nativeOrder());
+            }
+            allocatedPages = page + 1;
+            pages = next;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.clearai.store;
+
+import com.clearai.scan.ScanListener;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metadata of every file and directory of one scan, kept off-heap in columns.
+ *
+ * <p>A file is a row id with a fixed 28 bytes of direct memory: enclosing
+ * directory id, name id, size, modification time and content-hash slot.
+ * Names are interned in a {@link NamePool}, so a name such as
+ * {@code index.js} that recurs across a tree is stored once, and directories
+ * are a parent id and a name id each. No {@link Path} or {@link String} is
+ * held per file; {@link #path} rebuilds one on demand, which is meant for
+ * what is shown to the user, not for bulk processing. For trees of tens of
+ * millions of files this stays well under 64 bytes a file, most of it the
+ * name bytes of files with distinct names; {@link #bytesPerFile()} reports
+ * the actual figure. Since all columns are direct buffers, size
+ * {@code -XX:MaxDirectMemorySize} rather than the heap for large trees.
+ *
+ * <p>As a {@link ScanListener} the table fills itself concurrently from the
+ * scanner's threads. Readers should wait for the scan to finish: a row read
+ * while the scan runs may still be partly written.
+ */
+public final class FileTable implements ScanListener {
+
+    /** Hash slot value of a file without a recorded content hash. */
+    private static final int NO_HASH = 0;
+    /** Name id of the root directory, whose full path is kept separately. */
+    private static final int ROOT_NAME = -1;
+    /** Name ids at or below this value index {@link #lossyNames}. */
+    private static final int FIRST_LOSSY = -2;
+    private static final int PAGE_SHIFT = 16;
+
+    private final int digestLength;
+    private final NamePool names = new NamePool();
+
+    private final Column fileDirs = new Column(4, PAGE_SHIFT);
+    private final Column fileNames = new Column(4, PAGE_SHIFT);
+    private final Column fileSizes = new Column(8, PAGE_SHIFT);
+    private final Column fileTimes = new Column(8, PAGE_SHIFT);
+    private final Column fileHashes = new Column(4, PAGE_SHIFT);
+    private final AtomicInteger files = new AtomicInteger();
+
+    private final Column dirParents = new Column(4, PAGE_SHIFT);
+    private final Column dirNames = new Column(4, PAGE_SHIFT);
+    private final AtomicInteger directories = new AtomicInteger();
+
+    private final Column digests;
+    private final AtomicInteger digestCount = new AtomicInteger();
+    private volatile Path root;
+    /**
+     * Names that the platform cannot decode to a String without loss. They
+     * are rare, so they are kept as path segments, not interned: distinct
+     * names may decode to the same String.
+     */
+    private final List<Path> lossyNames = new ArrayList<>();
+
+    /** Creates a table whose hash slots hold SHA-256 sized digests. */
+    public FileTable() {
+        this(32);
+    }
+
+    /** @param digestLength length in bytes of the content hashes recorded with {@link #setHash} */
+    public FileTable(int digestLength) {
+        if (digestLength < 1) {
+            throw new IllegalArgumentException("digestLength must be positive: " + digestLength);
+        }
+        this.digestLength = digestLength;
+        this.digests = new Column(digestLength, 12);
+    }
+
+    @Override
+    public void directoryVisited(int dirId, int parentId, Path dir) {
+        int name;
+        if (parentId == NO_PARENT) {
+            root = dir;
+            name = ROOT_NAME;
+        } else {
+            name = nameId(dir.getFileName());
+        }
+        dirParents.ensure(dirId);
+        dirNames.ensure(dirId);
+        dirParents.putInt(dirId, parentId);
+        dirNames.putInt(dirId, name);
+        directories.accumulateAndGet(dirId + 1, Math::max);
+    }
+
+    @Override
+    public void fileVisited(int dirId, Path file, long size, long lastModified) {
+        addRow(dirId, nameId(file.getFileName()), size, lastModified);
+    }
+
+    /**
+     * Adds a file to directory {@code dirId} and returns its id.
+     *
+     * @throws IllegalStateException when the table already holds {@code Integer.MAX_VALUE} files
+     */
+    public int add(int dirId, String name, long size, long lastModified) {
+        return addRow(dirId, names.intern(name), size, lastModified);
+    }
+
+    private int addRow(int dirId, int nameId, long size, long lastModified) {
+        int id = files.getAndIncrement();
+        if (id < 0) {
+            throw new IllegalStateException("file table full");
+        }
+        fileDirs.ensure(id);
+        fileNames.ensure(id);
+        fileSizes.ensure(id);
+        fileTimes.ensure(id);
+        fileHashes.ensure(id);
+        fileDirs.putInt(id, dirId);
+        fileNames.putInt(id, nameId);
+        fileSizes.putLong(id, size);
+        fileTimes.putLong(id, lastModified);
+        fileHashes.putInt(id, NO_HASH);
+        return id;
+    }
+
+    /** Number of files; ids run from 0 to this value, exclusive. */
+    public int fileCount() {
+        return files.get();
+    }
+
+    /** Number of directories; ids run from 0 to this value, exclusive. */
+    public int directoryCount() {
+        return directories.get();
+    }
+
+    /** Number of distinct file and directory names. */
+    public int distinctNames() {
+        return names.size();
+    }
+
+    public long size(int fileId) {
+        return fileSizes.getLong(check(fileId));
+    }
+
+    /** Modification time in milliseconds since the epoch. */
+    public long lastModified(int fileId) {
+        return fileTimes.getLong(check(fileId));
+    }
+
+    /** Id of the directory that contains the file. */
+    public int directory(int fileId) {
+        return fileDirs.getInt(check(fileId));
+    }
+
+    /** Id of the enclosing directory, or {@link ScanListener#NO_PARENT} for the root. */
+    public int parent(int dirId) {
+        return dirParents.getInt(checkDirectory(dirId));
+    }
+
+    /** File name, without its directory. */
+    public String name(int fileId) {
+        int name = fileNames.getInt(check(fileId));
+        return name <= FIRST_LOSSY ? lossyName(name).toString() : names.name(name);
+    }
+
+    /** Full path of the file, rebuilt from its directory chain. */
+    public Path path(int fileId) {
+        Path dir = directoryPath(directory(fileId));
+        int name = fileNames.getInt(fileId);
+        return name <= FIRST_LOSSY ? dir.resolve(lossyName(name)) : dir.resolve(names.name(name));
+    }
+
+    /** Full path of the directory, rebuilt from its parent chain. */
+    public Path directoryPath(int dirId) {
+        Deque<Integer> chain = new ArrayDeque<>();
+        for (int id = checkDirectory(dirId); ; id = dirParents.getInt(id)) {
+            int name = dirNames.getInt(id);
+            if (name == ROOT_NAME) {
+                break;
+            }
+            chain.push(name);
+        }
+        Path path = root;
+        for (int name : chain) {
+            path = name <= FIRST_LOSSY ? path.resolve(lossyName(name)) : path.resolve(names.name(name));
+        }
+        return path;
+    }
+
+    /**
+     * Records the content hash of a file. A file's hash should be set once;
+     * setting it again from several threads at a time is not supported.
+     */
+    public void setHash(int fileId, byte[] digest) {
+        if (digest.length != digestLength) {
+            throw new IllegalArgumentException("digest must be " + digestLength + " bytes, not " + digest.length);
+        }
+        int slot = fileHashes.getInt(check(fileId));
+        if (slot == NO_HASH) {
+            slot = digestCount.incrementAndGet();
+            digests.ensure(slot);
+        }
+        digests.putBytes(slot, digest, 0, digestLength);
+        fileHashes.putInt(fileId, slot);
+    }
+
+    /** Returns the recorded content hash of a file, or {@code null} if there is none. */
+    public byte[] hash(int fileId) {
+        int slot = fileHashes.getInt(check(fileId));
+        if (slot == NO_HASH) {
+            return null;
+        }
+        byte[] digest = new byte[digestLength];
+        digests.getBytes(slot, digest, 0, digestLength);
+        return digest;
+    }
+
+    /** Calls {@code visitor} for every file in id order, without materializing names or paths. */
+    public void forEach(FileVisitor visitor) {
+        int n = files.get();
+        for (int id = 0; id < n; id++) {
+            visitor.visit(id, fileDirs.getInt(id), fileSizes.getLong(id), fileTimes.getLong(id));
+        }
+    }
+
+    /** Bytes of direct memory held by the table. */
+    public long offHeapBytes() {
+        return fileDirs.allocatedBytes() + fileNames.allocatedBytes() + fileSizes.allocatedBytes()
+                + fileTimes.allocatedBytes() + fileHashes.allocatedBytes()
+                + dirParents.allocatedBytes() + dirNames.allocatedBytes()
+                + digests.allocatedBytes() + names.allocatedBytes();
+    }
+
+    /** Direct memory per file, including directories, names and hashes. */
+    public double bytesPerFile() {
+        int n = files.get();
+        return n == 0 ? 0 : (double) offHeapBytes() / n;
+    }
+
+    private int nameId(Path name) {
+        String s = name.toString();
+        if (s.indexOf('\uFFFD') < 0) {
+            return names.intern(s);
+        }
+        synchronized (lossyNames) {
+            lossyNames.add(name);
+            return FIRST_LOSSY - (lossyNames.size() - 1);
+        }
+    }
+
+    private Path lossyName(int nameId) {
+        synchronized (lossyNames) {
+            return lossyNames.get(FIRST_LOSSY - nameId);
+        }
+    }
+
+    private int check(int fileId) {
+        if (fileId < 0 || fileId >= files.get()) {
+            throw new IndexOutOfBoundsException("no file " + fileId);
+        }
+        return fileId;
+    }
+
+    private int checkDirectory(int dirId) {
+        if (dirId < 0 || dirId >= directories.get()) {
+            throw new IndexOutOfBoundsException("no directory " + dirId);
+        }
+        return dirId;
+    }
+
+    /** Receives the primitive columns of one file. */
+    @FunctionalInterface
+    public interface FileVisitor {
+        void visit(int fileId, int dirId, long size, long lastModified);
+    }
+}
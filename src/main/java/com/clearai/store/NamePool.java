@@ -0,0 +1,188 @@
+package com.clearai.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interned path segments, stored off-heap.
+ *
+ * <p>Each distinct name is kept once as a two-byte length followed by its
+ * UTF-8 bytes in a paged byte column; a name never straddles a page. Ids map
+ * to byte offsets through an {@code int} column. Lookup is an open-addressing
+ * table of ids, also off-heap, kept at most three quarters full.
+ *
+ * <p>Scanner threads intern concurrently, so the pool is split into
+ * {@link #STRIPES} independent stripes, each with its own columns, table and
+ * lock, chosen by the top bits of the name's hash. The low bits of an id
+ * name its stripe, so ids are not dense. Each stripe can hold up to 4 GiB of
+ * name bytes.
+ */
+final class NamePool {
+
+    /** Longest name, in UTF-8 bytes, that fits the two-byte length prefix. */
+    static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private static final int STRIPE_SHIFT = 4;
+    static final int STRIPES = 1 << STRIPE_SHIFT;
+    // Pages must hold the longest name with its length prefix.
+    private static final int BYTE_PAGE_SHIFT = 17;
+    private static final int ID_PAGE_SHIFT = 12;
+    private static final int EMPTY = 0;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    NamePool() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Returns the id of {@code name}, adding it if it is new. */
+    int intern(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("name longer than " + MAX_NAME_BYTES + " bytes: " + name);
+        }
+        int hash = hash(utf8, utf8.length);
+        int stripe = hash >>> (32 - STRIPE_SHIFT);
+        return stripes[stripe].intern(utf8, hash) << STRIPE_SHIFT | stripe;
+    }
+
+    /** Returns the name with {@code id}. */
+    String name(int id) {
+        return stripes[id & (STRIPES - 1)].name(id >>> STRIPE_SHIFT);
+    }
+
+    /** Number of distinct names. */
+    int size() {
+        int size = 0;
+        for (Stripe s : stripes) {
+            size += s.size();
+        }
+        return size;
+    }
+
+    /** Bytes of direct memory allocated so far. */
+    long allocatedBytes() {
+        long bytes = 0;
+        for (Stripe s : stripes) {
+            bytes += s.allocatedBytes();
+        }
+        return bytes;
+    }
+
+    private static int hash(byte[] b, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ b[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** One shard of the pool; ids here are local and dense. */
+    private static final class Stripe {
+
+        private final Column bytes = new Column(1, BYTE_PAGE_SHIFT);
+        private final Column offsets = new Column(4, ID_PAGE_SHIFT);
+        private Column table;
+        private int tableMask;
+        private int count;
+        private long end;
+        private byte[] scratch = new byte[256];
+
+        Stripe() {
+            table = newTable(1 << ID_PAGE_SHIFT);
+        }
+
+        synchronized int intern(byte[] utf8, int hash) {
+            for (int slot = hash & tableMask; ; slot = (slot + 1) & tableMask) {
+                int entry = table.getInt(slot);
+                if (entry == EMPTY) {
+                    int id = append(utf8);
+                    if (count > (tableMask + 1) - ((tableMask + 1) >> 2)) {
+                        rehash();
+                    } else {
+                        table.putInt(slot, id + 1);
+                    }
+                    return id;
+                }
+                if (matches(entry - 1, utf8)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        synchronized String name(int id) {
+            long at = Integer.toUnsignedLong(offsets.getInt(id));
+            int length = Short.toUnsignedInt(bytes.getShort(at));
+            return new String(read(at + 2, length), 0, length, StandardCharsets.UTF_8);
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized long allocatedBytes() {
+            return bytes.allocatedBytes() + offsets.allocatedBytes() + table.allocatedBytes();
+        }
+
+        private int append(byte[] utf8) {
+            long need = 2L + utf8.length;
+            long pageSize = bytes.pageSize();
+            if ((end & (pageSize - 1)) + need > pageSize) {
+                end = (end | (pageSize - 1)) + 1;
+            }
+            if (end + need > 0xFFFF_FFFFL || count == Integer.MAX_VALUE >>> STRIPE_SHIFT) {
+                throw new IllegalStateException("name pool full");
+            }
+            // Both bytes of the length prefix land in one page because pages hold an even number of bytes.
+            bytes.ensure(end + need - 1);
+            bytes.putShort(end, (short) utf8.length);
+            bytes.putBytes(end + 2, utf8, 0, utf8.length);
+            int id = count++;
+            offsets.ensure(id);
+            offsets.putInt(id, (int) end);
+            end += need;
+            return id;
+        }
+
+        private boolean matches(int id, byte[] utf8) {
+            long at = Integer.toUnsignedLong(offsets.getInt(id));
+            int length = Short.toUnsignedInt(bytes.getShort(at));
+            if (length != utf8.length) {
+                return false;
+            }
+            byte[] stored = read(at + 2, length);
+            return Arrays.equals(stored, 0, length, utf8, 0, length);
+        }
+
+        private byte[] read(long at, int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            bytes.getBytes(at, scratch, 0, length);
+            return scratch;
+        }
+
+        private void rehash() {
+            int capacity = (tableMask + 1) * 2;
+            table = newTable(capacity);
+            for (int id = 0; id < count; id++) {
+                long at = Integer.toUnsignedLong(offsets.getInt(id));
+                int length = Short.toUnsignedInt(bytes.getShort(at));
+                int slot = hash(read(at + 2, length), length) & tableMask;
+                while (table.getInt(slot) != EMPTY) {
+                    slot = (slot + 1) & tableMask;
+                }
+                table.putInt(slot, id + 1);
+            }
+        }
+
+        private Column newTable(int capacity) {
+            Column t = new Column(4, ID_PAGE_SHIFT);
+            t.ensure(capacity - 1);
+            tableMask = capacity - 1;
+            return t;
+        }
+    }
+}
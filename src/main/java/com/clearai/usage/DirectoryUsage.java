@@ -0,0 +1,14 @@
+package com.clearai.usage;
+
+import java.nio.file.Path;
+
+/**
+ * Space used by one directory and everything below it.
+ *
+ * @param dir         the directory
+ * @param bytes       total size of the files in the subtree
+ * @param files       number of files in the subtree
+ * @param directories number of directories in the subtree, not counting {@code dir} itself
+ */
+public record DirectoryUsage(Path dir, long bytes, long files, long directories) {
+}
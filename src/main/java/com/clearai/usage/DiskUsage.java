@@ -0,0 +1,309 @@
+package com.clearai.usage;
+
+import com.clearai.scan.ScanListener;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Rolls file sizes up to their ancestor directories while a scan is running.
+ *
+ * <p>State is kept per directory, never per file: each directory id indexes
+ * paged primitive arrays holding its parent id and the bytes and files
+ * directly inside it. Scanner threads only add to those counters. A
+ * {@link #snapshot()} copies the counters into scratch arrays and adds every
+ * directory into its parent in one pass of descending id &ndash; ids are
+ * assigned parent-first, so children are always folded before their parents
+ * &ndash; then picks the largest subtrees with a bounded heap. The whole
+ * refresh is linear in the number of directories and allocates only the
+ * result, so it can run many times a second on trees with millions of files;
+ * {@link #start(Consumer)} does so every {@link #REFRESH_INTERVAL}.
+ *
+ * <p>An instance describes one scan, since directory ids are per scan. After
+ * the scan it can be kept current with {@link #addDirectory},
+ * {@link #setFiles} and {@link #remove}, which is what a watching daemon does.
+ * Removed ids are reused by later additions, always for a directory whose
+ * parent has a smaller id, so the fold order still holds and a tree that
+ * keeps changing does not keep growing the arrays.
+ */
+public final class DiskUsage implements ScanListener, AutoCloseable {
+
+    /** Default period of {@link #start(Consumer)}. */
+    public static final Duration REFRESH_INTERVAL = Duration.ofMillis(100);
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    /** Parent value of a directory whose id is in use but not yet reported. */
+    private static final int UNREPORTED = -2;
+    /** Parent value of a directory dropped by {@link #remove}. */
+    private static final int REMOVED = -3;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Page directories. Growing replaces the holder but keeps every existing
+     * page, so writers holding a stale holder still update live pages.
+     */
+    private static final class Pages {
+        final int[][] parents;
+        final long[][] bytes;
+        final long[][] files;
+        final Path[][] dirs;
+
+        Pages(int pageCount) {
+            parents = new int[pageCount][];
+            bytes = new long[pageCount][];
+            files = new long[pageCount][];
+            dirs = new Path[pageCount][];
+        }
+    }
+
+    private final int topN;
+    private final Object growLock = new Object();
+    private volatile Pages pages = new Pages(0);
+    private final AtomicInteger directories = new AtomicInteger();
+    /** Ids given up by {@link #remove}, guarded by itself. */
+    private final BitSet freeIds = new BitSet();
+
+    // Scratch state of snapshot(), guarded by this.
+    private final TopN heap;
+    private long[] totalBytes = new long[0];
+    private long[] totalFiles = new long[0];
+    private long[] totalDirs = new long[0];
+    private int[] liveParents = new int[0];
+    private ScheduledExecutorService timer;
+
+    /** @param topN number of largest directories each snapshot reports */
+    public DiskUsage(int topN) {
+        if (topN < 0) {
+            throw new IllegalArgumentException("topN must not be negative: " + topN);
+        }
+        this.topN = topN;
+        this.heap = new TopN(topN);
+    }
+
+    @Override
+    public void directoryVisited(int dirId, int parentId, Path dir) {
+        Pages p = ensure(dirId);
+        int page = dirId >>> PAGE_SHIFT;
+        int slot = dirId & PAGE_MASK;
+        p.dirs[page][slot] = dir;
+        INTS.setRelease(p.parents[page], slot, parentId);
+    }
+
+    @Override
+    public void fileVisited(int dirId, Path file, long size, long lastModified) {
+        Pages p = ensure(dirId);
+        int page = dirId >>> PAGE_SHIFT;
+        int slot = dirId & PAGE_MASK;
+        LONGS.getAndAdd(p.bytes[page], slot, size);
+        LONGS.getAndAdd(p.files[page], slot, 1L);
+    }
+
+    /**
+     * Adds a directory that appeared after the scan and returns its id, which
+     * is greater than {@code parentId}: a removed id if one qualifies, else a
+     * new one. Used to keep a finished rollup current.
+     */
+    public int addDirectory(int parentId, Path dir) {
+        int id;
+        synchronized (freeIds) {
+            id = freeIds.nextSetBit(parentId + 1);
+            if (id >= 0) {
+                freeIds.clear(id);
+            }
+        }
+        if (id < 0) {
+            id = directories.getAndIncrement();
+        } else {
+            Pages p = pages;
+            int page = id >>> PAGE_SHIFT;
+            int slot = id & PAGE_MASK;
+            LONGS.setVolatile(p.bytes[page], slot, 0L);
+            LONGS.setVolatile(p.files[page], slot, 0L);
+        }
+        directoryVisited(id, parentId, dir);
+        return id;
+    }
+
+    /** Replaces the bytes and file count directly inside {@code dirId}, after it was listed again. */
+    public void setFiles(int dirId, long bytes, long files) {
+        Pages p = ensure(dirId);
+        int page = dirId >>> PAGE_SHIFT;
+        int slot = dirId & PAGE_MASK;
+        LONGS.setVolatile(p.bytes[page], slot, bytes);
+        LONGS.setVolatile(p.files[page], slot, files);
+    }
+
+    /**
+     * Drops {@code dirId} and everything below it from later snapshots, and
+     * frees the id for {@link #addDirectory}. Remove the subdirectories as
+     * well: once the id is reused, directories still pointing at it would be
+     * counted under the new directory.
+     */
+    public void remove(int dirId) {
+        Pages p = ensure(dirId);
+        int page = dirId >>> PAGE_SHIFT;
+        int slot = dirId & PAGE_MASK;
+        if ((int) INTS.getAndSet(p.parents[page], slot, REMOVED) == REMOVED) {
+            return;
+        }
+        p.dirs[page][slot] = null;
+        synchronized (freeIds) {
+            freeIds.set(dirId);
+        }
+    }
+
+    /** Number of ids handed out so far, live or free; the size the arrays are kept at. */
+    public int idCapacity() {
+        return directories.get();
+    }
+
+    /** Returns the rollup of everything seen so far. */
+    public synchronized UsageSnapshot snapshot() {
+        long start = System.nanoTime();
+        int n = directories.get();
+        Pages p = pages;
+        if (totalBytes.length < n) {
+            int capacity = Math.max(n, totalBytes.length * 2);
+            totalBytes = new long[capacity];
+            totalFiles = new long[capacity];
+            totalDirs = new long[capacity];
+            liveParents = new int[capacity];
+        }
+        long[] bytes = totalBytes;
+        long[] files = totalFiles;
+        long[] dirs = totalDirs;
+        int[] parent = liveParents;
+
+        // Forward pass: a directory is live if its parent is, so parents are settled first.
+        // Dead entries get parent UNREPORTED and are skipped from here on.
+        for (int id = 0; id < n; id++) {
+            int page = id >>> PAGE_SHIFT;
+            int slot = id & PAGE_MASK;
+            int pid = page < p.parents.length && p.parents[page] != null
+                    ? (int) INTS.getAcquire(p.parents[page], slot) : UNREPORTED;
+            if (pid >= 0 && parent[pid] == UNREPORTED) {
+                pid = UNREPORTED;
+            } else if (pid < NO_PARENT) {
+                pid = UNREPORTED;
+            }
+            parent[id] = pid;
+            if (pid != UNREPORTED) {
+                bytes[id] = (long) LONGS.getOpaque(p.bytes[page], slot);
+                files[id] = (long) LONGS.getOpaque(p.files[page], slot);
+                dirs[id] = 0;
+            }
+        }
+
+        long rootBytes = 0;
+        long rootFiles = 0;
+        int reported = 0;
+        heap.reset(bytes);
+        for (int id = n - 1; id >= 0; id--) {
+            int pid = parent[id];
+            if (pid == UNREPORTED) {
+                continue;
+            }
+            reported++;
+            if (pid == NO_PARENT) {
+                rootBytes += bytes[id];
+                rootFiles += files[id];
+            } else {
+                bytes[pid] += bytes[id];
+                files[pid] += files[id];
+                dirs[pid] += dirs[id] + 1;
+            }
+            heap.offer(id);
+        }
+
+        int[] top = heap.drainDescending();
+        List<DirectoryUsage> largest = new ArrayList<>(top.length);
+        for (int id : top) {
+            largest.add(new DirectoryUsage(p.dirs[id >>> PAGE_SHIFT][id & PAGE_MASK],
+                    bytes[id], files[id], dirs[id]));
+        }
+        return new UsageSnapshot(rootBytes, rootFiles, reported, largest,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /** Delivers a fresh {@link #snapshot()} to {@code view} every {@link #REFRESH_INTERVAL}. */
+    public void start(Consumer<? super UsageSnapshot> view) {
+        start(REFRESH_INTERVAL, view);
+    }
+
+    /** Delivers a fresh {@link #snapshot()} to {@code view} on a background daemon thread every {@code period}. */
+    public synchronized void start(Duration period, Consumer<? super UsageSnapshot> view) {
+        Objects.requireNonNull(view, "view");
+        if (timer != null) {
+            throw new IllegalStateException("already started");
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clear-ai-disk-usage");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> view.accept(snapshot()), 0, period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Stops the refresh started by {@link #start}; the counters remain readable. */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /** Makes {@code dirId} addressable and counted, returning pages that cover it. */
+    private Pages ensure(int dirId) {
+        Pages p = pages;
+        int page = dirId >>> PAGE_SHIFT;
+        if (page >= p.parents.length || p.parents[page] == null) {
+            p = grow(page);
+        }
+        if (dirId >= directories.get()) {
+            directories.accumulateAndGet(dirId + 1, Math::max);
+        }
+        return p;
+    }
+
+    private Pages grow(int page) {
+        synchronized (growLock) {
+            Pages p = pages;
+            if (page < p.parents.length && p.parents[page] != null) {
+                return p;
+            }
+            Pages next = p;
+            if (page >= p.parents.length) {
+                next = new Pages(Math.max(page + 1, p.parents.length * 2));
+                System.arraycopy(p.parents, 0, next.parents, 0, p.parents.length);
+                System.arraycopy(p.bytes, 0, next.bytes, 0, p.bytes.length);
+                System.arraycopy(p.files, 0, next.files, 0, p.files.length);
+                System.arraycopy(p.dirs, 0, next.dirs, 0, p.dirs.length);
+            }
+            int[] parents = new int[PAGE_SIZE];
+            Arrays.fill(parents, UNREPORTED);
+            next.parents[page] = parents;
+            next.bytes[page] = new long[PAGE_SIZE];
+            next.files[page] = new long[PAGE_SIZE];
+            next.dirs[page] = new Path[PAGE_SIZE];
+            pages = next;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.clearai.usage;
+
+/**
+ * Bounded min-heap of ids ordered by a caller-owned {@code long[]} of keys.
+ * The smallest retained key sits at the root, so an id that does not beat it
+ * is rejected in constant time and a full pass over {@code n} ids costs
+ * {@code O(n log k)} without allocating.
+ */
+final class TopN {
+
+    private final int[] heap;
+    private long[] keys;
+    private int size;
+
+    TopN(int capacity) {
+        this.heap = new int[capacity];
+    }
+
+    /** Empties the heap and orders subsequent offers by {@code keys}. */
+    void reset(long[] keys) {
+        this.keys = keys;
+        this.size = 0;
+    }
+
+    void offer(int id) {
+        if (size < heap.length) {
+            heap[size] = id;
+            siftUp(size++);
+        } else if (heap.length > 0 && keys[id] > keys[heap[0]]) {
+            heap[0] = id;
+            siftDown(0);
+        }
+    }
+
+    /** Removes and returns the retained ids, largest key first. */
+    int[] drainDescending() {
+        int[] out = new int[size];
+        for (int i = out.length - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[id]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = id;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[id] <= keys[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = id;
+    }
+}
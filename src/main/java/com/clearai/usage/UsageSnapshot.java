@@ -0,0 +1,21 @@
+package com.clearai.usage;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rollup of everything a {@link DiskUsage} has seen up to one refresh.
+ *
+ * @param bytes       total size of all files seen
+ * @param files       number of files seen
+ * @param directories number of directories seen
+ * @param largest     largest directories by subtree size, largest first
+ * @param elapsed     time taken to compute the rollup
+ */
+public record UsageSnapshot(long bytes, long files, int directories, List<DirectoryUsage> largest,
+        Duration elapsed) {
+
+    public UsageSnapshot {
+        largest = List.copyOf(largest);
+    }
+}
@@ -0,0 +1,35 @@
+package com.clearai.watch;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One debounced batch of changes applied by a {@link WatchDaemon}.
+ *
+ * @param events    number of watch events in the batch
+ * @param relisted  directories whose own entries were read again
+ * @param rescanned subtrees scanned again, because they are new or their events overflowed
+ * @param removed   subtrees that disappeared
+ * @param elapsed   time taken to apply the batch
+ */
+public record ChangeSet(int events, List<Path> relisted, List<Path> rescanned, List<Path> removed,
+        Duration elapsed) {
+
+    public ChangeSet {
+        relisted = List.copyOf(relisted);
+        rescanned = List.copyOf(rescanned);
+        removed = List.copyOf(removed);
+    }
+
+    /** Every directory whose contents may have changed, for refreshing suggestions. */
+    public List<Path> changedDirectories() {
+        if (rescanned.isEmpty()) {
+            return relisted;
+        }
+        List<Path> all = new ArrayList<>(relisted);
+        all.addAll(rescanned);
+        return all;
+    }
+}
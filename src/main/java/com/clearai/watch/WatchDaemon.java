@@ -0,0 +1,495 @@
+package com.clearai.watch;
+
+import com.clearai.index.ScanIndex;
+import com.clearai.metrics.MetricsRegistry;
+import com.clearai.metrics.StageMetrics;
+import com.clearai.scan.DirectoryListing;
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanListener;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+import com.clearai.usage.DiskUsage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the scan index and disk-usage rollup of one tree current from file
+ * system events instead of periodic full scans.
+ *
+ * <p>{@link #start} scans the tree once, registering every directory with a
+ * {@link WatchService} (inotify on Linux) before it is listed, so no change
+ * slips in between. A background thread then blocks on the watch service and
+ * uses no CPU while nothing happens. Events are coalesced per directory and
+ * debounced: a batch is applied once no event has arrived for
+ * {@link WatchOptions#debounce()}, or at the latest
+ * {@link WatchOptions#maxLatency()} after its first event, so a build that
+ * touches thousands of files costs one pass over each affected directory.
+ *
+ * <p>Applying a batch re-lists each changed directory, one level only, and
+ * records the listing in the index and the directory's own totals in the
+ * rollup. New subdirectories are scanned as subtrees and vanished ones are
+ * dropped. When a directory's events overflowed, so some were lost, its
+ * whole subtree is rescanned through the index, which replays every
+ * directory whose modification time is unchanged. Each applied batch is
+ * reported as a {@link ChangeSet} so suggestions for those directories can be
+ * refreshed.
+ *
+ * <p>Directories that cannot be watched, typically because the inotify watch
+ * limit ({@code fs.inotify.max_user_watches}) is reached, are counted by
+ * {@link #unwatchedDirectories()}; their changes are only seen when an
+ * ancestor's subtree is rescanned.
+ */
+public final class WatchDaemon implements AutoCloseable {
+
+    private static final StageMetrics METRICS = MetricsRegistry.global().stage(MetricsRegistry.WATCH);
+    private static final WatchEvent.Kind<?>[] KINDS = {
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE,
+            StandardWatchEventKinds.ENTRY_MODIFY
+    };
+
+    /** What the daemon knows about one watched directory. */
+    private static final class DirectoryState {
+        final int usageId;
+        /** Names of the subdirectories that are tracked, i.e. not hidden or filtered out. */
+        final Set<String> children = ConcurrentHashMap.newKeySet();
+
+        DirectoryState(int usageId) {
+            this.usageId = usageId;
+        }
+    }
+
+    /**
+     * The usage id of each directory of one subtree scan, indexed by the
+     * scanner's dense directory id. Written from the scanner's threads: a
+     * directory's entry is set before its files and subdirectories are
+     * reported. Pages are never moved, so a writer holding an older page
+     * table still writes to live pages.
+     */
+    private static final class UsageIds {
+
+        static final int NONE = Integer.MIN_VALUE;
+        private static final int PAGE_SHIFT = 10;
+        private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+        private volatile int[][] pages = new int[0][];
+
+        int get(int scanId) {
+            int[][] p = pages;
+            int page = scanId >>> PAGE_SHIFT;
+            return page < p.length ? p[page][scanId & PAGE_MASK] : NONE;
+        }
+
+        void put(int scanId, int usageId) {
+            int page = scanId >>> PAGE_SHIFT;
+            int[][] p = pages;
+            if (page >= p.length) {
+                p = grow(page);
+            }
+            p[page][scanId & PAGE_MASK] = usageId;
+        }
+
+        private synchronized int[][] grow(int page) {
+            int[][] p = pages;
+            if (page < p.length) {
+                return p;
+            }
+            int[][] next = Arrays.copyOf(p, Math.max(page + 1, p.length * 2));
+            for (int i = p.length; i < next.length; i++) {
+                next[i] = new int[PAGE_MASK + 1];
+                Arrays.fill(next[i], NONE);
+            }
+            pages = next;
+            return next;
+        }
+    }
+
+    private final Path root;
+    private final WatchOptions options;
+    private final ScanOptions scanOptions;
+    private final ScanIndex index;
+    private final Consumer<? super ChangeSet> onChange;
+    private final DiskUsage usage;
+    private final FileScanner scanner;
+    private final WatchService watcher;
+    private final Map<Path, DirectoryState> directories = new ConcurrentHashMap<>();
+    private final LongAdder unwatched = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private Thread thread;
+    private long lastSave;
+
+    /**
+     * @param root     tree to watch
+     * @param options  watch settings
+     * @param onChange receives every applied batch, on the daemon's thread
+     */
+    public WatchDaemon(Path root, WatchOptions options, Consumer<? super ChangeSet> onChange) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.options = Objects.requireNonNull(options, "options");
+        this.scanOptions = options.scanOptions();
+        this.index = scanOptions.directoryCache() instanceof ScanIndex i ? i : null;
+        this.onChange = Objects.requireNonNull(onChange, "onChange");
+        this.usage = new DiskUsage(options.topN());
+        this.scanner = new FileScanner(scanOptions);
+        this.watcher = this.root.getFileSystem().newWatchService();
+    }
+
+    /** Scans the tree, then starts applying changes on a background daemon thread. */
+    public synchronized ScanSummary start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("already started");
+        }
+        ScanSummary summary = scan(root, ScanListener.NO_PARENT);
+        lastSave = System.nanoTime();
+        thread = new Thread(this::run, "clear-ai-watch");
+        thread.setDaemon(true);
+        thread.start();
+        return summary;
+    }
+
+    /** The live rollup of the watched tree. */
+    public DiskUsage usage() {
+        return usage;
+    }
+
+    /** Number of directories currently tracked. */
+    public int directoryCount() {
+        return directories.size();
+    }
+
+    /** Number of directories that could not be registered with the watch service. */
+    public long unwatchedDirectories() {
+        return unwatched.sum();
+    }
+
+    /** Number of directories that could not be read while applying changes. */
+    public long errors() {
+        return errors.sum();
+    }
+
+    /** Stops watching and saves the index if it changed. */
+    @Override
+    public void close() throws IOException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        watcher.close();
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        scanner.close();
+        if (index != null && index.isDirty()) {
+            index.save();
+        }
+    }
+
+    private void run() {
+        Duration debounce = options.debounce();
+        long maxLatency = options.maxLatency().toNanos();
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Batch batch = new Batch();
+                batch.add(key);
+                long deadline = System.nanoTime() + maxLatency;
+                for (long left = maxLatency; left > 0; left = deadline - System.nanoTime()) {
+                    key = watcher.poll(Math.min(debounce.toNanos(), left), TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    batch.add(key);
+                }
+                onChange.accept(apply(batch));
+                saveIfDue();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed: stop quietly.
+        }
+    }
+
+    /** Events of one debounce window, coalesced per directory. */
+    private final class Batch {
+        int events;
+        final Set<Path> relist = new LinkedHashSet<>();
+        final Set<Path> rescan = new LinkedHashSet<>();
+
+        void add(WatchKey key) {
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                events++;
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    rescan.add(dir);
+                } else {
+                    relist.add(dir);
+                }
+            }
+            // An invalid key means the directory itself is gone; its parent's events deal with that.
+            key.reset();
+        }
+    }
+
+    private ChangeSet apply(Batch batch) {
+        long start = System.nanoTime();
+        long metricsStart = METRICS.start();
+        List<Path> relisted = new ArrayList<>();
+        List<Path> rescanned = new ArrayList<>();
+        List<Path> removed = new ArrayList<>();
+
+        // Rescan the outermost overflowed subtrees; anything inside them needs no other work.
+        List<Path> subtrees = outermost(batch.rescan);
+        for (Path dir : subtrees) {
+            DirectoryState state = directories.get(dir);
+            if (state == null) {
+                continue;
+            }
+            DirectoryState parent = dir.equals(root) ? null : directories.get(dir.getParent());
+            int parentId = parent == null ? ScanListener.NO_PARENT : parent.usageId;
+            forget(dir, state, false);
+            try {
+                scan(dir, parentId);
+                rescanned.add(dir);
+            } catch (IOException e) {
+                errors.increment();
+                METRICS.error();
+                removed.add(dir);
+            }
+        }
+        for (Path dir : batch.relist) {
+            DirectoryState state = directories.get(dir);
+            if (state == null || within(dir, subtrees)) {
+                continue;
+            }
+            try {
+                relist(dir, state, rescanned, removed);
+                relisted.add(dir);
+            } catch (NoSuchFileException e) {
+                // Removed since the event; the parent's deletion event drops it.
+            } catch (IOException e) {
+                errors.increment();
+                METRICS.error();
+            }
+        }
+        METRICS.record(batch.events, 0, metricsStart);
+        return new ChangeSet(batch.events, relisted, rescanned, removed, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /** Scans {@code dir} as a whole subtree, tracking and watching every directory in it. */
+    private ScanSummary scan(Path dir, int parentId) throws IOException {
+        UsageIds ids = new UsageIds();
+        ScanListener listener = new ScanListener() {
+            @Override
+            public void directoryVisited(int dirId, int scanParent, Path d) {
+                int usageParent = scanParent == NO_PARENT ? parentId : ids.get(scanParent);
+                if (usageParent == UsageIds.NONE) {
+                    // The scanner reports a parent before its children, so this cannot happen; stay safe if it does.
+                    errors.increment();
+                    return;
+                }
+                int usageId = usage.addDirectory(usageParent, d);
+                ids.put(dirId, usageId);
+                track(d, usageId);
+            }
+
+            @Override
+            public void fileVisited(int dirId, Path file, long size, long lastModified) {
+                int usageId = ids.get(dirId);
+                if (usageId != UsageIds.NONE) {
+                    usage.fileVisited(usageId, file, size, lastModified);
+                }
+            }
+        };
+        return scanner.scan(dir, listener);
+    }
+
+    /** Starts tracking a directory; called before the directory is listed. */
+    private void track(Path dir, int usageId) {
+        directories.put(dir, new DirectoryState(usageId));
+        if (!dir.equals(root)) {
+            DirectoryState parent = directories.get(dir.getParent());
+            if (parent != null) {
+                parent.children.add(dir.getFileName().toString());
+            }
+        }
+        try {
+            dir.register(watcher, KINDS);
+        } catch (IOException e) {
+            unwatched.increment();
+        }
+    }
+
+    /**
+     * Stops tracking {@code dir} and its subtree. With {@code deleted} the
+     * subtree is also dropped from the index; otherwise it is about to be
+     * rescanned and the index entries are what make that cheap.
+     */
+    private void forget(Path dir, DirectoryState state, boolean deleted) {
+        List<Path> pending = new ArrayList<>();
+        pending.add(dir);
+        while (!pending.isEmpty()) {
+            Path d = pending.remove(pending.size() - 1);
+            DirectoryState s = directories.remove(d);
+            if (s == null) {
+                continue;
+            }
+            // Every id is released, not just the subtree's root, since released ids are reused.
+            usage.remove(s.usageId);
+            for (String child : s.children) {
+                pending.add(d.resolve(child));
+            }
+            if (deleted && index != null) {
+                index.invalidate(d);
+            }
+        }
+    }
+
+    /** Reads the entries of {@code dir} again and brings index, rollup and tracking in line with them. */
+    private void relist(Path dir, DirectoryState state, List<Path> rescanned, List<Path> removed)
+            throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        DirectoryListing.Builder listing = DirectoryListing.builder();
+        boolean lossy = false;
+        long bytes = 0;
+        long files = 0;
+        Set<String> present = new HashSet<>();
+        List<Path> added = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                String name = entry.getFileName().toString();
+                BasicFileAttributes a;
+                try {
+                    a = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                lossy |= !roundTrips(dir, entry, name);
+                boolean hidden = scanOptions.skipHidden() && name.startsWith(".");
+                if (a.isDirectory()) {
+                    listing.addSubdirectory(name);
+                    if (!hidden && scanOptions.directoryFilter().test(entry)) {
+                        present.add(name);
+                        if (!state.children.contains(name)) {
+                            added.add(entry);
+                        }
+                    }
+                } else if (!a.isSymbolicLink()) {
+                    listing.addFile(name, a.size(), a.lastModifiedTime().toMillis());
+                    if (!hidden) {
+                        bytes += a.size();
+                        files++;
+                    }
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+
+        if (lossy) {
+            if (index != null) {
+                index.invalidate(dir);
+            }
+        } else if (scanOptions.directoryCache() != null) {
+            scanOptions.directoryCache().update(dir, attrs, listing.build());
+        }
+        usage.setFiles(state.usageId, bytes, files);
+
+        for (String name : List.copyOf(state.children)) {
+            if (!present.contains(name)) {
+                state.children.remove(name);
+                Path child = dir.resolve(name);
+                DirectoryState gone = directories.get(child);
+                if (gone != null) {
+                    forget(child, gone, true);
+                    removed.add(child);
+                }
+            }
+        }
+        for (Path child : added) {
+            try {
+                scan(child, state.usageId);
+                rescanned.add(child);
+            } catch (IOException e) {
+                errors.increment();
+                METRICS.error();
+            }
+        }
+    }
+
+    private void saveIfDue() {
+        long now = System.nanoTime();
+        if (index == null || !index.isDirty() || now - lastSave < options.saveInterval().toNanos()) {
+            return;
+        }
+        lastSave = now;
+        try {
+            index.save();
+        } catch (IOException e) {
+            errors.increment();
+        }
+    }
+
+    /** Returns the paths of {@code dirs} that are not inside another of them. */
+    private static List<Path> outermost(Set<Path> dirs) {
+        List<Path> sorted = new ArrayList<>(dirs);
+        sorted.sort(null);
+        List<Path> out = new ArrayList<>();
+        for (Path dir : sorted) {
+            if (!within(dir, out)) {
+                out.add(dir);
+            }
+        }
+        return out;
+    }
+
+    private static boolean within(Path dir, List<Path> subtrees) {
+        for (Path subtree : subtrees) {
+            if (dir.startsWith(subtree)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Same test as the scanner: whether {@code name} resolves back to {@code entry}. */
+    private static boolean roundTrips(Path dir, Path entry, String name) {
+        if (name.indexOf('?') < 0 && name.indexOf('\uFFFD') < 0) {
+            return true;
+        }
+        try {
+            return dir.resolve(name).equals(entry);
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
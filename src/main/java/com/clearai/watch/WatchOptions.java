@@ -0,0 +1,123 @@
+package com.clearai.watch;
+
+import com.clearai.scan.ScanOptions;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable settings for a {@link WatchDaemon}. Create instances with {@link #builder()}.
+ */
+public final class WatchOptions {
+
+    private final ScanOptions scanOptions;
+    private final Duration debounce;
+    private final Duration maxLatency;
+    private final Duration saveInterval;
+    private final int topN;
+
+    private WatchOptions(Builder b) {
+        this.scanOptions = b.scanOptions;
+        this.debounce = b.debounce;
+        this.maxLatency = b.maxLatency;
+        this.saveInterval = b.saveInterval;
+        this.topN = b.topN;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static WatchOptions defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Options of the initial scan and of subtree rescans. A
+     * {@link com.clearai.index.ScanIndex} set as their directory cache is kept
+     * current with every change and saved periodically.
+     */
+    public ScanOptions scanOptions() {
+        return scanOptions;
+    }
+
+    /** Quiet time after the latest event before a batch of changes is applied. */
+    public Duration debounce() {
+        return debounce;
+    }
+
+    /** Longest time a change waits to be applied while events keep arriving. */
+    public Duration maxLatency() {
+        return maxLatency;
+    }
+
+    /** Minimum time between saves of a dirty index. */
+    public Duration saveInterval() {
+        return saveInterval;
+    }
+
+    /** Number of largest directories in the daemon's usage snapshots. */
+    public int topN() {
+        return topN;
+    }
+
+    public static final class Builder {
+
+        private ScanOptions scanOptions = ScanOptions.defaults();
+        private Duration debounce = Duration.ofMillis(200);
+        private Duration maxLatency = Duration.ofSeconds(2);
+        private Duration saveInterval = Duration.ofMinutes(5);
+        private int topN = 20;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException if {@code scanOptions} follow links or
+         *                                  limit the depth, which watching does not support
+         */
+        public Builder scanOptions(ScanOptions scanOptions) {
+            if (scanOptions.followLinks()) {
+                throw new IllegalArgumentException("watch mode cannot follow links");
+            }
+            if (scanOptions.maxDepth() != Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("watch mode does not support maxDepth");
+            }
+            this.scanOptions = scanOptions;
+            return this;
+        }
+
+        public Builder debounce(Duration debounce) {
+            if (debounce.isNegative()) {
+                throw new IllegalArgumentException("debounce must not be negative: " + debounce);
+            }
+            this.debounce = debounce;
+            return this;
+        }
+
+        public Builder maxLatency(Duration maxLatency) {
+            if (maxLatency.isNegative()) {
+                throw new IllegalArgumentException("maxLatency must not be negative: " + maxLatency);
+            }
+            this.maxLatency = maxLatency;
+            return this;
+        }
+
+        public Builder saveInterval(Duration saveInterval) {
+            this.saveInterval = Objects.requireNonNull(saveInterval, "saveInterval");
+            return this;
+        }
+
+        public Builder topN(int topN) {
+            if (topN < 0) {
+                throw new IllegalArgumentException("topN must not be negative: " + topN);
+            }
+            this.topN = topN;
+            return this;
+        }
+
+        public WatchOptions build() {
+            return new WatchOptions(this);
+        }
+    }
+}
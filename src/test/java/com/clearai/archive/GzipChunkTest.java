@@ -0,0 +1,157 @@
+package com.clearai.archive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipChunkTest {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final Deflater deflater = new Deflater(6, true);
+    private final Inflater inflater = new Inflater(true);
+
+    @AfterEach
+    void end() {
+        deflater.end();
+        inflater.end();
+    }
+
+    @Test
+    void writesMembersThatGzipReadsAsOneStream() throws IOException {
+        byte[] text = "the same line again and again\n".repeat(2000).getBytes();
+        byte[] noise = random(CHUNK, 1);
+        Path archive = dir.resolve("a.gz");
+        List<GzipChunk.Member> members = write(archive, text, noise);
+
+        assertTrue(members.get(0).compressed() < text.length / 10);
+        assertEquals(text.length, members.get(0).length());
+        byte[] expected = new byte[text.length + noise.length];
+        System.arraycopy(text, 0, expected, 0, text.length);
+        System.arraycopy(noise, 0, expected, text.length, noise.length);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void keepsIncompressibleDataWithinItsBound() throws IOException {
+        byte[] noise = random(CHUNK, 2);
+        List<GzipChunk.Member> members = write(dir.resolve("a.gz"), noise);
+
+        assertTrue(members.get(0).compressed() > CHUNK);
+        assertNull(verify(dir.resolve("a.gz"), members.get(0)));
+    }
+
+    @Test
+    void verifiesEveryMemberWhereItWasWritten() throws IOException {
+        Path archive = dir.resolve("a.gz");
+        List<GzipChunk.Member> members = write(archive, random(1000, 3), new byte[0], random(CHUNK, 4));
+
+        for (GzipChunk.Member m : members) {
+            assertNull(verify(archive, m), m.toString());
+        }
+    }
+
+    @Test
+    void reportsAFlippedByteAnywhereInTheMember() throws IOException {
+        Path archive = dir.resolve("a.gz");
+        GzipChunk.Member m = write(archive, random(CHUNK / 2, 5)).get(0);
+
+        assertEquals("bad gzip header", corrupted(archive, m, 1));
+        for (int at = GzipChunk.HEADER; at < m.compressed() - GzipChunk.TRAILER; at += 997) {
+            assertNotNull(corrupted(archive, m, at), "byte " + at);
+        }
+        assertEquals("checksum mismatch", corrupted(archive, m, m.compressed() - GzipChunk.TRAILER));
+        assertNotNull(corrupted(archive, m, m.compressed() - 1));
+    }
+
+    @Test
+    void reportsATruncatedArchive() throws IOException {
+        Path archive = dir.resolve("a.gz");
+        GzipChunk.Member m = write(archive, random(1000, 6)).get(0);
+        try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            ch.truncate(m.compressed() - 3);
+        }
+        assertEquals("archive is truncated", verify(archive, m));
+    }
+
+    @Test
+    void reportsAMemberThatDoesNotMatchWhatWasRecorded() throws IOException {
+        Path archive = dir.resolve("a.gz");
+        GzipChunk.Member m = write(archive, random(1000, 7)).get(0);
+
+        assertNotNull(verify(archive, new GzipChunk.Member(m.offset(), m.compressed(), m.length() + 1, m.crc())));
+        assertEquals("checksum mismatch",
+                verify(archive, new GzipChunk.Member(m.offset(), m.compressed(), m.length(), m.crc() + 1)));
+    }
+
+    /** Compresses each part into a member of its own and appends them all to {@code archive}. */
+    private List<GzipChunk.Member> write(Path archive, byte[]... parts) throws IOException {
+        List<GzipChunk.Member> members = new ArrayList<>();
+        GzipChunk chunk = new GzipChunk(CHUNK);
+        try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            for (byte[] part : parts) {
+                chunk.data.clear().put(part);
+                chunk.compress(deflater);
+                long offset = ch.position();
+                int compressed = chunk.member.remaining();
+                while (chunk.member.hasRemaining()) {
+                    ch.write(chunk.member);
+                }
+                members.add(new GzipChunk.Member(offset, compressed, chunk.length, chunk.crc));
+            }
+        }
+        return members;
+    }
+
+    private String verify(Path archive, GzipChunk.Member m) throws IOException {
+        try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.READ)) {
+            return new GzipChunk(CHUNK).verify(ch, m, inflater);
+        }
+    }
+
+    /** Verifies {@code m} with the byte at {@code at} flipped, then puts it back. */
+    private String corrupted(Path archive, GzipChunk.Member m, int at) throws IOException {
+        try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, m.offset() + at);
+            byte original = b.get(0);
+            ch.write(b.put(0, (byte) ~original).rewind(), m.offset() + at);
+            try {
+                return new GzipChunk(CHUNK).verify(ch, m, inflater);
+            } finally {
+                ch.write(b.put(0, original).rewind(), m.offset() + at);
+            }
+        }
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] b = new byte[length];
+        new SplittableRandom(seed).nextBytes(b);
+        return b;
+    }
+}
@@ -0,0 +1,127 @@
+package com.clearai.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TarFormatTest {
+
+    private static final int BLOCK = TarFormat.BLOCK;
+
+    @Test
+    void writesAShortAsciiNameAsASingleUstarBlock() {
+        byte[] h = TarFormat.fileHeader("logs/app.log", 1234, 1_700_000_000_999L, 0100644, 1000, 100);
+
+        assertEquals(BLOCK, h.length);
+        assertEquals("logs/app.log", name(h, 0));
+        assertEquals(1234, octal(h, 124, 12));
+        assertEquals(1_700_000_000L, octal(h, 136, 12));
+        assertEquals(0644, octal(h, 100, 8));
+        assertEquals(1000, octal(h, 108, 8));
+        assertEquals(100, octal(h, 116, 8));
+        assertEquals('0', h[156]);
+        assertArrayEquals("ustar\u000000".getBytes(StandardCharsets.US_ASCII), Arrays.copyOfRange(h, 257, 265));
+        assertChecksum(h, 0);
+    }
+
+    @Test
+    void putsALongNameInAPaxRecord() {
+        String name = "deep/" + "d".repeat(120) + "/file.txt";
+        byte[] h = TarFormat.fileHeader(name, 7, 0, 0644, 0, 0);
+
+        assertEquals(Map.of("path", name), pax(h));
+        assertEquals(name.substring(0, 100), name(h, h.length - BLOCK));
+        assertEquals(7, octal(h, h.length - BLOCK + 124, 12));
+    }
+
+    @Test
+    void putsANonAsciiNameInAPaxRecord() {
+        String name = "données/café.log";
+        byte[] h = TarFormat.fileHeader(name, 7, 0, 0644, 0, 0);
+
+        assertEquals(Map.of("path", name), pax(h));
+    }
+
+    @Test
+    void putsSizesAndOwnersThatOverflowTheirFieldsInPaxRecords() {
+        long size = 10L << 30;
+        byte[] h = TarFormat.fileHeader("big.bin", size, 0, 0644, 3_000_000, 4_000_000);
+
+        assertEquals(Map.of("size", Long.toString(size), "uid", "3000000", "gid", "4000000"), pax(h));
+        int ustar = h.length - BLOCK;
+        assertEquals(0, octal(h, ustar + 124, 12));
+        assertEquals(0, octal(h, ustar + 108, 8));
+        assertEquals(0, octal(h, ustar + 116, 8));
+        assertEquals("big.bin", name(h, ustar));
+    }
+
+    @Test
+    void countsEachPaxRecordsLengthIncludingItsOwnDigits() {
+        // Name lengths that take the record across 99/100 and 999/1000 bytes.
+        for (int n = 88; n < 1010; n++) {
+            String name = "x".repeat(n) + "é";
+            assertEquals(name, pax(TarFormat.fileHeader(name, 1, 0, 0644, 0, 0)).get("path"), "length " + n);
+        }
+    }
+
+    @Test
+    void roundsSizesUpToWholeBlocks() {
+        assertEquals(0, TarFormat.padded(0));
+        assertEquals(BLOCK, TarFormat.padded(1));
+        assertEquals(BLOCK, TarFormat.padded(BLOCK));
+        assertEquals(2L * BLOCK, TarFormat.padded(BLOCK + 1L));
+    }
+
+    /** Checks the pax header in front of {@code h} and returns its records in order. */
+    private static Map<String, String> pax(byte[] h) {
+        assertEquals('x', h[156]);
+        assertChecksum(h, 0);
+        int length = (int) octal(h, 124, 12);
+        assertEquals(BLOCK + TarFormat.padded(length) + BLOCK, h.length);
+        assertChecksum(h, h.length - BLOCK);
+        assertEquals('0', h[h.length - BLOCK + 156]);
+
+        Map<String, String> records = new LinkedHashMap<>();
+        int at = BLOCK;
+        while (at < BLOCK + length) {
+            int space = at;
+            while (h[space] != ' ') {
+                space++;
+            }
+            int declared = Integer.parseInt(new String(h, at, space - at, StandardCharsets.US_ASCII));
+            assertEquals('\n', h[at + declared - 1], "record length");
+            String record = new String(h, space + 1, at + declared - 1 - (space + 1), StandardCharsets.UTF_8);
+            int eq = record.indexOf('=');
+            records.put(record.substring(0, eq), record.substring(eq + 1));
+            at += declared;
+        }
+        assertEquals(BLOCK + length, at);
+        return records;
+    }
+
+    private static String name(byte[] h, int block) {
+        int end = block;
+        while (end < block + 100 && h[end] != 0) {
+            end++;
+        }
+        return new String(h, block, end - block, StandardCharsets.UTF_8);
+    }
+
+    private static long octal(byte[] h, int offset, int length) {
+        return Long.parseLong(new String(h, offset, length - 1, StandardCharsets.US_ASCII), 8);
+    }
+
+    private static void assertChecksum(byte[] h, int block) {
+        long sum = 0;
+        for (int i = block; i < block + BLOCK; i++) {
+            sum += i >= block + 148 && i < block + 156 ? ' ' : h[i] & 0xff;
+        }
+        assertEquals(sum, octal(h, block + 148, 7));
+    }
+}
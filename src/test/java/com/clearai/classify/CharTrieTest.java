@@ -0,0 +1,85 @@
+package com.clearai.classify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CharTrieTest {
+
+    @Test
+    void collectsEveryPrefixOfTheSegment() {
+        CharTrie trie = new CharTrie();
+        RuleSet.Node core = put(trie, "core", false, 1);
+        RuleSet.Node co = put(trie, "co", false, 2);
+        put(trie, "cache", false, 3);
+
+        assertEquals(List.of(co, core), collect(trie, "x/core.123/y", 2, 10, false));
+        assertEquals(List.of(co), collect(trie, "cob", 0, 3, false));
+        assertEquals(List.of(), collect(trie, "cab", 0, 3, false));
+        assertEquals(List.of(), collect(trie, "c", 0, 1, false));
+    }
+
+    @Test
+    void collectsEverySuffixWhenReversed() {
+        CharTrie trie = new CharTrie();
+        RuleSet.Node log = put(trie, ".log", true, 1);
+        RuleSet.Node gz = put(trie, ".log.gz", true, 2);
+        RuleSet.Node z = put(trie, "z", true, 3);
+
+        assertEquals(List.of(z, gz), collect(trie, "server.log.gz", 0, 13, true));
+        assertEquals(List.of(log), collect(trie, "/a/server.log", 3, 13, true));
+        assertEquals(List.of(), collect(trie, "server.log.1", 0, 12, true));
+    }
+
+    @Test
+    void anEmptyKeyMatchesEverything() {
+        CharTrie trie = new CharTrie();
+        assertTrue(trie.isEmpty());
+        RuleSet.Node all = put(trie, "", false, 1);
+        assertFalse(trie.isEmpty());
+        assertEquals(List.of(all), collect(trie, "anything", 0, 8, false));
+        assertEquals(List.of(all), collect(trie, "", 0, 0, false));
+    }
+
+    @Test
+    void triesGlobsOnlyOnSegmentsWithTheirLiteralPart() {
+        CharTrie heads = new CharTrie();
+        RuleSet.Node core = new RuleSet.Node(1);
+        heads.addGlob("core", false, new Glob("core.*x?"), core);
+        RuleSet.Node dump = new RuleSet.Node(2);
+        heads.addGlob("core", false, new Glob("core?dump*"), dump);
+        assertFalse(heads.isEmpty());
+
+        assertEquals(List.of(dump), collect(heads, "core-dump.1", 0, 11, false));
+        assertEquals(List.of(), collect(heads, "cores", 0, 5, false));
+
+        CharTrie tails = new CharTrie();
+        RuleSet.Node log = new RuleSet.Node(3);
+        tails.addGlob(".log", true, new Glob("app-?*.log"), log);
+        assertEquals(List.of(log), collect(tails, "/var/app-1.log", 5, 14, true));
+        assertEquals(List.of(), collect(tails, "web-1.log", 0, 9, true));
+    }
+
+    @Test
+    void keepsTheFirstStateForARepeatedKey() {
+        CharTrie trie = new CharTrie();
+        RuleSet.Node first = put(trie, "tmp", false, 1);
+        assertSame(first, put(trie, "tmp", false, 2));
+    }
+
+    private static RuleSet.Node put(CharTrie trie, String key, boolean reverse, int id) {
+        return trie.computeIfAbsent(key, reverse, () -> new RuleSet.Node(id));
+    }
+
+    private static List<RuleSet.Node> collect(CharTrie trie, String s, int from, int to, boolean reverse) {
+        List<RuleSet.Node> found = new ArrayList<>();
+        trie.collect(s, from, to, reverse, found::add);
+        return found;
+    }
+}
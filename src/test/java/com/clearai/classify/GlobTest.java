@@ -0,0 +1,81 @@
+package com.clearai.classify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobTest {
+
+    @Test
+    void matchesLiteralsQuestionMarksAndStars() {
+        assertTrue(matches("abc", "abc"));
+        assertFalse(matches("abc", "abd"));
+        assertFalse(matches("abc", "abcd"));
+        assertTrue(matches("a?c", "abc"));
+        assertFalse(matches("a?c", "ac"));
+        assertTrue(matches("*.log.?", "server.log.1"));
+        assertFalse(matches("*.log.?", "server.log.10"));
+        assertTrue(matches("core.*.dump", "core.1234.dump"));
+        assertTrue(matches("core.*.dump", "core..dump"));
+        assertFalse(matches("core.*.dump", "core.dump"));
+        assertTrue(matches("*cache*", "cache"));
+        assertTrue(matches("*cache*", "webcache2"));
+        assertFalse(matches("*cache*", "cach"));
+        assertTrue(matches("a*b*c", "aXbYbZc"));
+        assertFalse(matches("a*b*c", "aXcYb"));
+        assertTrue(matches("**", ""));
+        assertTrue(matches("?*?", "ab"));
+        assertFalse(matches("?*?", "a"));
+    }
+
+    @Test
+    void matchesARangeOfALargerString() {
+        Glob glob = new Glob("*.t?p");
+        String path = "/home/u/file.tmp/x";
+        int from = path.indexOf("file");
+        assertTrue(glob.matches(path, from, from + "file.tmp".length()));
+        assertFalse(glob.matches(path, from, path.length()));
+    }
+
+    @Test
+    void agreesWithARegularExpressionOnRandomInput() {
+        SplittableRandom random = new SplittableRandom(42);
+        char[] patternChars = {'a', 'b', '.', '*', '?'};
+        char[] textChars = {'a', 'b', '.'};
+        for (int n = 0; n < 20_000; n++) {
+            String pattern = random(random, patternChars, 7);
+            String text = random(random, textChars, 9);
+            assertEquals(regex(pattern).matcher(text).matches(), matches(pattern, text),
+                    () -> pattern + " against " + text);
+        }
+    }
+
+    private static boolean matches(String glob, String s) {
+        return new Glob(glob).matches(s, 0, s.length());
+    }
+
+    private static String random(SplittableRandom random, char[] alphabet, int maxLength) {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(chars);
+    }
+
+    static Pattern regex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,201 @@
+package com.clearai.classify;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleSetTest {
+
+    private static final Path HOME = Path.of("/home/u");
+    private static final long NOW = TimeUnit.DAYS.toMillis(20_000);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    void matchesUnanchoredAnchoredAndHomePatterns() throws IOException {
+        RuleSet rules = parse("""
+                # comment
+
+                log       *.log
+                build     node_modules/**
+                cache     ~/.cache/**
+                temp      /tmp/**
+                """);
+
+        assertEquals(Category.LOG, category(rules, "/var/log/nginx/access.log"));
+        assertEquals(Category.LOG, category(rules, "access.log"));
+        assertEquals(Category.BUILD, category(rules, "/home/u/app/node_modules/react/index.js"));
+        assertEquals(Category.CACHE, category(rules, "/home/u/.cache/pip/wheel"));
+        assertEquals(Category.TEMP, category(rules, "/tmp/x/y"));
+        assertNull(category(rules, "/home/v/.cache/pip/wheel"));
+        assertNull(category(rules, "/var/tmp/x"));
+        assertNull(category(rules, "/var/log/nginx/access.log.1"));
+    }
+
+    @Test
+    void theEarliestMatchingRuleWins() throws IOException {
+        RuleSet rules = parse("""
+                cache     ~/.cache/**
+                log       *.log
+                """);
+        assertEquals(Category.CACHE, category(rules, "/home/u/.cache/app/debug.log"));
+        assertEquals(Category.LOG, category(rules, "/home/u/app/debug.log"));
+    }
+
+    @Test
+    void skipsRulesWhoseAgeConditionDoesNotHold() throws IOException {
+        RuleSet rules = parse("""
+                download  ~/Downloads/**          older-than=90d
+                temp      *.tmp
+                """);
+        assertEquals(Category.DOWNLOAD,
+                rules.classify(Path.of("/home/u/Downloads/a.tmp"), NOW - 91 * DAY, NOW).category());
+        assertEquals(Category.TEMP,
+                rules.classify(Path.of("/home/u/Downloads/a.tmp"), NOW - 89 * DAY, NOW).category());
+        assertNull(rules.classify(Path.of("/home/u/Downloads/a.iso"), NOW - 89 * DAY, NOW));
+    }
+
+    @Test
+    void toleratesRepeatedAndTrailingSeparators() throws IOException {
+        RuleSet rules = parse("build target/**");
+        assertEquals(Category.BUILD, category(rules, "/home//u/app/target//classes/"));
+    }
+
+    @Test
+    void rejectsMalformedRules() {
+        assertThrows(IllegalArgumentException.class, () -> parse("cache"));
+        assertThrows(IllegalArgumentException.class, () -> parse("junk *.log"));
+        assertThrows(IllegalArgumentException.class, () -> parse("log *.log older-than=5y"));
+        assertThrows(IllegalArgumentException.class, () -> parse("log / "));
+    }
+
+    @Test
+    void sharesStatesBetweenRulesWithACommonPrefix() throws IOException {
+        RuleSet shared = parse("""
+                cache ~/.cache/a/**
+                cache ~/.cache/b/**
+                """);
+        RuleSet separate = parse("""
+                cache ~/.cache/a/**
+                cache /opt/b/**
+                """);
+        assertTrue(shared.stateCount() < separate.stateCount());
+    }
+
+    @Test
+    void parsesTheDefaultRules() {
+        RuleSet defaults = RuleSet.defaults();
+        assertTrue(defaults.rules().size() > 20);
+        Rule rule = defaults.classify("/x/project/node_modules/react/index.js", NOW, NOW);
+        assertSame(Category.BUILD, rule.category());
+    }
+
+    /**
+     * Generates thousands of rules of every pattern shape the compiler
+     * distinguishes and checks the automaton against a direct recursive
+     * matcher on random paths built from the same vocabulary.
+     */
+    @Test
+    void agreesWithADirectMatcherOnGeneratedRules() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] words = {"a", "b", "ab", "ba", "cache", "build", "x.log", "y.tmp", ".git", "node_modules"};
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            rules.add(new Rule(i, Category.values()[random.nextInt(Category.values().length)],
+                    pattern(random, words), random.nextInt(4) == 0 ? (1 + random.nextInt(10)) * DAY : 0));
+        }
+        RuleSet compiled = RuleSet.compile(rules, HOME);
+        for (int n = 0; n < 5_000; n++) {
+            StringBuilder path = new StringBuilder(random.nextBoolean() ? "/home/u" : "");
+            for (int depth = random.nextInt(6); depth >= 0; depth--) {
+                path.append('/').append(segment(random, words, false));
+            }
+            long modified = NOW - random.nextInt(12) * DAY;
+            String p = path.toString();
+            assertSame(reference(rules, p, modified), compiled.classify(p, modified, NOW), p);
+        }
+    }
+
+    private static String pattern(SplittableRandom random, String[] words) {
+        StringBuilder pattern = new StringBuilder();
+        switch (random.nextInt(4)) {
+            case 0 -> pattern.append('/');
+            case 1 -> pattern.append("~/");
+            case 2 -> pattern.append("**/");
+            default -> {
+            }
+        }
+        for (int segments = 1 + random.nextInt(3); segments > 0; segments--) {
+            pattern.append(segment(random, words, true));
+            if (segments > 1) {
+                pattern.append('/');
+            }
+        }
+        return pattern.toString();
+    }
+
+    private static String segment(SplittableRandom random, String[] words, boolean wild) {
+        String word = words[random.nextInt(words.length)];
+        if (!wild) {
+            return random.nextInt(4) == 0 ? word + words[random.nextInt(words.length)] : word;
+        }
+        return switch (random.nextInt(8)) {
+            case 0 -> "**";
+            case 1 -> "*";
+            case 2 -> "*" + word.substring(random.nextInt(word.length()));
+            case 3 -> word.substring(0, 1 + random.nextInt(word.length())) + "*";
+            case 4 -> word.charAt(0) + "*" + word.charAt(word.length() - 1);
+            case 5 -> "?" + word.substring(1);
+            default -> word;
+        };
+    }
+
+    /** The lowest-priority rule whose pattern and age condition match, checked rule by rule. */
+    private static Rule reference(List<Rule> rules, String path, long modified) {
+        String[] segments = path.replaceAll("^/+", "").split("/+");
+        for (Rule rule : rules) {
+            String pattern = rule.pattern();
+            if (pattern.startsWith("~/")) {
+                pattern = HOME + pattern.substring(1);
+            } else if (!pattern.startsWith("/") && !pattern.startsWith("**")) {
+                pattern = "**/" + pattern;
+            }
+            String[] globs = pattern.replaceAll("^/+", "").split("/+");
+            if (matches(globs, 0, segments, 0) && rule.oldEnough(modified, NOW)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String[] globs, int g, String[] segments, int s) {
+        if (g == globs.length) {
+            return s == segments.length;
+        }
+        if (globs[g].equals("**")) {
+            return matches(globs, g + 1, segments, s) || s < segments.length && matches(globs, g, segments, s + 1);
+        }
+        return s < segments.length && GlobTest.regex(globs[g]).matcher(segments[s]).matches()
+                && matches(globs, g + 1, segments, s + 1);
+    }
+
+    private static RuleSet parse(String text) throws IOException {
+        return RuleSet.parse(new StringReader(text), HOME);
+    }
+
+    private static Category category(RuleSet rules, String path) {
+        Rule rule = rules.classify(path, NOW, NOW);
+        return rule == null ? null : rule.category();
+    }
+}
@@ -0,0 +1,57 @@
+package com.clearai.classify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentTableTest {
+
+    @Test
+    void looksUpARangeOfALargerString() {
+        SegmentTable table = new SegmentTable();
+        assertTrue(table.isEmpty());
+        RuleSet.Node modules = new RuleSet.Node(1);
+        table.put("node_modules", modules);
+        assertFalse(table.isEmpty());
+
+        String path = "/home/u/app/node_modules/react";
+        int from = path.indexOf("node_modules");
+        assertSame(modules, table.get(path, from, from + "node_modules".length()));
+        assertNull(table.get(path, from, from + "node_module".length()));
+        assertNull(table.get(path, from - 1, from + "node_modules".length()));
+        assertSame(modules, table.get("node_modules"));
+    }
+
+    @Test
+    void replacesTheValueOfAnExistingKey() {
+        SegmentTable table = new SegmentTable();
+        table.put("target", new RuleSet.Node(1));
+        RuleSet.Node replacement = new RuleSet.Node(2);
+        table.put("target", replacement);
+        assertSame(replacement, table.get("target"));
+    }
+
+    @Test
+    void keepsEveryKeyAcrossResizes() {
+        SegmentTable table = new SegmentTable();
+        Map<String, RuleSet.Node> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Keys of equal length and shared prefixes, so probing and collisions get exercised.
+            String key = "dir" + Integer.toString(i, 36);
+            RuleSet.Node node = new RuleSet.Node(i);
+            expected.put(key, node);
+            table.put(key, node);
+        }
+        for (Map.Entry<String, RuleSet.Node> e : expected.entrySet()) {
+            assertSame(e.getValue(), table.get(e.getKey()));
+        }
+        assertNull(table.get("missing"));
+        assertNull(table.get(""));
+    }
+}
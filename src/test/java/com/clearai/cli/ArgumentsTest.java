@@ -0,0 +1,70 @@
+package com.clearai.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArgumentsTest {
+
+    private static final Set<String> VALUED = Set.of("--top", "--limit");
+
+    @Test
+    void splitsCommandPositionalsAndOptions() {
+        Arguments args = parse("dupes", "a", "--limit", "5", "--recommend", "b", "--");
+
+        assertEquals("dupes", args.command);
+        assertEquals(List.of("a", "b", "--"), args.positional());
+        assertEquals(5, args.number("--limit", 10));
+        assertTrue(args.flag("--recommend"));
+        assertFalse(args.flag("--keep"));
+        assertEquals(10, args.number("--top", 10));
+    }
+
+    @Test
+    void takesTheNextArgumentAsTheValueEvenIfItLooksLikeAnOption() {
+        assertEquals(List.of(), parse("usage", "--top", "--limit").positional());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse("usage", "--top", "--limit").number("--top", 1));
+        assertEquals("--top must be a number: --limit", e.getMessage());
+    }
+
+    @Test
+    void treatsAnEmptyCommandLineAsHelp() {
+        assertEquals("help", parse().command);
+    }
+
+    @Test
+    void rejectsAValuedOptionWithoutAValue() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> parse("usage", "x", "--top"));
+        assertEquals("--top needs a value", e.getMessage());
+    }
+
+    @Test
+    void checksHowManyPathsACommandGets() {
+        assertEquals(Path.of("x"), parse("usage", "x").path());
+        assertThrows(IllegalArgumentException.class, () -> parse("usage").path());
+        assertThrows(IllegalArgumentException.class, () -> parse("usage", "x", "y").path());
+
+        assertEquals(List.of(Path.of("p"), Path.of("q")), parse("archive", "out.tar.gz", "p", "q").paths(1));
+        assertThrows(IllegalArgumentException.class, () -> parse("archive", "out.tar.gz").paths(1));
+    }
+
+    @Test
+    void listsOptionsTheCommandDoesNotKnow() {
+        Arguments args = parse("delete", "x", "--permanent", "--force", "--top", "3");
+
+        assertEquals(Set.of("--force", "--top"), Set.copyOf(args.unknown(Set.of("--permanent"))));
+        assertEquals(List.of(), args.unknown(Set.of("--permanent", "--force", "--top")));
+    }
+
+    private static Arguments parse(String... args) {
+        return new Arguments(args, VALUED);
+    }
+}
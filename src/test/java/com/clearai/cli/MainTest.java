@@ -0,0 +1,106 @@
+package com.clearai.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MainTest {
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private String home;
+
+    @BeforeEach
+    void isolateHome() {
+        // The delete commands keep their journals and trash under the home directory.
+        home = System.getProperty("user.home");
+        System.setProperty("user.home", dir.resolve("home").toString());
+    }
+
+    @AfterEach
+    void restoreHome() {
+        System.setProperty("user.home", home);
+    }
+
+    @Test
+    void printsUsageForHelpAndUnknownCommands() {
+        assertEquals(0, run());
+        assertTrue(out().startsWith("usage: clear-ai"));
+        out.reset();
+        assertEquals(0, run("--help"));
+        assertEquals(2, run("frobnicate"));
+        assertTrue(out().contains("usage: clear-ai"));
+    }
+
+    @Test
+    void rejectsBadOptionsWithStatusTwo() {
+        assertEquals(2, run("usage", dir.toString(), "--limit", "3"));
+        assertEquals("clear-ai: unknown option --limit for usage", err().strip());
+        err.reset();
+        assertEquals(2, run("usage", dir.toString(), "--top", "many"));
+        assertEquals("clear-ai: --top must be a number: many", err().strip());
+        err.reset();
+        assertEquals(2, run("usage"));
+        assertEquals("clear-ai: usage takes one path", err().strip());
+    }
+
+    @Test
+    void dispatchesToTheNamedCommand() throws IOException {
+        Path tree = dir.resolve("tree");
+        Files.createDirectories(tree.resolve("sub"));
+        Files.write(tree.resolve("sub/a.bin"), new byte[2048]);
+
+        assertEquals(0, run("usage", tree.toString(), "--top", "1"));
+
+        assertTrue(out().startsWith(tree + ": 2.0 KiB in 1 files and 2 directories"), out());
+        assertEquals("", err());
+    }
+
+    @Test
+    void reportsIoErrorsWithStatusOne() {
+        assertEquals(1, run("usage", dir.resolve("missing").toString()));
+        assertTrue(err().startsWith("clear-ai: java.nio.file.NoSuchFileException"), err());
+    }
+
+    @Test
+    void reportsAnUndoThatCannotBeDoneAsAnErrorNotAStackTrace() throws IOException {
+        Path victim = Files.write(dir.resolve("victim"), new byte[10]);
+        assertEquals(0, run("delete", victim.toString(), "--permanent"));
+        assertFalse(Files.exists(victim));
+        Matcher run = Pattern.compile("delete (\\S+):").matcher(out());
+        assertTrue(run.find(), out());
+
+        assertEquals(1, run("undo", run.group(1)));
+        assertEquals("clear-ai: run " + run.group(1) + " deleted permanently and cannot be undone", err().strip());
+    }
+
+    private int run(String... args) {
+        return Main.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String out() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String err() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+}
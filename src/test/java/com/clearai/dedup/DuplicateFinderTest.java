@@ -0,0 +1,205 @@
+package com.clearai.dedup;
+
+import com.clearai.index.ScanIndex;
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanOptions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateFinderTest {
+
+    private static final int BLOCK = 4096;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void groupsFilesWithIdenticalContent() throws Exception {
+        Path a = write("a", content(10_000, 1));
+        Path b = write("dir/b", content(10_000, 1));
+        Path c = write("dir/c", content(10_000, 1));
+        write("other", content(10_000, 2));
+        write("small", content(10, 1));
+
+        DuplicateReport report = find(DedupOptions.builder().partialBlockSize(BLOCK).build());
+
+        assertEquals(1, report.groups().size());
+        DuplicateGroup group = report.groups().get(0);
+        assertEquals(10_000, group.size());
+        assertEquals(List.of(a, b, c), group.files().stream().sorted().toList());
+        assertEquals(20_000, group.reclaimableBytes());
+        assertEquals(0, report.errors());
+    }
+
+    @Test
+    void separatesFilesThatOnlyDifferBetweenTheSampledBlocks() throws Exception {
+        byte[] middle = content(3 * BLOCK, 7);
+        Path a = write("a", middle);
+        byte[] changed = middle.clone();
+        changed[BLOCK + 10] ^= 1;
+        write("b", changed);
+        Path c = write("c", middle);
+
+        DuplicateReport report = find(DedupOptions.builder().partialBlockSize(BLOCK).build());
+
+        assertEquals(1, report.groups().size());
+        assertEquals(List.of(a, c), report.groups().get(0).files().stream().sorted().toList());
+        StageStats partial = stage(report, "partial");
+        assertEquals(3, partial.filesOut());
+        StageStats full = stage(report, "full");
+        assertEquals(3, full.filesIn());
+        assertEquals(2, full.filesOut());
+    }
+
+    @Test
+    void reportsHardLinksAsOneFileWithOtherNames() throws Exception {
+        Path a = write("a", content(5_000, 3));
+        Path link = Files.createLink(root.resolve("z-link"), a);
+        Path copy = write("copy", content(5_000, 3));
+
+        DuplicateReport report = find(DedupOptions.defaults());
+
+        assertEquals(1, report.groups().size());
+        DuplicateGroup group = report.groups().get(0);
+        assertEquals(List.of(a, copy), group.files().stream().sorted().toList());
+        assertEquals(Map.of(a, List.of(link)), group.otherNames());
+        assertEquals(List.of(), group.otherNames(copy));
+        assertEquals(5_000, group.reclaimableBytes());
+        StageStats links = stage(report, "links");
+        assertEquals(3, links.filesIn());
+        assertEquals(2, links.filesOut());
+    }
+
+    @Test
+    void namesOfASingleFileAreNotDuplicates() throws Exception {
+        Path a = write("a", content(5_000, 4));
+        Files.createLink(root.resolve("b"), a);
+        Files.createLink(root.resolve("c"), a);
+
+        DuplicateReport report = find(DedupOptions.defaults());
+
+        assertEquals(List.of(), report.groups());
+        assertEquals(0, report.reclaimableBytes());
+        assertEquals(0, stage(report, "links").filesOut());
+        assertEquals(15_000, stage(report, "links").bytesAvoided());
+    }
+
+    @Test
+    void ignoresFilesBelowTheMinimumSize() throws Exception {
+        write("a", content(100, 1));
+        write("b", content(100, 1));
+
+        assertEquals(List.of(), find(DedupOptions.builder().minSize(101).build()).groups());
+        assertEquals(1, find(DedupOptions.builder().minSize(100).build()).groups().size());
+    }
+
+    @Test
+    void countsFilesThatVanishBeforeHashingAsErrors() throws Exception {
+        Path a = write("a", content(1_000, 1));
+        Path b = write("b", content(1_000, 1));
+        write("c", content(1_000, 1));
+        DuplicateFinder finder = new DuplicateFinder(DedupOptions.defaults());
+        finder.add(a, 1_000, Files.getLastModifiedTime(a).toMillis());
+        finder.add(b, 1_000, Files.getLastModifiedTime(b).toMillis());
+        finder.add(root.resolve("gone"), 1_000, 0);
+
+        DuplicateReport report = finder.find();
+
+        assertEquals(1, report.errors());
+        assertEquals(1, report.groups().size());
+        assertEquals(List.of(a, b), report.groups().get(0).files().stream().sorted().toList());
+    }
+
+    @Test
+    void recordsFullHashesInTheIndexAndReusesThem() throws Exception {
+        byte[] data = content(3 * BLOCK, 9);
+        Path a = write("a", data);
+        write("b", data);
+        ScanIndex index = ScanIndex.create(root.resolveSibling(root.getFileName() + ".index"));
+        ScanOptions scan = ScanOptions.builder().directoryCache(index).build();
+        DedupOptions options = DedupOptions.builder().partialBlockSize(BLOCK).index(index).build();
+
+        DuplicateReport first = find(scan, options);
+        assertNotNull(index.contentHash(a, data.length, Files.getLastModifiedTime(a).toMillis()));
+        assertTrue(stage(first, "full").bytesRead() > 0);
+
+        DuplicateReport second = find(scan, options);
+        assertEquals(first.groups(), second.groups());
+        assertEquals(0, stage(second, "full").bytesRead());
+        assertEquals(2L * data.length, stage(second, "full").bytesAvoided());
+    }
+
+    @Test
+    void rehashesAFileRewrittenInPlaceUnderAReplayedDirectory() throws Exception {
+        byte[] data = content(3 * BLOCK, 9);
+        Path a = write("a", data);
+        Path b = write("b", data);
+        ScanIndex index = ScanIndex.create(root.resolveSibling(root.getFileName() + ".index"));
+        ScanOptions scan = ScanOptions.builder().directoryCache(index).build();
+        DedupOptions options = DedupOptions.builder().partialBlockSize(BLOCK).index(index).build();
+        assertEquals(1, find(scan, options).groups().size());
+
+        // Same size, same first and last blocks, and the directory's own time is left alone, so the
+        // scan replays the old listing and only the fresh stat can tell that a changed.
+        FileTime dirTime = Files.getLastModifiedTime(root);
+        FileTime before = Files.getLastModifiedTime(a);
+        byte[] changed = data.clone();
+        changed[BLOCK + 10] ^= 1;
+        Files.write(a, changed);
+        Files.setLastModifiedTime(a, FileTime.fromMillis(before.toMillis() + 5_000));
+        Files.setLastModifiedTime(root, dirTime);
+
+        DuplicateReport second = find(scan, options);
+
+        assertEquals(List.of(), second.groups());
+        assertEquals(data.length, stage(second, "full").bytesRead());
+        assertNotNull(index.contentHash(b, data.length, Files.getLastModifiedTime(b).toMillis()));
+    }
+
+    private DuplicateReport find(DedupOptions options) throws IOException, InterruptedException,
+            NoSuchAlgorithmException {
+        return find(ScanOptions.defaults(), options);
+    }
+
+    private DuplicateReport find(ScanOptions scan, DedupOptions options) throws IOException, InterruptedException,
+            NoSuchAlgorithmException {
+        DuplicateFinder finder = new DuplicateFinder(options);
+        try (FileScanner scanner = new FileScanner(scan)) {
+            scanner.scan(root, finder);
+        }
+        return finder.find();
+    }
+
+    private static StageStats stage(DuplicateReport report, String name) {
+        return report.stages().stream().filter(s -> s.stage().equals(name)).findFirst().orElseThrow();
+    }
+
+    private Path write(String name, byte[] data) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, data);
+    }
+
+    private static byte[] content(int size, int seed) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) seed);
+        for (int i = 0; i < size; i += 97) {
+            data[i] = (byte) (i * seed);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,173 @@
+package com.clearai.delete;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeletionExecutorTest {
+
+    @TempDir
+    Path temp;
+
+    private Path root;
+    private Path trash;
+
+    @BeforeEach
+    void createTree() throws IOException {
+        root = temp.resolve("tree");
+        trash = temp.resolve("trash");
+        write("a.txt", "a");
+        write("dir/b.txt", "b");
+        write("dir/sub/c.txt", "c");
+        for (int i = 0; i < 10; i++) {
+            write("many/f" + i, "f" + i);
+        }
+    }
+
+    @Test
+    void trashesEntriesAndUndoPutsThemBack() throws Exception {
+        DeletionExecutor executor = executor(DeletionOptions.Mode.TRASH, 3);
+        DeletionReport deleted = executor.delete(List.of(root.resolve("a.txt"), root.resolve("dir"),
+                root.resolve("many/f1"), root.resolve("many/f2")));
+
+        assertEquals(4, deleted.succeeded());
+        assertEquals(List.of(), deleted.failures());
+        assertFalse(Files.exists(root.resolve("a.txt")));
+        assertFalse(Files.exists(root.resolve("dir")));
+        assertFalse(Files.exists(root.resolve("many/f1")));
+        assertEquals(List.of(deleted.runId()), executor.runs());
+        assertTrue(TrashJournal.read(journal(deleted.runId())).committed);
+
+        DeletionReport undone = executor.undo(deleted.runId());
+        assertEquals(4, undone.succeeded());
+        assertEquals(List.of(), undone.failures());
+        assertEquals("c", Files.readString(root.resolve("dir/sub/c.txt")));
+        assertEquals("a", Files.readString(root.resolve("a.txt")));
+        assertEquals("f2", Files.readString(root.resolve("many/f2")));
+        assertFalse(Files.exists(trash.resolve(deleted.runId())));
+
+        executor.purge(deleted.runId());
+        assertTrue(Files.exists(root.resolve("a.txt")));
+    }
+
+    @Test
+    void splitsLargeDirectoriesIntoBatches() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            files.add(root.resolve("many/f" + i));
+        }
+        DeletionReport report = executor(DeletionOptions.Mode.TRASH, 3).delete(files);
+
+        assertEquals(10, report.succeeded());
+        TrashJournal.State state = TrashJournal.read(journal(report.runId()));
+        assertEquals(4, state.batches.size());
+        assertEquals(4, state.done.size());
+    }
+
+    @Test
+    void dropsCandidatesCoveredByAnotherCandidate() throws Exception {
+        DeletionReport report = executor(DeletionOptions.Mode.TRASH, 100).delete(List.of(
+                root.resolve("dir/sub/c.txt"), root.resolve("dir"), root.resolve("dir/b.txt"),
+                root.resolve("a.txt"), root.resolve("tree/../a.txt").normalize(), root.resolve("dir/sub")));
+
+        assertEquals(2, report.entries());
+        assertEquals(2, report.succeeded());
+        assertEquals(List.of(), report.failures());
+    }
+
+    @Test
+    void deletesPermanentlyAndRefusesToUndo() throws Exception {
+        DeletionExecutor executor = executor(DeletionOptions.Mode.PERMANENT, 100);
+        DeletionReport report = executor.delete(List.of(root.resolve("dir"), root.resolve("a.txt")));
+
+        assertEquals(2, report.succeeded());
+        assertFalse(Files.exists(root.resolve("dir")));
+        assertThrows(IllegalStateException.class, () -> executor.undo(report.runId()));
+    }
+
+    @Test
+    void reportsMissingEntriesAsFailures() throws Exception {
+        Path gone = root.resolve("gone");
+        DeletionReport report = executor(DeletionOptions.Mode.TRASH, 100).delete(List.of(gone, root.resolve("a.txt")));
+
+        assertEquals(1, report.succeeded());
+        assertEquals(List.of(new DeletionReport.Failure(gone.toString(), "missing")), report.failures());
+    }
+
+    @Test
+    void refusesToDeleteARootDirectory() {
+        assertThrows(IllegalArgumentException.class,
+                () -> executor(DeletionOptions.Mode.TRASH, 100).delete(List.of(root.getRoot())));
+    }
+
+    @Test
+    void resumeFinishesAnInterruptedRun() throws Exception {
+        DeletionExecutor executor = executor(DeletionOptions.Mode.TRASH, 100);
+        Path batchDir = Files.createDirectories(trash.resolve("crashed/0"));
+        Path a = root.resolve("a.txt");
+        Path b = root.resolve("dir/b.txt");
+        try (TrashJournal journal = TrashJournal.create(journal("crashed"), "crashed", DeletionOptions.Mode.TRASH)) {
+            journal.batch(new TrashJournal.Batch(0, List.of(
+                    new TrashJournal.Entry(a.toString(), batchDir.resolve("a.txt").toString()),
+                    new TrashJournal.Entry(b.toString(), batchDir.resolve("b.txt").toString()))));
+        }
+        // The crash happened after the first entry was moved.
+        Files.move(a, batchDir.resolve("a.txt"));
+
+        DeletionReport report = executor.resume("crashed");
+
+        assertEquals(2, report.succeeded());
+        assertEquals(List.of(), report.failures());
+        assertFalse(Files.exists(b));
+        TrashJournal.State state = TrashJournal.read(journal("crashed"));
+        assertTrue(state.committed);
+        assertEquals(0, executor.resume("crashed").entries());
+
+        executor.undo("crashed");
+        assertEquals("a", Files.readString(a));
+        assertEquals("b", Files.readString(b));
+    }
+
+    @Test
+    void purgeEmptiesTheTrashOfARun() throws Exception {
+        DeletionExecutor executor = executor(DeletionOptions.Mode.TRASH, 100);
+        DeletionReport report = executor.delete(List.of(root.resolve("dir")));
+        assertTrue(Files.exists(trash.resolve(report.runId())));
+
+        executor.purge(report.runId());
+
+        assertFalse(Files.exists(trash.resolve(report.runId())));
+        assertTrue(TrashJournal.read(journal(report.runId())).purged);
+        assertThrows(IllegalStateException.class, () -> executor.undo(report.runId()));
+    }
+
+    private DeletionExecutor executor(DeletionOptions.Mode mode, int maxBatchSize) {
+        return new DeletionExecutor(DeletionOptions.builder()
+                .mode(mode)
+                .trashRoot(trash)
+                .parallelism(2)
+                .maxBatchSize(maxBatchSize)
+                .build());
+    }
+
+    private Path journal(String runId) {
+        return trash.resolve("journals").resolve(runId + ".journal");
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,103 @@
+package com.clearai.delete;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrashJournalTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void escapesSeparatorsAndPercentSigns() {
+        for (String s : List.of("a\tb", "line\nbreak", "cr\r", "100%", "%41", "%", "tab at end\t", "ünïcode %0A")) {
+            String escaped = TrashJournal.escape(s);
+            assertFalse(escaped.contains("\t") || escaped.contains("\n") || escaped.contains("\r"), escaped);
+            assertEquals(s, TrashJournal.unescape(escaped));
+        }
+        String plain = "/home/u/plain name.txt";
+        assertSame(plain, TrashJournal.escape(plain));
+        assertSame(plain, TrashJournal.unescape(plain));
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        Path file = temp.resolve("journals/run.journal");
+        TrashJournal.Batch first = new TrashJournal.Batch(0, List.of(
+                new TrashJournal.Entry("/a/x\ty", "/trash/run/0/x\ty"),
+                new TrashJournal.Entry("/a/new\nline", "/trash/run/0/new\nline")));
+        TrashJournal.Batch second = new TrashJournal.Batch(1, List.of(new TrashJournal.Entry("/b/z", "/trash/run/1/z")));
+        try (TrashJournal journal = TrashJournal.create(file, "run", DeletionOptions.Mode.TRASH)) {
+            journal.batch(first);
+            journal.batch(second);
+            journal.done(1);
+            journal.failed("/a/x\ty", "missing");
+            journal.mark(TrashJournal.COMMIT);
+        }
+
+        TrashJournal.State state = TrashJournal.read(file);
+        assertEquals("run", state.runId);
+        assertEquals(DeletionOptions.Mode.TRASH, state.mode);
+        assertEquals(List.of(first, second), state.batches);
+        assertEquals(Set.of(1), state.done);
+        assertTrue(state.committed);
+        assertFalse(state.undone);
+    }
+
+    @Test
+    void appendsToAnExistingJournal() throws IOException {
+        Path file = temp.resolve("run.journal");
+        try (TrashJournal journal = TrashJournal.create(file, "run", DeletionOptions.Mode.PERMANENT)) {
+            journal.batch(new TrashJournal.Batch(0, List.of(new TrashJournal.Entry("/a", null))));
+        }
+        try (TrashJournal journal = TrashJournal.append(file)) {
+            journal.done(0);
+            journal.mark(TrashJournal.PURGED);
+        }
+        TrashJournal.State state = TrashJournal.read(file);
+        assertEquals(List.of(new TrashJournal.Entry("/a", null)), state.batches.get(0).entries());
+        assertEquals(Set.of(0), state.done);
+        assertTrue(state.purged);
+    }
+
+    @Test
+    void ignoresATornLastLine() throws IOException {
+        Path file = temp.resolve("run.journal");
+        try (TrashJournal journal = TrashJournal.create(file, "run", DeletionOptions.Mode.TRASH)) {
+            journal.batch(new TrashJournal.Batch(0, List.of(new TrashJournal.Entry("/a", "/t/a"))));
+        }
+        Files.writeString(file, "DONE\t0", StandardOpenOption.APPEND);
+        assertEquals(Set.of(), TrashJournal.read(file).done);
+
+        Files.writeString(file, "\nCOM", StandardOpenOption.APPEND);
+        TrashJournal.State state = TrashJournal.read(file);
+        assertEquals(Set.of(0), state.done);
+        assertFalse(state.committed);
+    }
+
+    @Test
+    void rejectsUnreadableJournals() throws IOException {
+        Path unknown = Files.writeString(temp.resolve("unknown"), "RUN\tr\tTRASH\nSHRED\t/a\n");
+        assertThrows(IOException.class, () -> TrashJournal.read(unknown));
+        Path headless = Files.writeString(temp.resolve("headless"), "BATCH\t0\nDELETE\t/a\n");
+        assertThrows(IOException.class, () -> TrashJournal.read(headless));
+        Path orphan = Files.writeString(temp.resolve("orphan"), "RUN\tr\tTRASH\nMOVE\t/a\t/t/a\n");
+        assertThrows(IOException.class, () -> TrashJournal.read(orphan));
+        Path existing = Files.write(temp.resolve("existing"), "x".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> TrashJournal.create(existing, "r", DeletionOptions.Mode.TRASH));
+    }
+}
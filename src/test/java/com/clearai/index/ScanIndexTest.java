@@ -0,0 +1,287 @@
+package com.clearai.index;
+
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanListener;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanIndexTest {
+
+    @TempDir
+    Path temp;
+
+    private Path root;
+    private Path indexFile;
+
+    @BeforeEach
+    void createTree() throws IOException {
+        root = temp.resolve("tree");
+        indexFile = temp.resolve("index.bin");
+        write("a.txt", 10);
+        write("one/b.txt", 20);
+        write("one/two/c.txt", 30);
+        write("three/d.txt", 40);
+    }
+
+    @Test
+    void replaysEveryDirectoryAfterASaveAndLoad() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        ScanSummary cold = scan(index, new Collector());
+        assertEquals(0, cold.reused());
+        index.save();
+
+        Collector files = new Collector();
+        ScanSummary warm = scan(ScanIndex.load(indexFile), files);
+        assertEquals(cold.directories(), warm.reused());
+        assertEquals(cold.files(), warm.files());
+        assertEquals(cold.bytes(), warm.bytes());
+        assertEquals(Set.of(root.resolve("a.txt"), root.resolve("one/b.txt"), root.resolve("one/two/c.txt"),
+                root.resolve("three/d.txt")), files.seen);
+    }
+
+    @Test
+    void listsADirectoryAgainOnceItChanges() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+
+        write("one/two/new.txt", 5);
+        touch(root.resolve("one/two"));
+
+        Collector files = new Collector();
+        ScanSummary warm = scan(ScanIndex.load(indexFile), files);
+        assertEquals(warm.directories() - 1, warm.reused());
+        assertTrue(files.seen.contains(root.resolve("one/two/new.txt")));
+    }
+
+    @Test
+    void listsAnInvalidatedDirectoryAgain() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        ScanSummary cold = scan(index, new Collector());
+        index.invalidate(root.resolve("one"));
+        assertTrue(index.isDirty());
+
+        assertEquals(cold.directories() - 1, scan(index, new Collector()).reused());
+    }
+
+    @Test
+    void dropsDirectoriesThatDisappeared() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        assertEquals(4, index.directoryCount());
+        index.save();
+
+        delete(root.resolve("one"));
+        scan(index, new Collector());
+        assertEquals(2, index.directoryCount());
+        index.save();
+
+        assertEquals(2, ScanIndex.load(indexFile).directoryCount());
+    }
+
+    @Test
+    void keepsContentHashesUntilTheFileChanges() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        Path file = root.resolve("one/b.txt");
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        byte[] hash = {1, 2, 3, 4};
+        index.recordContentHash(file, 20, modified, hash);
+        index.save();
+
+        ScanIndex loaded = ScanIndex.load(indexFile);
+        assertArrayEquals(hash, loaded.contentHash(file, 20, modified));
+        assertNull(loaded.contentHash(file, 21, modified));
+        assertNull(loaded.contentHash(file, 20, modified + 1));
+    }
+
+    @Test
+    void savesChangesAsDeltasWithoutRewritingTheBase() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+        byte[] base = Files.readAllBytes(indexFile);
+        Path delta = deltaFile();
+        assertFalse(Files.exists(delta));
+
+        write("three/e.txt", 50);
+        touch(root.resolve("three"));
+        scan(index, new Collector());
+        assertTrue(index.isDirty());
+        index.save();
+        assertFalse(index.isDirty());
+
+        assertArrayEquals(base, Files.readAllBytes(indexFile));
+        assertTrue(Files.size(delta) > 0);
+        Collector files = new Collector();
+        ScanSummary warm = scan(ScanIndex.load(indexFile), files);
+        assertEquals(warm.directories(), warm.reused());
+        assertTrue(files.seen.contains(root.resolve("three/e.txt")));
+    }
+
+    @Test
+    void savingWithoutChangesWritesNothing() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+        scan(index, new Collector());
+        assertFalse(index.isDirty());
+        index.save();
+        assertFalse(Files.exists(deltaFile()));
+    }
+
+    @Test
+    void rewritesTheBaseOnceTheLogOutgrowsIt() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+        Path delta = deltaFile();
+        for (int i = 0; i < 20 && !(Files.exists(delta) && Files.size(delta) > Files.size(indexFile) / 2); i++) {
+            index.invalidate(root.resolve("one"));
+            scan(index, new Collector());
+            index.save();
+        }
+        assertTrue(Files.size(delta) > Files.size(indexFile) / 2);
+
+        index.invalidate(root.resolve("one"));
+        scan(index, new Collector());
+        index.save();
+
+        assertFalse(Files.exists(delta));
+        assertEquals(4, ScanIndex.load(indexFile).directoryCount());
+    }
+
+    @Test
+    void ignoresATornAppendAndKeepsLoggingAfterIt() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+        write("one/e.txt", 1);
+        touch(root.resolve("one"));
+        scan(index, new Collector());
+        index.save();
+        Path delta = deltaFile();
+        long valid = Files.size(delta);
+        Files.write(delta, new byte[]{0, 0, 0, 4, 1, 2, 3, 4, 9, 9, 9, 9}, StandardOpenOption.APPEND);
+
+        ScanIndex loaded = ScanIndex.load(indexFile);
+        assertEquals(4, loaded.directoryCount());
+        write("three/f.txt", 1);
+        touch(root.resolve("three"));
+        Collector files = new Collector();
+        scan(loaded, files);
+        loaded.save();
+        assertTrue(Files.size(delta) > valid);
+
+        Collector again = new Collector();
+        ScanSummary warm = scan(ScanIndex.load(indexFile), again);
+        assertEquals(warm.directories(), warm.reused());
+        assertTrue(again.seen.containsAll(Set.of(root.resolve("one/e.txt"), root.resolve("three/f.txt"))));
+    }
+
+    @Test
+    void ignoresALogWrittenAgainstAnEarlierBase() throws IOException {
+        ScanIndex index = ScanIndex.create(indexFile);
+        scan(index, new Collector());
+        index.save();
+        write("one/e.txt", 1);
+        touch(root.resolve("one"));
+        scan(index, new Collector());
+        index.save();
+        Path delta = deltaFile();
+        byte[] staleLog = Files.readAllBytes(delta);
+
+        ScanIndex.create(indexFile).save();
+        Files.write(delta, staleLog);
+
+        assertEquals(0, ScanIndex.load(indexFile).directoryCount());
+    }
+
+    @Test
+    void loadsAMissingFileAsAnEmptyIndexAndRejectsOtherFiles() throws IOException {
+        assertEquals(0, ScanIndex.load(temp.resolve("missing")).directoryCount());
+        Path junk = Files.write(temp.resolve("junk"), new byte[64]);
+        assertThrows(IOException.class, () -> ScanIndex.load(junk));
+    }
+
+    @Test
+    void fileKeyCarriesTheDeviceAndInode() throws IOException {
+        Path one = root.resolve("one");
+        Path three = root.resolve("three");
+        FileKey a = FileKey.of(Files.readAttributes(one, BasicFileAttributes.class));
+        FileKey b = FileKey.of(Files.readAttributes(three, BasicFileAttributes.class));
+        if (Files.readAttributes(one, BasicFileAttributes.class).fileKey() == null) {
+            assertEquals(FileKey.NONE, a);
+            return;
+        }
+        assertEquals(((Number) Files.getAttribute(one, "unix:ino", LinkOption.NOFOLLOW_LINKS)).longValue(),
+                a.inode());
+        assertEquals(((Number) Files.getAttribute(one, "unix:dev", LinkOption.NOFOLLOW_LINKS)).longValue(),
+                a.device());
+        assertEquals(a.device(), b.device());
+        assertNotEquals(a.inode(), b.inode());
+    }
+
+    private ScanSummary scan(ScanIndex index, ScanListener listener) throws IOException {
+        try (FileScanner scanner = new FileScanner(ScanOptions.builder().directoryCache(index).build())) {
+            return scanner.scan(root, listener);
+        }
+    }
+
+    private Path deltaFile() {
+        return indexFile.resolveSibling(indexFile.getFileName() + ".delta");
+    }
+
+    private void write(String name, int size) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+
+    /** Moves the modification time well past the listing, however coarse the file system's clock. */
+    private static void touch(Path dir) throws IOException {
+        FileTime now = Files.getLastModifiedTime(dir);
+        Files.setLastModifiedTime(dir, FileTime.fromMillis(now.toMillis() + 10_000));
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.sorted((x, y) -> y.compareTo(x)).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    /** Collects the reported files. */
+    private static final class Collector implements ScanListener {
+
+        final Set<Path> seen = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void fileVisited(int dirId, Path file, long size, long lastModified) {
+            seen.add(file);
+        }
+    }
+}
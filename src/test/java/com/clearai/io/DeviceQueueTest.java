@@ -0,0 +1,109 @@
+package com.clearai.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceQueueTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    void admitsUpToItsLimitAndQueuesTheRest() {
+        DeviceQueue queue = new DeviceQueue(2, false);
+
+        assertTrue(queue.admit(Path.of("/a"), resume("a")));
+        assertTrue(queue.admit(Path.of("/b"), resume("b")));
+        assertFalse(queue.admit(Path.of("/c"), resume("c")));
+
+        assertEquals(2, queue.active());
+        assertEquals(1, queue.waiting());
+        assertEquals(List.of(), started);
+    }
+
+    @Test
+    void handsFreedSlotsToWaitersInArrivalOrder() {
+        DeviceQueue queue = new DeviceQueue(1, false);
+        queue.admit(Path.of("/first"), resume("first"));
+        for (String name : List.of("z", "a", "m")) {
+            queue.admit(Path.of("/" + name), resume(name));
+        }
+
+        queue.release();
+        queue.release();
+        assertEquals(List.of("z", "a"), started);
+        assertEquals(1, queue.active(), "the slot passes on without being given up");
+
+        queue.release();
+        queue.release();
+        assertEquals(List.of("z", "a", "m"), started);
+        assertEquals(0, queue.active());
+        assertEquals(0, queue.waiting());
+    }
+
+    @Test
+    void sweepsUpwardsFromTheLastPathServedAndWrapsAround() {
+        DeviceQueue queue = new DeviceQueue(1, true);
+        queue.admit(Path.of("/data/m"), resume("m"));
+        for (String name : List.of("b", "x", "n", "a", "p")) {
+            queue.admit(Path.of("/data/" + name), resume(name));
+        }
+
+        queue.release();
+        queue.release();
+        // A late arrival behind the head waits for the next sweep.
+        queue.admit(Path.of("/data/o"), resume("o"));
+        queue.admit(Path.of("/data/y"), resume("y"));
+        for (int i = 0; i < 5; i++) {
+            queue.release();
+        }
+
+        assertEquals(List.of("n", "p", "x", "y", "a", "b", "o"), started);
+        assertEquals(1, queue.active());
+        queue.release();
+        assertEquals(0, queue.active());
+    }
+
+    @Test
+    void servesWaitersOnTheSamePathInArrivalOrder() {
+        DeviceQueue queue = new DeviceQueue(1, true);
+        queue.admit(Path.of("/f"), resume("running"));
+        queue.admit(Path.of("/f"), resume("first"));
+        queue.admit(Path.of("/f"), resume("second"));
+
+        queue.release();
+        queue.release();
+
+        assertEquals(List.of("first", "second"), started);
+    }
+
+    @Test
+    void returnsItsWaitersWhenClosedAndStopsLimiting() {
+        DeviceQueue queue = new DeviceQueue(1, true);
+        queue.admit(Path.of("/a"), resume("a"));
+        queue.admit(Path.of("/c"), resume("c"));
+        queue.admit(Path.of("/b"), resume("b"));
+
+        List<Runnable> waiters = queue.close();
+        waiters.forEach(Runnable::run);
+
+        assertEquals(List.of("b", "c"), started);
+        assertEquals(0, queue.waiting());
+        assertEquals(3, queue.active());
+        assertTrue(queue.admit(Path.of("/d"), resume("d")));
+        for (int i = 0; i < 4; i++) {
+            queue.release();
+        }
+        assertEquals(0, queue.active());
+    }
+
+    private Runnable resume(String name) {
+        return () -> started.add(name);
+    }
+}
@@ -0,0 +1,167 @@
+package com.clearai.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IoSchedulerTest {
+
+    /** One operation at a time on every kind of device. */
+    private static final IoOptions SERIAL = IoOptions.builder().solidStateParallelism(1).rotationalParallelism(1)
+            .networkParallelism(1).build();
+
+    @TempDir
+    Path root;
+
+    @Test
+    void runsSubmittedWorkOnItsOwnThreads() throws Exception {
+        Path file = Files.writeString(root.resolve("a.txt"), "hello");
+        try (IoScheduler scheduler = new IoScheduler(IoOptions.defaults())) {
+            Future<String> read = scheduler.submit(file,
+                    () -> Thread.currentThread().getName() + ":" + Files.readString(file));
+
+            String result = read.get(10, TimeUnit.SECONDS);
+            assertTrue(result.startsWith("clear-ai-io-"), result);
+            assertTrue(result.endsWith(":hello"), result);
+        }
+    }
+
+    @Test
+    void keepsToTheDeviceLimit() throws Exception {
+        List<Path> files = files(8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger most = new AtomicInteger();
+        try (IoScheduler scheduler = new IoScheduler(SERIAL)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(scheduler.submit(file, () -> {
+                    most.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(2);
+                    running.decrementAndGet();
+                    return Files.readAllBytes(file).length;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(1, future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, most.get());
+    }
+
+    @Test
+    void reportsRunningAndWaitingWorkAsLoad() throws Exception {
+        List<Path> files = files(3);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        try (IoScheduler scheduler = new IoScheduler(SERIAL)) {
+            Device device = scheduler.device(root);
+            Future<Boolean> first = scheduler.submit(files.get(0), () -> {
+                started.countDown();
+                return finish.await(10, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<Integer> second = scheduler.submit(files.get(1), () -> 2);
+            Future<Integer> third = scheduler.submit(files.get(2), () -> 3);
+
+            assertEquals(3, scheduler.load(device));
+            assertFalse(second.isDone());
+
+            finish.countDown();
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+            assertEquals(2, second.get(10, TimeUnit.SECONDS));
+            assertEquals(3, third.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void cancelsQueuedWorkOnClose() throws Exception {
+        List<Path> files = files(3);
+        CountDownLatch started = new CountDownLatch(1);
+        IoScheduler scheduler = new IoScheduler(SERIAL);
+        Future<Void> running = scheduler.submit(files.get(0), () -> {
+            started.countDown();
+            Thread.sleep(60_000);
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<Integer> queued = scheduler.submit(files.get(1), () -> 1);
+        Future<Integer> alsoQueued = scheduler.submit(files.get(2), () -> 2);
+
+        scheduler.close();
+
+        // The interrupted task may be the one to pass its slot on, so cancellation can trail close slightly.
+        assertThrows(CancellationException.class, () -> queued.get(10, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> alsoQueued.get(10, TimeUnit.SECONDS));
+        ExecutionException interrupted = assertThrows(ExecutionException.class,
+                () -> running.get(10, TimeUnit.SECONDS));
+        assertTrue(interrupted.getCause() instanceof InterruptedException);
+        assertThrows(IllegalStateException.class, () -> scheduler.submit(files.get(0), () -> 0));
+    }
+
+    @Test
+    void resumesAdmissionWaitersOnCloseAndStopsLimiting() throws IOException {
+        Path file = Files.writeString(root.resolve("a"), "a");
+        IoScheduler scheduler = new IoScheduler(SERIAL);
+        Device device = scheduler.device(file);
+        AtomicInteger resumed = new AtomicInteger();
+        assertTrue(scheduler.admit(device, file, resumed::incrementAndGet));
+        assertFalse(scheduler.admit(device, file, resumed::incrementAndGet));
+
+        scheduler.close();
+
+        assertEquals(1, resumed.get());
+        assertTrue(scheduler.admit(device, file, resumed::incrementAndGet));
+        for (int i = 0; i < 3; i++) {
+            scheduler.release(device);
+        }
+        assertEquals(0, scheduler.load(device));
+    }
+
+    @Test
+    void forgetsDirectoriesPastItsCache() throws Exception {
+        try (IoScheduler scheduler = new IoScheduler(IoOptions.defaults())) {
+            Future<?> last = null;
+            for (int i = 0; i <= IoScheduler.DIRECTORY_CACHE + 10; i++) {
+                last = scheduler.submit(root.resolve("d" + i).resolve("f"), () -> null);
+                assertTrue(scheduler.cachedDirectories() <= IoScheduler.DIRECTORY_CACHE);
+            }
+            last.get(10, TimeUnit.SECONDS);
+            assertTrue(scheduler.cachedDirectories() <= 11);
+        }
+    }
+
+    @Test
+    void findsTheMountOfANestedDirectoryWithoutAStat() throws IOException {
+        Path sub = Files.createDirectories(root.resolve("sub"));
+        try (IoScheduler scheduler = new IoScheduler(IoOptions.defaults())) {
+            Device device = scheduler.device(root);
+
+            assertEquals(device, scheduler.child(device, sub));
+            assertEquals(device, scheduler.device(sub));
+        }
+    }
+
+    private List<Path> files(int count) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(Files.writeString(root.resolve("f" + i), "x"));
+        }
+        return files;
+    }
+}
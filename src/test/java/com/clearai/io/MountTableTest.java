@@ -0,0 +1,85 @@
+package com.clearai.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MountTableTest {
+
+    private static final String MOUNTINFO = String.join("\n",
+            "22 1 8:1 / / rw,relatime shared:1 - ext4 /dev/sda1 rw,errors=remount-ro",
+            "23 22 0:21 / /proc rw,nosuid,nodev,noexec,relatime shared:12 - proc proc rw",
+            "40 22 0:45 / /mnt/nas rw,relatime shared:30 - nfs4 server:/export rw,vers=4.2",
+            "41 22 0:46 / /media/My\\040Disk rw,nosuid shared:31 - fuse.sshfs user@host:/home\\040dir rw",
+            "42 22 8:17 / /data rw,relatime - xfs /dev/sdb1 rw",
+            "43 42 0:47 / /data rw,relatime - cifs //server/share rw",
+            "not a mount line",
+            "44 22 8:33 / /short rw -",
+            "");
+
+    private final MountTable table = MountTable.parse(MOUNTINFO);
+
+    @Test
+    void indexesDevicesByIdAndMountPoint() {
+        Device root = table.byId("8:1");
+        assertEquals("ext4", root.type());
+        assertEquals("/dev/sda1", root.source());
+        assertEquals(root, table.mountedAt(Path.of("/")));
+        assertEquals("proc", table.mountedAt(Path.of("/proc")).type());
+        assertNull(table.mountedAt(Path.of("/home")));
+        assertNull(table.byId("8:33"), "a line without type and source is skipped");
+    }
+
+    @Test
+    void recognisesNetworkFileSystems() {
+        Device nas = table.mountedAt(Path.of("/mnt/nas"));
+        assertEquals("0:45", nas.id());
+        assertEquals("server:/export", nas.source());
+        assertEquals(DeviceKind.NETWORK, nas.kind());
+        assertTrue(MountTable.isNetwork("fuse.sshfs"));
+        assertEquals(DeviceKind.NETWORK, MountTable.kind("0:99", "smb3", "//host/share"));
+    }
+
+    @Test
+    void unescapesMountPointsAndSources() {
+        Device sshfs = table.mountedAt(Path.of("/media/My Disk"));
+        assertEquals("0:46", sshfs.id());
+        assertEquals("user@host:/home dir", sshfs.source());
+    }
+
+    @Test
+    void letsTheLastMountAtAPointWin() {
+        assertEquals("cifs", table.mountedAt(Path.of("/data")).type());
+        assertEquals("xfs", table.byId("8:17").type());
+    }
+
+    @Test
+    void isEmptyWithoutMountinfo() {
+        assertTrue(MountTable.parse("").isEmpty());
+    }
+
+    @Test
+    void undoesOctalEscapes() {
+        assertEquals("plain", MountTable.unescape("plain"));
+        assertEquals("a b\tc\nd\\e", MountTable.unescape("a\\040b\\011c\\012d\\134e"));
+        assertEquals("\\04", MountTable.unescape("\\04"), "a cut-off escape is kept as is");
+    }
+
+    @Test
+    void splitsDeviceNumbersLikeGlibc() {
+        assertEquals("8:1", MountTable.deviceId(makedev(8, 1)));
+        assertEquals("259:3", MountTable.deviceId(makedev(259, 3)));
+        assertEquals("0:45", MountTable.deviceId(makedev(0, 45)));
+        assertEquals("74565:424090", MountTable.deviceId(makedev(0x12345, 0x6789a)));
+        assertEquals("4294967295:4294967295", MountTable.deviceId(makedev(0xffffffffL, 0xffffffffL)));
+    }
+
+    /** The encoding of glibc's {@code makedev}: low bits of both numbers in the low word, the rest above. */
+    private static long makedev(long major, long minor) {
+        return ((major & 0xfff) << 8) | ((major & ~0xfffL) << 32) | (minor & 0xff) | ((minor & ~0xffL) << 12);
+    }
+}
@@ -0,0 +1,85 @@
+package com.clearai.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemoryAnalyzerTest {
+
+    private static final long MIB = 1024 * 1024;
+    private static final SystemMemory PLENTY = new SystemMemory(16_000 * MIB, 4_000 * MIB, 8_000 * MIB, 0, 0, 0);
+    private static final SystemMemory SCARCE = new SystemMemory(16_000 * MIB, 100 * MIB, 800 * MIB, 0, 0, 0);
+
+    private final MemoryAnalyzer analyzer = new MemoryAnalyzer(0.10, 2, 100 * MIB, 200 * MIB, 3);
+
+    @Test
+    void suggestsNothingForAQuietHost() {
+        assertEquals(List.of(), analyzer.analyze(snapshot(PLENTY,
+                process(1, "a", 500 * MIB, 0, 0), process(2, "b", 300 * MIB, 0, 0))));
+    }
+
+    @Test
+    void suggestsClosingTheLargestWhenMemoryIsLow() {
+        List<ReclaimSuggestion> suggestions = analyzer.analyze(snapshot(SCARCE,
+                process(1, "a", 500 * MIB, 0, 0), process(2, "b", 300 * MIB, 0, 0),
+                process(3, "c", 100 * MIB, 0, 0)));
+
+        assertEquals(List.of(ReclaimSuggestion.Kind.CLOSE_LARGEST, ReclaimSuggestion.Kind.CLOSE_LARGEST),
+                suggestions.stream().map(ReclaimSuggestion::kind).toList());
+        assertEquals(List.of(1, 2), suggestions.stream().map(ReclaimSuggestion::pid).toList());
+        assertEquals(500 * MIB, suggestions.get(0).bytes());
+    }
+
+    @Test
+    void reportsGrowingAndSwappedProcesses() {
+        List<ReclaimSuggestion> suggestions = analyzer.analyze(snapshot(PLENTY,
+                process(1, "leaky", 900 * MIB, 0, 400 * MIB), process(2, "idle", 50 * MIB, 300 * MIB, 0),
+                process(3, "steady", 900 * MIB, 0, 100 * MIB)));
+
+        assertEquals(2, suggestions.size());
+        assertEquals(ReclaimSuggestion.Kind.RESTART_GROWING, suggestions.get(0).kind());
+        assertEquals(1, suggestions.get(0).pid());
+        assertEquals(400 * MIB, suggestions.get(0).bytes());
+        assertEquals(ReclaimSuggestion.Kind.CLOSE_IDLE_SWAPPED, suggestions.get(1).kind());
+        assertEquals(350 * MIB, suggestions.get(1).bytes());
+    }
+
+    @Test
+    void addsUpManyInstancesOfOneProgram() {
+        List<ReclaimSuggestion> suggestions = analyzer.analyze(snapshot(PLENTY,
+                process(1, "chrome", 200 * MIB, 0, 0), process(2, "chrome", 150 * MIB, 0, 0),
+                process(3, "chrome", 50 * MIB, 0, 0), process(4, "code", 400 * MIB, 0, 0),
+                process(5, "code", 400 * MIB, 0, 0), process(6, null, 10 * MIB, 0, 0)));
+
+        assertEquals(1, suggestions.size());
+        ReclaimSuggestion chrome = suggestions.get(0);
+        assertEquals(ReclaimSuggestion.Kind.REDUCE_INSTANCES, chrome.kind());
+        assertEquals(-1, chrome.pid());
+        assertEquals("chrome", chrome.name());
+        assertEquals(400 * MIB, chrome.bytes());
+    }
+
+    @Test
+    void ranksSuggestionsByTheMemoryTheyFree() {
+        List<ReclaimSuggestion> suggestions = analyzer.analyze(snapshot(SCARCE,
+                process(1, "big", 2_000 * MIB, 0, 150 * MIB), process(2, "swapped", 100 * MIB, 1_000 * MIB, 0)));
+
+        List<Long> bytes = suggestions.stream().map(ReclaimSuggestion::bytes).toList();
+        assertEquals(bytes.stream().sorted((a, b) -> Long.compare(b, a)).toList(), bytes);
+        assertEquals(ReclaimSuggestion.Kind.CLOSE_LARGEST, suggestions.get(0).kind());
+        assertEquals(2_000 * MIB, suggestions.get(0).bytes());
+    }
+
+    private static MemorySnapshot snapshot(SystemMemory system, ProcessMemory... processes) {
+        List<ProcessMemory> sorted = List.of(processes).stream()
+                .sorted((a, b) -> Long.compare(b.footprint(), a.footprint()))
+                .toList();
+        return new MemorySnapshot(1, system, sorted);
+    }
+
+    private static ProcessMemory process(int pid, String name, long rss, long swap, long growth) {
+        return new ProcessMemory(pid, name, rss, 0, swap, -1, -1, growth, 10);
+    }
+}
@@ -0,0 +1,212 @@
+package com.clearai.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Runs the sampler against a fake {@code /proc} written to a temporary directory. */
+class MemorySamplerTest {
+
+    private static final long KB = 1024;
+    private static final long PAGE = 4 * KB;
+
+    @TempDir
+    Path proc;
+
+    @BeforeEach
+    void writeSystem() throws IOException {
+        Files.createDirectories(proc.resolve("self"));
+        Files.writeString(proc.resolve("self/smaps"), "Size:  4 kB\nKernelPageSize:        4 kB\n");
+        meminfo(16_000_000, 8_000_000);
+    }
+
+    @Test
+    void readsSystemAndProcessFigures() throws IOException {
+        process(100, "firefox", 50_000, 2_000, 4_096);
+        process(200, "bash", 1_000, 500, 0);
+        rollup(100, 150_000, 120_000, 4_096);
+        rollup(200, 3_000, 1_000, 0);
+
+        try (MemorySampler sampler = new MemorySampler(options().rollupTopN(1).build())) {
+            sampler.sample();
+            MemorySnapshot snapshot = sampler.snapshot();
+
+            assertEquals(1, snapshot.tick());
+            assertEquals(16_000_000 * KB, snapshot.system().total());
+            assertEquals(8_000_000 * KB, snapshot.system().available());
+            assertEquals(2, snapshot.processes().size());
+            ProcessMemory firefox = snapshot.processes().get(0);
+            assertEquals(new ProcessMemory(100, "firefox", 50_000 * PAGE, 2_000 * PAGE, 4_096 * KB,
+                    150_000 * KB, 120_000 * KB, 0, 1), firefox);
+            ProcessMemory bash = snapshot.processes().get(1);
+            assertEquals("bash", bash.name());
+            assertEquals(-1, bash.pss(), "only the largest process has its rollup read");
+            assertEquals(bash.rss(), bash.footprint());
+        }
+    }
+
+    @Test
+    void followsProcessesThatComeAndGo() throws IOException {
+        process(1, "init", 100, 10, 0);
+        process(2, "worker", 1_000, 10, 0);
+        try (MemorySampler sampler = new MemorySampler(options().build())) {
+            sampler.sample();
+            process(2, "worker", 3_000, 10, 0);
+            process(3, "new", 10, 1, 0);
+            exit(1);
+            sampler.sample();
+
+            assertEquals(Set.of(2, 3), pids(sampler.snapshot()));
+            assertArrayEquals(new long[]{1_000 * PAGE, 3_000 * PAGE}, sampler.history(2));
+            assertEquals(2_000 * PAGE, byPid(sampler.snapshot()).get(2).growth());
+            assertArrayEquals(new long[0], sampler.history(1));
+        }
+    }
+
+    @Test
+    void rereadsStatmThroughHandlesKeptOpen() throws IOException {
+        process(5, "app", 100, 10, 0);
+        try (MemorySampler sampler = new MemorySampler(options().maxOpenFiles(8).build())) {
+            sampler.sample();
+            process(5, "app", 700, 10, 0);
+            sampler.sample();
+
+            assertArrayEquals(new long[]{100 * PAGE, 700 * PAGE}, sampler.history(5));
+        }
+    }
+
+    @Test
+    void startsAFreshHistoryWhenAPidIsReused() throws IOException {
+        process(9, "old", 100, 10, 0);
+        rollup(9, 80, 40, 0);
+        try (MemorySampler sampler = new MemorySampler(options().statusEveryTicks(1).build())) {
+            sampler.sample();
+            process(9, "old", 200, 10, 0);
+            sampler.sample();
+            assertEquals(2, sampler.history(9).length);
+
+            process(9, "new", 50, 10, 0);
+            sampler.sample();
+
+            assertArrayEquals(new long[]{50 * PAGE}, sampler.history(9));
+            ProcessMemory p = byPid(sampler.snapshot()).get(9);
+            assertEquals("new", p.name());
+            assertEquals(-1, p.pss());
+            assertEquals(0, p.growth());
+        }
+    }
+
+    @Test
+    void keepsSamplingInTheBackgroundWhileMeminfoIsUnreadable() throws Exception {
+        process(4, "app", 100, 10, 0);
+        Files.delete(proc.resolve("meminfo"));
+        try (MemorySampler sampler = new MemorySampler(options().build())) {
+            assertThrows(IllegalStateException.class, sampler::sample);
+
+            sampler.start(Duration.ofMillis(5));
+            await(() -> sampler.errors() >= 3);
+            meminfo(1_000, 500);
+            await(() -> sampler.snapshot().system().total() == 1_000 * KB);
+            assertEquals(Set.of(4), pids(sampler.snapshot()));
+        }
+    }
+
+    @Test
+    void tracksThousandsOfProcesses() throws IOException {
+        int processes = 3_000;
+        for (int pid = 1; pid <= processes; pid++) {
+            process(pid, "p" + pid % 7, pid, 1, 0);
+        }
+        try (MemorySampler sampler = new MemorySampler(options().build())) {
+            sampler.sample();
+            assertEquals(processes, sampler.snapshot().processes().size());
+
+            // A third exit and as many new ones take their slots.
+            for (int pid = 3; pid <= processes; pid += 3) {
+                exit(pid);
+                process(processes + pid, "q", 1, 1, 0);
+            }
+            sampler.sample();
+
+            Map<Integer, ProcessMemory> byPid = byPid(sampler.snapshot());
+            assertEquals(processes, byPid.size());
+            for (int pid = 1; pid <= processes; pid++) {
+                assertEquals(pid % 3 != 0, byPid.containsKey(pid), "pid " + pid);
+                assertEquals(pid % 3 == 0, byPid.containsKey(processes + pid), "pid " + (processes + pid));
+            }
+            assertEquals(2_999 * PAGE, byPid.get(2_999).rss());
+            assertEquals(2, sampler.history(2_999).length);
+        }
+    }
+
+    /** Handles kept open would outlive a deleted fixture directory, unlike those of a real exited process. */
+    private SamplerOptions.Builder options() {
+        return SamplerOptions.builder().procRoot(proc.toString()).maxOpenFiles(0);
+    }
+
+    private void meminfo(long totalKb, long availableKb) throws IOException {
+        Files.writeString(proc.resolve("meminfo"), String.format(
+                "MemTotal:       %d kB%nMemFree:        %d kB%nMemAvailable:   %d kB%nBuffers:          100 kB%n"
+                        + "Cached:         2000 kB%nSwapCached:        0 kB%nSwapTotal:      4000 kB%n"
+                        + "SwapFree:       3000 kB%n", totalKb, availableKb / 2, availableKb));
+    }
+
+    private void process(int pid, String name, long residentPages, long sharedPages, long swapKb) throws IOException {
+        Path dir = Files.createDirectories(proc.resolve(Integer.toString(pid)));
+        Files.writeString(dir.resolve("statm"),
+                (residentPages * 3) + " " + residentPages + " " + sharedPages + " 10 0 " + residentPages + " 0\n");
+        Files.writeString(dir.resolve("status"), "Name:\t" + name + "\nUmask:\t0022\nState:\tS (sleeping)\n"
+                + "VmRSS:\t" + residentPages * 4 + " kB\nVmSwap:\t" + swapKb + " kB\n");
+    }
+
+    private void rollup(int pid, long pssKb, long privateDirtyKb, long swapKb) throws IOException {
+        Files.writeString(proc.resolve(pid + "/smaps_rollup"), "00400000-7fff0000 ---p 00000000 00:00 0 [rollup]\n"
+                + "Rss:  1 kB\nPss:  " + pssKb + " kB\nPss_Anon:  1 kB\nPrivate_Dirty:  " + privateDirtyKb
+                + " kB\nSwap:  " + swapKb + " kB\nSwapPss:  0 kB\n");
+    }
+
+    private void exit(int pid) throws IOException {
+        Path dir = proc.resolve(Integer.toString(pid));
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) {
+                Files.delete(f);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static Set<Integer> pids(MemorySnapshot snapshot) {
+        return snapshot.processes().stream().map(ProcessMemory::pid).collect(Collectors.toSet());
+    }
+
+    private static Map<Integer, ProcessMemory> byPid(MemorySnapshot snapshot) {
+        Map<Integer, ProcessMemory> byPid = new HashMap<>();
+        for (ProcessMemory p : snapshot.processes()) {
+            byPid.put(p.pid(), p);
+        }
+        return byPid;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
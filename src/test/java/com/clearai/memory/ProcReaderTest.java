@@ -0,0 +1,107 @@
+package com.clearai.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcReaderTest {
+
+    private static final String STATUS = String.join("\n",
+            "Name:\tWeb Content",
+            "Umask:\t0022",
+            "State:\tS (sleeping)",
+            "VmPeak:\t 3012345 kB",
+            "VmRSS:\t  412000 kB",
+            "RssAnon:\t  300000 kB",
+            "VmSwap:\t    2048 kB",
+            "Threads:\t35",
+            "");
+
+    @TempDir
+    Path dir;
+
+    private final ProcReader reader = new ProcReader();
+
+    @Test
+    void picksNumbersOutOfStatm() throws IOException {
+        assertTrue(reader.read(write("statm", "1048576 20480 3072 12 0 40960 0\n")));
+
+        assertEquals(1_048_576, reader.number(0));
+        assertEquals(20_480, reader.number(1));
+        assertEquals(3_072, reader.number(2));
+        assertEquals(0, reader.number(6));
+        assertEquals(-1, reader.number(7));
+    }
+
+    @Test
+    void readsKeyedFieldsInOnePass() throws IOException {
+        assertTrue(reader.read(write("status", STATUS)));
+        long[] out = new long[4];
+
+        reader.fields(new byte[][]{ProcReader.key("VmSwap:"), ProcReader.key("VmRSS:"),
+                ProcReader.key("VmHWM:"), ProcReader.key("Threads:")}, out);
+
+        assertArrayEquals(new long[]{2048, 412_000, -1, 35}, out);
+        assertEquals("Web Content", reader.text(ProcReader.key("Name:")));
+        assertEquals("S (sleeping)", reader.text(ProcReader.key("State:")));
+        assertNull(reader.text(ProcReader.key("Cpus_allowed:")));
+    }
+
+    @Test
+    void matchesKeysOnlyAtTheStartOfALine() throws IOException {
+        assertTrue(reader.read(write("smaps_rollup", "Rss: 10 kB\nSwapPss: 7 kB\nSwap: 3 kB\nPss: 9 kB\n")));
+        long[] out = new long[2];
+
+        reader.fields(new byte[][]{ProcReader.key("Swap:"), ProcReader.key("Pss:")}, out);
+
+        assertArrayEquals(new long[]{3, 9}, out);
+    }
+
+    @Test
+    void growsForFilesLargerThanItsBuffer() throws IOException {
+        String big = "Padding:\t1 kB\n".repeat(1000) + "Last:\t77 kB\n";
+        assertTrue(reader.read(write("big", big)));
+        long[] out = new long[1];
+
+        reader.fields(new byte[][]{ProcReader.key("Last:")}, out);
+
+        assertEquals(77, out[0]);
+    }
+
+    @Test
+    void rereadsAnOpenHandleFromTheStart() throws IOException {
+        Path statm = Path.of(write("statm", "100 10 1 0 0 0 0\n"));
+        try (FileChannel channel = FileChannel.open(statm, StandardOpenOption.READ)) {
+            assertTrue(reader.read(channel));
+            assertEquals(10, reader.number(1));
+
+            Files.writeString(statm, "200 25 2 0 0 0 0\n");
+            assertTrue(reader.read(channel));
+            assertEquals(25, reader.number(1));
+
+            Files.writeString(statm, "");
+            assertFalse(reader.read(channel));
+        }
+    }
+
+    @Test
+    void reportsAMissingFileAsUnreadable() {
+        assertFalse(reader.read(dir.resolve("gone").toString()));
+        assertEquals(-1, reader.number(0));
+    }
+
+    private String write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content).toString();
+    }
+}
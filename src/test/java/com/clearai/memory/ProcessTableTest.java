@@ -0,0 +1,107 @@
+package com.clearai.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessTableTest {
+
+    @Test
+    void findsEveryPidThroughRandomInsertsAndRemovals() {
+        ProcessTable table = new ProcessTable(4);
+        Map<Integer, Integer> slots = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        // A narrow pid range keeps the table busy with collisions, removals inside
+        // probe chains and pids coming back in recycled slots.
+        for (int op = 0; op < 200_000; op++) {
+            int pid = 1 + random.nextInt(3_000);
+            Integer slot = slots.get(pid);
+            if (slot == null) {
+                int s = table.insert(pid);
+                assertFalse(slots.containsValue(s), "slot handed out twice");
+                slots.put(pid, s);
+            } else if (random.nextInt(3) > 0) {
+                table.remove(slot);
+                slots.remove(pid);
+            }
+            if (op % 10_000 == 0) {
+                assertMatches(slots, table);
+            }
+        }
+        assertMatches(slots, table);
+    }
+
+    @Test
+    void keepsProbeChainsIntactWhenTheMiddleOfAChainIsRemoved() {
+        ProcessTable table = new ProcessTable(1);
+        // A hundred pids in 256 buckets form runs; removing every other pid cuts them in the middle.
+        Map<Integer, Integer> slots = new HashMap<>();
+        for (int pid = 1; pid <= 100; pid++) {
+            slots.put(pid, table.insert(pid));
+        }
+        for (int pid = 1; pid <= 100; pid += 2) {
+            table.remove(slots.remove(pid));
+        }
+        assertMatches(slots, table);
+        for (int pid = 101; pid <= 150; pid++) {
+            slots.put(pid, table.insert(pid));
+        }
+        assertMatches(slots, table);
+        assertEquals(100, table.highWater());
+    }
+
+    @Test
+    void recyclesSlotsAndClearsThem() {
+        ProcessTable table = new ProcessTable(3);
+        int slot = table.insert(10);
+        table.names[slot] = "old";
+        table.rssKb[slot] = 500;
+        table.pssKb[slot] = 400;
+        table.record(slot, 500);
+        table.remove(slot);
+        assertFalse(table.inUse(slot));
+
+        assertEquals(slot, table.insert(11));
+        assertEquals(11, table.pids[slot]);
+        assertEquals(null, table.names[slot]);
+        assertEquals(0, table.rssKb[slot]);
+        assertEquals(-1, table.pssKb[slot]);
+        assertArrayEquals(new long[0], table.history(slot));
+        assertEquals(ProcessTable.NONE, table.find(10));
+    }
+
+    @Test
+    void keepsTheLatestSamplesOldestFirst() {
+        ProcessTable table = new ProcessTable(3);
+        int slot = table.insert(7);
+        table.record(slot, 1);
+        table.record(slot, 2);
+        assertArrayEquals(new long[]{1, 2}, table.history(slot));
+        table.record(slot, 3);
+        table.record(slot, 4);
+        table.record(slot, 5);
+        assertArrayEquals(new long[]{3, 4, 5}, table.history(slot));
+
+        table.clearHistory(slot);
+        table.record(slot, 6);
+        assertArrayEquals(new long[]{6}, table.history(slot));
+    }
+
+    private static void assertMatches(Map<Integer, Integer> slots, ProcessTable table) {
+        assertEquals(slots.size(), table.size());
+        for (int pid = 1; pid <= 3_000; pid++) {
+            Integer slot = slots.get(pid);
+            assertEquals(slot == null ? ProcessTable.NONE : slot, table.find(pid), "pid " + pid);
+        }
+        for (int slot : slots.values()) {
+            assertTrue(table.inUse(slot));
+        }
+    }
+}
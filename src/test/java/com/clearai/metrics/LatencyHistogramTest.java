@@ -0,0 +1,120 @@
+package com.clearai.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static final int LAST = LatencyHistogram.bucket(Long.MAX_VALUE);
+
+    @Test
+    void givesSmallValuesABucketEach() {
+        for (long v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.bucket(v));
+            assertEquals(v, LatencyHistogram.highestIn((int) v));
+        }
+        assertEquals(32, LatencyHistogram.bucket(32));
+        assertEquals(63, LatencyHistogram.bucket(63));
+        assertEquals(64, LatencyHistogram.bucket(64));
+        assertEquals(64, LatencyHistogram.bucket(65));
+        assertEquals(65, LatencyHistogram.highestIn(64));
+    }
+
+    @Test
+    void coversTheWholeLongRangeWithContiguousBuckets() {
+        assertEquals(1_887, LAST);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestIn(LAST));
+        for (int i = 0; i < LAST; i++) {
+            long highest = LatencyHistogram.highestIn(i);
+            assertEquals(i, LatencyHistogram.bucket(highest), "bucket " + i);
+            assertEquals(i + 1, LatencyHistogram.bucket(highest + 1), "bucket " + i);
+        }
+    }
+
+    @Test
+    void boundsEveryValueWithinAThirtySecond() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            long v = random.nextLong(Long.MAX_VALUE) >>> random.nextInt(63);
+            long highest = LatencyHistogram.highestIn(LatencyHistogram.bucket(v));
+            assertTrue(highest >= v, Long.toString(v));
+            assertTrue(highest - v <= v / 32, Long.toString(v));
+        }
+    }
+
+    @Test
+    void reportsPercentilesAsBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100; v++) {
+            histogram.record(v);
+        }
+
+        assertEquals(new HistogramSnapshot(100, 50, 50, 91, 99, 100, 100), histogram.snapshot());
+    }
+
+    @Test
+    void neverReportsAPercentileAboveTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+
+        HistogramSnapshot s = histogram.snapshot();
+        assertEquals(1_000_000, s.p50());
+        assertEquals(1_000_000, s.p999());
+        assertEquals(1_000_000, s.max());
+    }
+
+    @Test
+    void findsTheTailOfASkewedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5_000_000);
+        }
+
+        HistogramSnapshot s = histogram.snapshot();
+        assertEquals(1_000, s.count());
+        assertEquals(LatencyHistogram.highestIn(LatencyHistogram.bucket(1_000)), s.p50());
+        assertEquals(s.p50(), s.p99());
+        assertEquals(5_000_000, s.p999());
+        assertEquals((990 * 1_000L + 10 * 5_000_000L) / 1_000, s.mean());
+    }
+
+    @Test
+    void isAllZeroWhenEmptyAndRecordsNegativesAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0), histogram.snapshot());
+
+        histogram.record(-5);
+        assertEquals(new HistogramSnapshot(1, 0, 0, 0, 0, 0, 0), histogram.snapshot());
+    }
+
+    @Test
+    void losesNoValuesRecordedConcurrently() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 25_000; i++) {
+                    histogram.record(i % 1_000 + offset);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        HistogramSnapshot s = histogram.snapshot();
+        assertEquals(100_000, s.count());
+        assertEquals(1_002, s.max());
+    }
+}
@@ -0,0 +1,118 @@
+package com.clearai.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+
+    @Test
+    void keepsOneStagePerNameAndSnapshotsThemInOrder() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StageMetrics watch = registry.stage(MetricsRegistry.WATCH);
+        assertSame(watch, registry.stage(MetricsRegistry.WATCH));
+        registry.stage(MetricsRegistry.CLASSIFY).add(5, 0);
+        watch.add(1, 10);
+        watch.add(2, 0);
+
+        List<StageSnapshot> snapshot = registry.snapshot();
+
+        assertEquals(List.of("classify", "watch"), snapshot.stream().map(StageSnapshot::stage).toList());
+        assertEquals(3, snapshot.get(1).items());
+        assertEquals(10, snapshot.get(1).bytes());
+    }
+
+    @Test
+    void sumsTheQueuesOfAStageUntilTheyAreClosed() {
+        StageMetrics stage = new MetricsRegistry().stage(MetricsRegistry.HASH);
+        StageMetrics.Registration first = stage.queue(() -> 3);
+        StageMetrics.Registration second = stage.queue(() -> 4);
+        assertEquals(7, stage.snapshot().queueDepth());
+
+        first.close();
+        assertEquals(4, stage.snapshot().queueDepth());
+        second.close();
+        assertEquals(0, stage.snapshot().queueDepth());
+    }
+
+    @Test
+    void registersAnMXBeanPerStageIncludingLaterOnes() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        String before = "test-before-" + System.nanoTime();
+        String after = "test-after-" + System.nanoTime();
+        StageMetrics early = registry.stage(before);
+        early.record(4, 1024, System.nanoTime() - 1_000_000);
+        early.error();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName earlyName = new ObjectName("com.clearai:type=Stage,name=" + before);
+        ObjectName lateName = new ObjectName("com.clearai:type=Stage,name=" + after);
+        assertFalse(server.isRegistered(earlyName));
+
+        registry.registerMBeans();
+        registry.registerMBeans();
+        registry.stage(after).add(9, 0);
+
+        try {
+            StageMXBean bean = JMX.newMXBeanProxy(server, earlyName, StageMXBean.class);
+            assertEquals(1, bean.getOperations());
+            assertEquals(4, bean.getItems());
+            assertEquals(1024, bean.getBytes());
+            assertEquals(1, bean.getErrors());
+            assertTrue(bean.getLatencyMaxMicros() >= 1_000, Double.toString(bean.getLatencyMaxMicros()));
+            assertTrue(bean.getLatencyP50Micros() <= bean.getLatencyMaxMicros());
+            assertEquals(4L, server.getAttribute(earlyName, "Items"));
+            assertEquals(9L, server.getAttribute(lateName, "Items"));
+        } finally {
+            server.unregisterMBean(earlyName);
+            server.unregisterMBean(lateName);
+        }
+    }
+
+    @Test
+    void emitsAFlightRecorderEventPerStage() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        String name = "test-jfr-" + System.nanoTime();
+        StageMetrics stage = registry.stage(name);
+        stage.record(3, 300, System.nanoTime() - 2_000_000);
+        registry.registerFlightRecorder();
+
+        BlockingQueue<RecordedEvent> events = new ArrayBlockingQueue<>(1_000);
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable("com.clearai.StageStatistics").withPeriod(Duration.ofMillis(100));
+            stream.onEvent("com.clearai.StageStatistics", event -> {
+                if (name.equals(event.getString("stage"))) {
+                    events.offer(event);
+                }
+            });
+            stream.startAsync();
+
+            RecordedEvent event = events.poll(10, TimeUnit.SECONDS);
+
+            assertNotNull(event, "no event within ten seconds");
+            assertEquals(1, event.getLong("operations"));
+            assertEquals(3, event.getLong("items"));
+            assertEquals(300, event.getLong("bytes"));
+            assertEquals(0, event.getLong("errors"));
+            assertTrue(event.getDuration("max").toNanos() >= 2_000_000);
+            assertEquals(stage.snapshot().latency().p50(), event.getDuration("p50").toNanos());
+        }
+    }
+}
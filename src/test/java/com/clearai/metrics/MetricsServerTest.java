@@ -0,0 +1,88 @@
+package com.clearai.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsServerTest {
+
+    @Test
+    void rendersEveryStageInTheTextExpositionFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StageMetrics scan = registry.stage(MetricsRegistry.SCAN);
+        scan.add(10, 4096);
+        scan.error();
+        registry.stage(MetricsRegistry.HASH).add(3, 0);
+        scan.queue(() -> 7);
+
+        List<String> lines = MetricsServer.render(registry).lines().toList();
+
+        assertTrue(lines.contains("# HELP clearai_stage_items_total Items processed per stage."), lines::toString);
+        assertTrue(lines.contains("# TYPE clearai_stage_items_total counter"));
+        int type = lines.indexOf("# TYPE clearai_stage_items_total counter");
+        assertEquals("clearai_stage_items_total{stage=\"hash\"} 3", lines.get(type + 1));
+        assertEquals("clearai_stage_items_total{stage=\"scan\"} 10", lines.get(type + 2));
+        assertTrue(lines.contains("clearai_stage_bytes_total{stage=\"scan\"} 4096"));
+        assertTrue(lines.contains("clearai_stage_errors_total{stage=\"scan\"} 1"));
+        assertTrue(lines.contains("clearai_stage_errors_total{stage=\"hash\"} 0"));
+        assertTrue(lines.contains("# TYPE clearai_stage_queue_depth gauge"));
+        assertTrue(lines.contains("clearai_stage_queue_depth{stage=\"scan\"} 7"));
+        assertTrue(lines.contains("# TYPE clearai_stage_latency_seconds summary"));
+    }
+
+    @Test
+    void exportsLatencyAsASummaryInSeconds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StageMetrics delete = registry.stage(MetricsRegistry.DELETE);
+        // Started two milliseconds ago; the recorded latency is at least that.
+        delete.record(1, 0, System.nanoTime() - 2_000_000);
+
+        List<String> lines = MetricsServer.render(registry).lines().toList();
+        HistogramSnapshot latency = registry.snapshot().get(0).latency();
+
+        assertTrue(latency.max() >= 2_000_000);
+        assertTrue(lines.contains("clearai_stage_operations_total{stage=\"delete\"} 1"), lines::toString);
+        assertTrue(lines.contains("clearai_stage_latency_seconds{stage=\"delete\",quantile=\"0.5\"} "
+                + String.format(Locale.ROOT, "%.6g", latency.p50() / 1e9)));
+        assertTrue(lines.contains("clearai_stage_latency_seconds_count{stage=\"delete\"} 1"));
+        String sum = lines.stream().filter(l -> l.startsWith("clearai_stage_latency_seconds_sum{stage=\"delete\"} "))
+                .findFirst().orElseThrow();
+        double seconds = Double.parseDouble(sum.substring(sum.lastIndexOf(' ') + 1));
+        assertEquals(latency.mean() / 1e9, seconds, 1e-6);
+        for (String line : lines) {
+            assertTrue(line.startsWith("#") || line.matches("[a-z_]+\\{[^}]*} -?[0-9.e+-]+"), line);
+        }
+    }
+
+    @Test
+    void servesTheMetricsOverHttp() throws IOException, InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.stage(MetricsRegistry.ARCHIVE).add(2, 100);
+        try (MetricsServer server = MetricsServer.start(registry, 0)) {
+            assertTrue(server.address().getAddress().isLoopbackAddress());
+            URI uri = URI.create("http://127.0.0.1:" + server.address().getPort() + "/metrics");
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, get.statusCode());
+            assertEquals("text/plain; version=0.0.4; charset=utf-8",
+                    get.headers().firstValue("Content-Type").orElseThrow());
+            assertTrue(get.body().contains("\nclearai_stage_items_total{stage=\"archive\"} 2\n"), get.body());
+            assertTrue(get.body().contains("\nclearai_stage_bytes_total{stage=\"archive\"} 100\n"));
+
+            HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString("")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, post.statusCode());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.clearai.recommend;
+
+import com.clearai.classify.Category;
+import com.clearai.classify.Rule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecommendationServiceTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(20_000);
+    private static final long MIB = 1024 * 1024;
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+    private static final Rule LOG = new Rule(0, Category.LOG, "*.log", 0);
+    private static final Rule DOWNLOAD = new Rule(1, Category.DOWNLOAD, "~/Downloads/**", 0);
+    private static final Rule BUILD = new Rule(2, Category.BUILD, "**/node_modules/**", 0);
+
+    private final Counting model = new Counting(new HeuristicModel(CLOCK));
+    private final RecommendationService service = new RecommendationService(model,
+            RecommendationOptions.builder().clock(CLOCK).maxDelay(Duration.ZERO).build());
+
+    @AfterEach
+    void close() {
+        service.close();
+    }
+
+    @Test
+    void filesOnEitherSideOfAThresholdGetTheirOwnVerdict() throws Exception {
+        assertDiffer(file("/logs/a.log", MIB, 30, LOG), file("/logs/b.log", MIB, 31, LOG));
+        assertDiffer(file("/logs/a.log", 10 * MIB, 1, LOG), file("/logs/b.log", 10 * MIB + 1, 1, LOG));
+        assertDiffer(file("/dl/a.iso", 100 * MIB, 90, DOWNLOAD), file("/dl/b.iso", 100 * MIB + 1, 90, DOWNLOAD));
+        assertDiffer(file("/data/a.bin", 200 * MIB, 365, null), file("/data/b.bin", 200 * MIB, 366, null));
+        assertDiffer(file("/data/a.bin", 100 * MIB, 400, null), file("/data/b.bin", 100 * MIB + 1, 400, null));
+    }
+
+    @Test
+    void answersFilesWithTheSameKeyFromTheCache() throws Exception {
+        Recommendation first = recommend(file("/logs/a.log", MIB, 40, LOG));
+        Recommendation second = recommend(file("/logs/b.log", MIB + 7, 41, LOG));
+
+        assertEquals(first, second);
+        assertEquals(1, model.scored.get());
+        assertEquals(1, service.cachedCount());
+    }
+
+    @Test
+    void copiesWithTheSameContentKeepTheVerdictOfTheirOwnRule() throws Exception {
+        String hash = "ab12";
+        Recommendation inBuild = recommend(new FileFeatures(Path.of("/p/node_modules/x/index.js"), MIB,
+                NOW - TimeUnit.DAYS.toMillis(60), BUILD, hash));
+        Recommendation outside = recommend(new FileFeatures(Path.of("/p/src/index.js"), MIB,
+                NOW - TimeUnit.DAYS.toMillis(60), null, hash));
+
+        assertEquals(Recommendation.Action.DELETE, inBuild.action());
+        assertEquals(Recommendation.Action.KEEP, outside.action());
+        assertEquals(2, model.scored.get());
+
+        recommend(new FileFeatures(Path.of("/q/node_modules/x/index.js"), MIB, NOW - TimeUnit.DAYS.toMillis(61),
+                BUILD, hash));
+        assertEquals(2, model.scored.get());
+    }
+
+    @Test
+    void failsRequestsWhenTheModelFails() {
+        try (RecommendationService failing = new RecommendationService(batch -> {
+            throw new IllegalStateException("model down");
+        }, RecommendationOptions.builder().clock(CLOCK).build())) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> failing.recommend(file("/a.log", 1, 1, LOG)).get());
+            assertEquals("model down", e.getCause().getMessage());
+            assertEquals(0, failing.cachedCount());
+        }
+    }
+
+    @Test
+    void keysRecordWhichThresholdsAFileExceeds() {
+        long[] sizes = {10 * MIB};
+        long[] ages = {30};
+        String below = RecommendationKeys.of(file("/a.log", MIB, 30, LOG), NOW, sizes, ages);
+        String above = RecommendationKeys.of(file("/a.log", MIB, 31, LOG), NOW, sizes, ages);
+        assertNotEquals(below, above);
+        assertEquals(RecommendationKeys.of(file("/a.log", MIB, 31, LOG), NOW),
+                RecommendationKeys.of(file("/a.log", MIB, 30, LOG), NOW));
+    }
+
+    private void assertDiffer(FileFeatures a, FileFeatures b) throws Exception {
+        Recommendation first = recommend(a);
+        Recommendation second = recommend(b);
+        assertNotEquals(first, second, a + " / " + b);
+    }
+
+    private Recommendation recommend(FileFeatures f) throws Exception {
+        return service.recommend(f).get(10, TimeUnit.SECONDS);
+    }
+
+    private static FileFeatures file(String path, long size, long ageDays, Rule rule) {
+        return new FileFeatures(Path.of(path), size, NOW - TimeUnit.DAYS.toMillis(ageDays), rule);
+    }
+
+    /** Counts the files the wrapped model scores. */
+    private static final class Counting implements RecommendationModel {
+
+        final AtomicInteger scored = new AtomicInteger();
+        private final RecommendationModel model;
+
+        Counting(RecommendationModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public List<Recommendation> score(List<FileFeatures> batch) {
+            scored.addAndGet(batch.size());
+            return model.score(batch);
+        }
+
+        @Override
+        public long[] sizeThresholds() {
+            return model.sizeThresholds();
+        }
+
+        @Override
+        public long[] ageThresholds() {
+            return model.ageThresholds();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.clearai.scan;
+
+import com.clearai.io.Device;
+import com.clearai.io.IoOptions;
+import com.clearai.io.IoScheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileScannerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void countsEveryFileDirectoryAndByte() throws IOException {
+        write("a.txt", 10);
+        write("sub/b.txt", 20);
+        write("sub/deeper/c.txt", 30);
+        write("sub/deeper/d.txt", 40);
+        Files.createDirectories(root.resolve("empty"));
+
+        Recorder recorder = new Recorder();
+        ScanSummary summary = scan(ScanOptions.builder().parallelism(4).build(), recorder);
+
+        assertEquals(4, summary.files());
+        assertEquals(4, summary.directories());
+        assertEquals(100, summary.bytes());
+        assertEquals(0, summary.errors());
+        assertEquals(Set.of(root.resolve("a.txt"), root.resolve("sub/b.txt"), root.resolve("sub/deeper/c.txt"),
+                root.resolve("sub/deeper/d.txt")), recorder.files.keySet());
+    }
+
+    @Test
+    void reportsDirectoriesBeforeTheirEntriesWithIncreasingIds() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                write("d" + i + "/e" + j + "/f", 1);
+            }
+        }
+        Recorder recorder = new Recorder();
+        scan(ScanOptions.builder().parallelism(4).build(), recorder);
+
+        assertEquals(ScanListener.NO_PARENT, recorder.parents.get(recorder.ids.get(root)));
+        for (Map.Entry<Path, Integer> dir : recorder.ids.entrySet()) {
+            if (!dir.getKey().equals(root)) {
+                int parentId = recorder.parents.get(dir.getValue());
+                assertEquals(recorder.ids.get(dir.getKey().getParent()), parentId, dir.getKey().toString());
+                assertTrue(dir.getValue() > parentId);
+            }
+        }
+        for (Map.Entry<Path, Integer> file : recorder.files.entrySet()) {
+            assertEquals(recorder.ids.get(file.getKey().getParent()), file.getValue());
+        }
+        assertFalse(recorder.outOfOrder, "an entry was reported before its directory");
+    }
+
+    @Test
+    void countsUnreadableEntriesAsErrorsAndKeepsGoing() throws IOException {
+        write("ok.txt", 5);
+        Path dangling = Files.createSymbolicLink(root.resolve("dangling"), root.resolve("missing"));
+
+        Recorder recorder = new Recorder();
+        ScanSummary summary = scan(ScanOptions.builder().followLinks(true).build(), recorder);
+
+        assertEquals(1, summary.files());
+        assertEquals(1, summary.errors());
+        assertEquals(List.of(dangling), recorder.failures);
+    }
+
+    @Test
+    void skipsSymbolicLinksWhenNotFollowingThem() throws IOException {
+        write("target/f", 7);
+        Files.createSymbolicLink(root.resolve("link"), root.resolve("target"));
+        Files.createSymbolicLink(root.resolve("file-link"), root.resolve("target/f"));
+
+        ScanSummary summary = scan(ScanOptions.defaults(), new Recorder());
+
+        assertEquals(1, summary.files());
+        assertEquals(2, summary.directories());
+    }
+
+    @Test
+    void entersADirectoryReachedThroughALinkOnlyOnce() throws IOException {
+        write("target/f", 7);
+        Files.createSymbolicLink(root.resolve("target/loop"), root);
+
+        ScanSummary summary = scan(ScanOptions.builder().followLinks(true).build(), new Recorder());
+
+        assertEquals(1, summary.files());
+        assertEquals(0, summary.errors());
+    }
+
+    @Test
+    void honoursDepthHiddenAndDirectoryFilter() throws IOException {
+        write("top", 1);
+        write("one/f", 1);
+        write("one/two/f", 1);
+        write(".hidden/f", 1);
+        write(".dotfile", 1);
+        write("node_modules/pkg/f", 1);
+
+        ScanOptions options = ScanOptions.builder()
+                .maxDepth(1)
+                .skipHidden(true)
+                .directoryFilter(dir -> !dir.getFileName().toString().equals("node_modules"))
+                .build();
+        Recorder recorder = new Recorder();
+        scan(options, recorder);
+
+        assertEquals(Set.of(root.resolve("top"), root.resolve("one/f")), recorder.files.keySet());
+    }
+
+    @Test
+    void reportsAFileRootWithoutAParent() throws IOException {
+        Path file = write("only", 12);
+        Recorder recorder = new Recorder();
+        ScanSummary summary;
+        try (FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            summary = scanner.scan(file, recorder);
+        }
+        assertEquals(1, summary.files());
+        assertEquals(0, summary.directories());
+        assertEquals(Map.of(file, ScanListener.NO_PARENT), recorder.files);
+    }
+
+    @Test
+    void failsWhenTheRootIsMissing() {
+        try (FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            assertThrows(NoSuchFileException.class, () -> scanner.scan(root.resolve("missing"), new Recorder()));
+        }
+    }
+
+    @Test
+    void canBeReusedForSeveralScans() throws IOException {
+        write("a/f", 3);
+        write("b/f", 4);
+        try (FileScanner scanner = new FileScanner(ScanOptions.defaults())) {
+            assertEquals(3, scanner.scan(root.resolve("a"), new Recorder()).bytes());
+            assertEquals(4, scanner.scan(root.resolve("b"), new Recorder()).bytes());
+            assertEquals(7, scanner.scan(root, new Recorder()).bytes());
+        }
+    }
+
+    @Test
+    void givesTheDeviceBackWhenTheListenerThrows() throws IOException {
+        write("a.txt", 1);
+        write("b.txt", 2);
+        try (IoScheduler scheduler = new IoScheduler(oneAtATime());
+                FileScanner scanner = new FileScanner(ScanOptions.builder().ioScheduler(scheduler).build())) {
+            Device device = scheduler.device(root);
+            assertThrows(IllegalStateException.class, () -> scanner.scan(root, new Recorder() {
+                @Override
+                public void fileVisited(int dirId, Path file, long size, long lastModified) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }));
+            assertEquals(0, scheduler.load(device));
+            assertEquals(3, scanner.scan(root, new Recorder()).bytes());
+        }
+    }
+
+    @Test
+    void resumesOnItsOwnWorkersWhenAnotherThreadFreesTheDevice() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            write("d" + i + "/f", 1);
+        }
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void fileVisited(int dirId, Path file, long size, long lastModified) {
+                threads.add(Thread.currentThread());
+                super.fileVisited(dirId, file, size, lastModified);
+            }
+        };
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try (IoScheduler scheduler = new IoScheduler(oneAtATime());
+                FileScanner scanner = new FileScanner(ScanOptions.builder().ioScheduler(scheduler).build())) {
+            Device device = scheduler.device(root);
+            CountDownLatch hold = new CountDownLatch(1);
+            // Holds the only slot on a scheduler thread, so the scan's root is resumed from there.
+            Future<?> blocker = scheduler.submit(root.resolve("d0/f"), () -> hold.await(10, TimeUnit.SECONDS));
+            Future<ScanSummary> scan = caller.submit(() -> scanner.scan(root, recorder));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (scheduler.load(device) < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, scheduler.load(device));
+            hold.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+
+            assertEquals(4, scan.get(10, TimeUnit.SECONDS).files());
+        } finally {
+            caller.shutdownNow();
+        }
+        for (Thread t : threads) {
+            assertTrue(t instanceof ForkJoinWorkerThread w && w.getPool() != ForkJoinPool.commonPool(), t.getName());
+        }
+    }
+
+    private static IoOptions oneAtATime() {
+        return IoOptions.builder()
+                .solidStateParallelism(1)
+                .rotationalParallelism(1)
+                .networkParallelism(1)
+                .build();
+    }
+
+    private ScanSummary scan(ScanOptions options, ScanListener listener) throws IOException {
+        try (FileScanner scanner = new FileScanner(options)) {
+            return scanner.scan(root, listener);
+        }
+    }
+
+    private Path write(String name, int size) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, new byte[size]);
+    }
+
+    /** Records callbacks and checks that no entry arrives before its directory. */
+    private static class Recorder implements ScanListener {
+
+        final Map<Path, Integer> ids = new ConcurrentHashMap<>();
+        final Map<Integer, Integer> parents = new ConcurrentHashMap<>();
+        final Map<Path, Integer> files = new ConcurrentHashMap<>();
+        final List<Path> failures = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean outOfOrder;
+
+        @Override
+        public void directoryVisited(int dirId, int parentId, Path dir) {
+            if (parentId != NO_PARENT && !parents.containsKey(parentId)) {
+                outOfOrder = true;
+            }
+            ids.put(dir, dirId);
+            parents.put(dirId, parentId);
+        }
+
+        @Override
+        public void fileVisited(int dirId, Path file, long size, long lastModified) {
+            if (dirId != NO_PARENT && !parents.containsKey(dirId)) {
+                outOfOrder = true;
+            }
+            files.put(file, dirId);
+        }
+
+        @Override
+        public void visitFailed(Path path, IOException cause) {
+            failures.add(path);
+        }
+    }
+}
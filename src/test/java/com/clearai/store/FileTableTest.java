@@ -0,0 +1,114 @@
+package com.clearai.store;
+
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanListener;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileTableTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void holdsEveryFileOfAScan() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            write("pkg-" + i + "/index.js", i);
+            write("pkg-" + i + "/lib/util.js", 10 + i);
+        }
+        FileTable table = new FileTable();
+        ScanSummary summary;
+        try (FileScanner scanner = new FileScanner(ScanOptions.builder().parallelism(4).build())) {
+            summary = scanner.scan(root, table);
+        }
+
+        assertEquals(summary.files(), table.fileCount());
+        assertEquals(summary.directories(), table.directoryCount());
+        // index.js, util.js, lib and the five pkg-N directories.
+        assertEquals(8, table.distinctNames());
+        Set<Path> paths = new HashSet<>();
+        long bytes = 0;
+        for (int id = 0; id < table.fileCount(); id++) {
+            Path path = table.path(id);
+            paths.add(path);
+            assertEquals(Files.size(path), table.size(id));
+            assertEquals(path.getFileName().toString(), table.name(id));
+            assertEquals(path.getParent(), table.directoryPath(table.directory(id)));
+            bytes += table.size(id);
+        }
+        assertEquals(10, paths.size());
+        assertEquals(summary.bytes(), bytes);
+    }
+
+    @Test
+    void addsRowsAndVisitsThemInOrder() {
+        FileTable table = new FileTable(4);
+        table.directoryVisited(0, ScanListener.NO_PARENT, root);
+        table.directoryVisited(1, 0, root.resolve("sub"));
+        int a = table.add(1, "a.txt", 5, 100);
+        int b = table.add(0, "b.txt", 7, 200);
+
+        assertEquals(root.resolve("sub/a.txt"), table.path(a));
+        assertEquals(root.resolve("b.txt"), table.path(b));
+        assertEquals(ScanListener.NO_PARENT, table.parent(0));
+        assertEquals(0, table.parent(1));
+        assertEquals(200, table.lastModified(b));
+        long[] seen = new long[2];
+        table.forEach((id, dir, size, modified) -> seen[id] = size * 1000 + dir);
+        assertArrayEquals(new long[]{5001, 7000}, seen);
+        assertThrows(IndexOutOfBoundsException.class, () -> table.size(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.parent(2));
+    }
+
+    @Test
+    void recordsContentHashes() {
+        FileTable table = new FileTable(4);
+        table.directoryVisited(0, ScanListener.NO_PARENT, root);
+        int a = table.add(0, "a", 1, 0);
+        int b = table.add(0, "b", 1, 0);
+        assertNull(table.hash(a));
+
+        table.setHash(a, new byte[]{1, 2, 3, 4});
+        table.setHash(b, new byte[]{5, 6, 7, 8});
+        table.setHash(a, new byte[]{9, 9, 9, 9});
+
+        assertArrayEquals(new byte[]{9, 9, 9, 9}, table.hash(a));
+        assertArrayEquals(new byte[]{5, 6, 7, 8}, table.hash(b));
+        assertThrows(IllegalArgumentException.class, () -> table.setHash(a, new byte[3]));
+    }
+
+    @Test
+    void staysUnderSixtyFourBytesAFileAtScale() {
+        FileTable table = new FileTable();
+        table.directoryVisited(0, ScanListener.NO_PARENT, root);
+        for (int d = 1; d <= 5_000; d++) {
+            table.directoryVisited(d, 0, root.resolve("pkg-" + d));
+            for (int f = 0; f < 100; f++) {
+                table.add(d, f % 5 == 0 ? "chunk-" + d + "-" + f + ".bin" : "file-" + f + ".js", f, 0);
+            }
+        }
+        assertEquals(500_000, table.fileCount());
+        assertTrue(table.bytesPerFile() < 64, () -> table.bytesPerFile() + " bytes/file");
+    }
+
+    private void write(String name, int size) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.clearai.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NamePoolTest {
+
+    @Test
+    void internsEachNameOnce() {
+        NamePool pool = new NamePool();
+        int a = pool.intern("index.js");
+        int b = pool.intern("package.json");
+        assertNotEquals(a, b);
+        assertEquals(a, pool.intern("index.js"));
+        assertEquals(2, pool.size());
+        assertEquals("index.js", pool.name(a));
+        assertEquals("package.json", pool.name(b));
+    }
+
+    @Test
+    void keepsNamesAcrossRehashesAndPages() {
+        NamePool pool = new NamePool();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            String name = "name-" + i + "-" + "x".repeat(i % 37);
+            ids.put(name, pool.intern(name));
+        }
+        assertEquals(ids.size(), pool.size());
+        for (Map.Entry<String, Integer> e : ids.entrySet()) {
+            assertEquals(e.getKey(), pool.name(e.getValue()));
+            assertEquals(e.getValue(), pool.intern(e.getKey()));
+        }
+        assertTrue(pool.allocatedBytes() > 0);
+    }
+
+    @Test
+    void storesNonAsciiAndEmptyNamesAndTheLongestAllowed() {
+        NamePool pool = new NamePool();
+        String longest = "é".repeat(NamePool.MAX_NAME_BYTES / 2) + "x";
+        for (String name : List.of("", "日本語.txt", "Ünïcödé", longest, "😀.png")) {
+            assertEquals(name, pool.name(pool.intern(name)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> pool.intern(longest + "x"));
+    }
+
+    @Test
+    void internsFromManyThreadsWithoutDuplicates() throws Exception {
+        NamePool pool = new NamePool();
+        int threads = 8;
+        int names = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[names];
+                    for (int i = 0; i < names; i++) {
+                        int n = (i + offset * 997) % names;
+                        ids[n] = pool.intern("f" + n);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> f : results) {
+                int[] ids = f.get();
+                for (int n = 0; n < names; n++) {
+                    assertEquals(first[n], ids[n]);
+                }
+            }
+            Set<Integer> distinct = new HashSet<>();
+            for (int id : first) {
+                distinct.add(id);
+            }
+            assertEquals(names, distinct.size());
+            assertEquals(names, pool.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.clearai.usage;
+
+import com.clearai.scan.FileScanner;
+import com.clearai.scan.ScanListener;
+import com.clearai.scan.ScanOptions;
+import com.clearai.scan.ScanSummary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiskUsageTest {
+
+    private static final Path ROOT = Path.of("/r");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void rollsFilesUpToEveryAncestor() {
+        DiskUsage usage = tree();
+
+        UsageSnapshot snapshot = usage.snapshot();
+
+        assertEquals(1111, snapshot.bytes());
+        assertEquals(5, snapshot.files());
+        assertEquals(4, snapshot.directories());
+        assertEquals(List.of(
+                new DirectoryUsage(ROOT, 1111, 5, 3),
+                new DirectoryUsage(ROOT.resolve("a"), 1110, 3, 1),
+                new DirectoryUsage(ROOT.resolve("a/b"), 1100, 2, 0)), snapshot.largest());
+    }
+
+    @Test
+    void leavesOutDirectoriesNotReportedYet() {
+        DiskUsage usage = new DiskUsage(10);
+        usage.directoryVisited(0, ScanListener.NO_PARENT, ROOT);
+        usage.fileVisited(0, ROOT.resolve("f"), 1, 0);
+        usage.fileVisited(2, ROOT.resolve("a/b/f"), 100, 0);
+        usage.directoryVisited(2, 1, ROOT.resolve("a/b"));
+
+        assertEquals(1, usage.snapshot().bytes());
+        assertEquals(1, usage.snapshot().directories());
+
+        usage.directoryVisited(1, 0, ROOT.resolve("a"));
+        assertEquals(101, usage.snapshot().bytes());
+        assertEquals(3, usage.snapshot().directories());
+    }
+
+    @Test
+    void keepsAFinishedRollupCurrent() {
+        DiskUsage usage = tree();
+
+        usage.remove(2);
+        usage.remove(1);
+        UsageSnapshot removed = usage.snapshot();
+        assertEquals(1, removed.bytes());
+        assertEquals(2, removed.directories());
+
+        int c = usage.addDirectory(0, ROOT.resolve("c"));
+        usage.setFiles(c, 5000, 2);
+        usage.setFiles(0, 2, 2);
+        UsageSnapshot added = usage.snapshot();
+        assertEquals(5002, added.bytes());
+        assertEquals(4, added.files());
+        assertEquals(new DirectoryUsage(ROOT.resolve("c"), 5000, 2, 0), added.largest().get(1));
+    }
+
+    @Test
+    void reusesRemovedIdsOnlyBelowASmallerParent() {
+        DiskUsage usage = tree();
+        usage.remove(2);
+        usage.remove(1);
+
+        int a = usage.addDirectory(0, ROOT.resolve("a2"));
+        assertEquals(1, a);
+        assertEquals(2, usage.addDirectory(a, ROOT.resolve("a2/b")));
+        assertEquals(4, usage.addDirectory(3, ROOT.resolve("z/c")));
+        assertEquals(5, usage.idCapacity());
+
+        usage.setFiles(1, 3, 1);
+        usage.setFiles(2, 7, 1);
+        UsageSnapshot snapshot = usage.snapshot();
+        assertEquals(11, snapshot.bytes());
+        assertEquals(5, snapshot.directories());
+        assertEquals(new DirectoryUsage(ROOT.resolve("a2"), 10, 2, 1), snapshot.largest().get(1));
+    }
+
+    @Test
+    void keepsItsSizeWhileSubtreesComeAndGo() {
+        DiskUsage usage = new DiskUsage(1);
+        usage.directoryVisited(0, ScanListener.NO_PARENT, ROOT);
+        for (int round = 0; round < 1_000; round++) {
+            int dir = usage.addDirectory(0, ROOT.resolve("build"));
+            int child = usage.addDirectory(dir, ROOT.resolve("build/classes"));
+            usage.fileVisited(child, ROOT, 10, 0);
+            assertEquals(10, usage.snapshot().bytes());
+            usage.remove(child);
+            usage.remove(dir);
+        }
+        assertEquals(3, usage.idCapacity());
+        assertEquals(0, usage.snapshot().bytes());
+    }
+
+    @Test
+    void spansManyPagesOfDirectories() {
+        DiskUsage usage = new DiskUsage(1);
+        usage.directoryVisited(0, ScanListener.NO_PARENT, ROOT);
+        usage.fileVisited(0, ROOT, 1, 0);
+        int n = 20_000;
+        for (int id = 1; id < n; id++) {
+            usage.directoryVisited(id, id - 1, ROOT);
+            usage.fileVisited(id, ROOT, 1, 0);
+        }
+        UsageSnapshot snapshot = usage.snapshot();
+        assertEquals(n, snapshot.bytes());
+        assertEquals(n, snapshot.directories());
+        assertEquals(n - 1, snapshot.largest().get(0).directories());
+    }
+
+    @Test
+    void agreesWithTheScanItListenedTo() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                Path file = temp.resolve("d" + i + "/e" + j + "/f");
+                Files.createDirectories(file.getParent());
+                Files.write(file, new byte[i * 10 + j]);
+            }
+        }
+        DiskUsage usage = new DiskUsage(3);
+        ScanSummary summary;
+        try (FileScanner scanner = new FileScanner(ScanOptions.builder().parallelism(4).build())) {
+            summary = scanner.scan(temp, usage);
+        }
+
+        UsageSnapshot snapshot = usage.snapshot();
+        assertEquals(summary.bytes(), snapshot.bytes());
+        assertEquals(summary.files(), snapshot.files());
+        assertEquals(summary.directories(), snapshot.directories());
+        assertEquals(temp, snapshot.largest().get(0).dir());
+        assertEquals(temp.resolve("d5"), snapshot.largest().get(1).dir());
+        assertEquals(6 * 50 + 15, snapshot.largest().get(1).bytes());
+    }
+
+    /** /r (1 byte), /r/a (10), /r/a/b (2 files, 1100), /r/z (empty). */
+    private static DiskUsage tree() {
+        DiskUsage usage = new DiskUsage(3);
+        usage.directoryVisited(0, ScanListener.NO_PARENT, ROOT);
+        usage.directoryVisited(1, 0, ROOT.resolve("a"));
+        usage.directoryVisited(2, 1, ROOT.resolve("a/b"));
+        usage.directoryVisited(3, 0, ROOT.resolve("z"));
+        usage.fileVisited(0, ROOT.resolve("f"), 1, 0);
+        usage.fileVisited(1, ROOT.resolve("a/f"), 10, 0);
+        usage.fileVisited(2, ROOT.resolve("a/b/f"), 100, 0);
+        usage.fileVisited(2, ROOT.resolve("a/b/g"), 1000, 0);
+        usage.fileVisited(0, ROOT.resolve("g"), 0, 0);
+        return usage;
+    }
+}
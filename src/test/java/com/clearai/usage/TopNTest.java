@@ -0,0 +1,68 @@
+package com.clearai.usage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopNTest {
+
+    @Test
+    void keepsTheLargestKeysInDescendingOrder() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 200; round++) {
+            int n = random.nextInt(300);
+            int k = random.nextInt(20);
+            long[] keys = random.longs(n, 0, 50).toArray();
+            TopN top = new TopN(k);
+            top.reset(keys);
+            for (int id = 0; id < n; id++) {
+                top.offer(id);
+            }
+
+            long[] expected = IntStream.range(0, n).boxed()
+                    .sorted(Comparator.comparingLong((Integer id) -> keys[id]).reversed())
+                    .limit(k)
+                    .mapToLong(id -> keys[id])
+                    .toArray();
+            long[] actual = Arrays.stream(top.drainDescending()).mapToLong(id -> keys[id]).toArray();
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void returnsFewerIdsThanTheCapacityWhenFewerWereOffered() {
+        long[] keys = {5, 9, 1};
+        TopN top = new TopN(10);
+        top.reset(keys);
+        top.offer(0);
+        top.offer(1);
+        top.offer(2);
+        assertArrayEquals(new int[]{1, 0, 2}, top.drainDescending());
+    }
+
+    @Test
+    void canBeResetAndReused() {
+        TopN top = new TopN(2);
+        top.reset(new long[]{1, 2, 3});
+        top.offer(0);
+        top.offer(2);
+        top.reset(new long[]{7, 3});
+        top.offer(1);
+        assertArrayEquals(new int[]{1}, top.drainDescending());
+        assertEquals(0, top.drainDescending().length);
+    }
+
+    @Test
+    void keepsNothingWithZeroCapacity() {
+        TopN top = new TopN(0);
+        top.reset(new long[]{1});
+        top.offer(0);
+        assertEquals(0, top.drainDescending().length);
+    }
+}
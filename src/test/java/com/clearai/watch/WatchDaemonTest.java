@@ -0,0 +1,104 @@
+package com.clearai.watch;
+
+import com.clearai.usage.UsageSnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class WatchDaemonTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void followsFilesAndDirectoriesThatComeAndGo() throws Exception {
+        write("a/f", 10);
+        write("a/b/g", 20);
+        BlockingQueue<ChangeSet> changes = new LinkedBlockingQueue<>();
+        try (WatchDaemon daemon = new WatchDaemon(root, options(), changes::add)) {
+            assertEquals(30, daemon.start().bytes());
+            assertEquals(30, daemon.usage().snapshot().bytes());
+
+            write("a/b/h", 5);
+            awaitBytes(daemon, 35);
+
+            write("c/d/e/f", 100);
+            awaitBytes(daemon, 135);
+            assertEquals(6, daemon.directoryCount());
+
+            delete(root.resolve("a"));
+            awaitBytes(daemon, 100);
+            assertEquals(4, daemon.directoryCount());
+            assertEquals(0, daemon.errors());
+        }
+    }
+
+    @Test
+    void reusesUsageIdsWhenASubtreeIsRecreated() throws Exception {
+        write("keep/f", 1);
+        try (WatchDaemon daemon = new WatchDaemon(root, options(), c -> { })) {
+            daemon.start();
+            int capacity = -1;
+            for (int round = 0; round < 5; round++) {
+                write("build/classes/x/A.class", 50);
+                awaitBytes(daemon, 51);
+                delete(root.resolve("build"));
+                awaitBytes(daemon, 1);
+                if (round == 0) {
+                    capacity = daemon.usage().idCapacity();
+                }
+            }
+            assertEquals(capacity, daemon.usage().idCapacity());
+            UsageSnapshot snapshot = daemon.usage().snapshot();
+            assertEquals(2, snapshot.directories());
+        }
+    }
+
+    private static WatchOptions options() {
+        return WatchOptions.builder()
+                .debounce(Duration.ofMillis(20))
+                .maxLatency(Duration.ofMillis(200))
+                .build();
+    }
+
+    private static void awaitBytes(WatchDaemon daemon, long bytes) throws InterruptedException {
+        await(() -> daemon.usage().snapshot().bytes() == bytes,
+                () -> "expected " + bytes + " bytes, have " + daemon.usage().snapshot().bytes());
+    }
+
+    private static void await(BooleanSupplier condition, Supplier<String> message) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail(message.get());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void write(String name, int size) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.sorted((x, y) -> y.compareTo(x)).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}